@@ -0,0 +1,150 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.config;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.AbstractMessageChannel;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.scheduling.PollerMetadata;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.support.PeriodicTrigger;
+
+import com.hillert.gnss.demo.integration.QueueWaitInterceptor;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Creates the channels between the router (respectively the GSV aggregator)
+ * and the service activators, depending on {@link DemoSettings.Channels#getType()}:
+ *
+ * <ul>
+ *   <li>DIRECT - Services are invoked on the thread dispatching the sentences
+ *   <li>EXECUTOR - Each channel is served by its own thread, preserving the order of messages
+ *   <li>QUEUE - Bounded queues drained by consumers blocking on the queue (default)
+ *</ul>
+ *
+ * The default poller used by the queue consumers waits for messages instead of
+ * polling at a fixed rate, so messages are handled as soon as they arrive.
+ * Sending to a full channel blocks until there is space, for EXECUTOR channels
+ * as well, as running the rejected message on the sending thread would let it
+ * overtake the queued messages. The threads of EXECUTOR channels are shut down
+ * with the application context.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@Configuration
+public class ChannelTopologyConfig implements DisposableBean {
+
+	private final List<ThreadPoolTaskExecutor> taskExecutors = new CopyOnWriteArrayList<>();
+
+	@Bean(name = PollerMetadata.DEFAULT_POLLER)
+	public PollerMetadata defaultPoller(DemoSettings demoSettings) {
+		final PollerMetadata pollerMetadata = new PollerMetadata();
+		pollerMetadata.setTrigger(new PeriodicTrigger(0));
+		pollerMetadata.setReceiveTimeout(demoSettings.getChannels().getReceiveTimeout().toMillis());
+		pollerMetadata.setMaxMessagesPerPoll(-1);
+		return pollerMetadata;
+	}
+
+	@Bean
+	public AbstractMessageChannel ubxChannel(DemoSettings demoSettings) {
+		return this.createChannel("ubxChannel", demoSettings.getChannels());
+	}
+
+	@Bean
+	public AbstractMessageChannel ggaChannel(DemoSettings demoSettings) {
+		return this.createChannel("ggaChannel", demoSettings.getChannels());
+	}
+
+	@Bean
+	public AbstractMessageChannel gsaChannel(DemoSettings demoSettings) {
+		return this.createChannel("gsaChannel", demoSettings.getChannels());
+	}
+
+	@Bean
+	public AbstractMessageChannel gsvChannel(DemoSettings demoSettings) {
+		return this.createChannel("gsvChannel", demoSettings.getChannels());
+	}
+
+	@Bean
+	public AbstractMessageChannel destination(DemoSettings demoSettings) {
+		return this.createChannel("destination", demoSettings.getChannels());
+	}
+
+	private AbstractMessageChannel createChannel(String channelName, DemoSettings.Channels settings) {
+		switch (settings.getType()) {
+			case DIRECT:
+				return new DirectChannel();
+			case EXECUTOR:
+				final ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+				taskExecutor.setCorePoolSize(1);
+				taskExecutor.setMaxPoolSize(1);
+				taskExecutor.setQueueCapacity(settings.getQueueCapacity());
+				taskExecutor.setRejectedExecutionHandler(ChannelTopologyConfig::waitUntilQueued);
+				taskExecutor.setThreadNamePrefix("nmea-" + channelName + "-");
+				taskExecutor.setDaemon(true);
+				taskExecutor.initialize();
+				this.taskExecutors.add(taskExecutor);
+				final ExecutorChannel executorChannel = new ExecutorChannel(taskExecutor);
+				executorChannel.addInterceptor(new QueueWaitInterceptor(channelName));
+				return executorChannel;
+			case QUEUE:
+				final QueueChannel queueChannel = new QueueChannel(settings.getQueueCapacity());
+				queueChannel.addInterceptor(new QueueWaitInterceptor(channelName));
+				Gauge.builder("nmea.channel.queue.size", queueChannel, QueueChannel::getQueueSize)
+						.description("Number of messages waiting in a channel.")
+						.tags("channel", channelName)
+						.register(Metrics.globalRegistry);
+				return queueChannel;
+			default:
+				throw new IllegalStateException("Unsupported channel type " + settings.getType());
+		}
+	}
+
+	@Override
+	public void destroy() {
+		this.taskExecutors.forEach(ThreadPoolTaskExecutor::shutdown);
+		this.taskExecutors.clear();
+	}
+
+	private static void waitUntilQueued(Runnable task, ThreadPoolExecutor executor) {
+		if (executor.isShutdown()) {
+			throw new RejectedExecutionException("The executor has been shut down.");
+		}
+		try {
+			executor.getQueue().put(task);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting to queue the message.", e);
+		}
+	}
+
+}
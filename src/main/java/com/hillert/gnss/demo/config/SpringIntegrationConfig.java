@@ -16,19 +16,40 @@
 
 package com.hillert.gnss.demo.config;
 
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.ImportResource;
 import org.springframework.integration.annotation.MessagingGateway;
 import org.springframework.integration.config.EnableIntegration;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.http.config.EnableIntegrationGraphController;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.TaskScheduler;
 
+import com.hillert.gnss.demo.epoch.GnssEpoch;
+import com.hillert.gnss.demo.integration.DeadLetterService;
+import com.hillert.gnss.demo.integration.DirectPipeline;
+import com.hillert.gnss.demo.integration.EpochService;
 import com.hillert.gnss.demo.integration.GgaService;
 import com.hillert.gnss.demo.integration.GsaService;
+import com.hillert.gnss.demo.integration.GsvAggregator;
 import com.hillert.gnss.demo.integration.GsvService;
+import com.hillert.gnss.demo.integration.PipelineMetrics;
+import com.hillert.gnss.demo.integration.SentenceRouter;
+import com.hillert.gnss.demo.integration.StageTimingAdvice;
 import com.hillert.gnss.demo.integration.UbxService;
 import com.hillert.gnss.demo.store.GnssStatusStore;
+import com.hillert.gnss.demo.store.PositionHistory;
 import com.hillert.gnss.demo.store.SatelliteStore;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
 
 /**
  * Spring Integration specific configuration.
@@ -39,31 +60,107 @@ import com.hillert.gnss.demo.store.SatelliteStore;
 @Configuration()
 @EnableIntegration
 @ImportResource(locations = {"classpath:integration-context.xml"})
+@Import(ChannelTopologyConfig.class)
 @EnableIntegrationGraphController
 public class SpringIntegrationConfig {
 
 	@MessagingGateway(defaultRequestChannel = "rawNmeaInput")
 	public interface NmeaMessageGateway {
-		void send(String data);
+		void send(String data, @Header("deviceId") String deviceId);
+	}
+
+	@MessagingGateway(defaultRequestChannel = "epochChannel")
+	public interface EpochGateway {
+		void send(GnssEpoch epoch, @Header("deviceId") String deviceId);
+	}
+
+	/**
+	 * Registers the pipeline meters for the sentence types passing the prefilter,
+	 * or for all sentence types if the prefilter is disabled.
+	 */
+	@Bean
+	public PipelineMetrics pipelineMetrics(DemoSettings demoSettings) {
+		final DemoSettings.Filter filter = demoSettings.getFilter();
+		if (!filter.isEnabled()) {
+			return new PipelineMetrics(EnumSet.allOf(SentenceId.class));
+		}
+		final Set<SentenceId> sentenceIds = EnumSet.noneOf(SentenceId.class);
+		for (String sentenceType : filter.getSentenceTypes()) {
+			final SentenceId sentenceId = PipelineMetrics.toSentenceIdOrNull(sentenceType);
+			if (sentenceId != null) {
+				sentenceIds.add(sentenceId);
+			}
+		}
+		return new PipelineMetrics(sentenceIds);
+	}
+
+	@Bean
+	public SentenceRouter sentenceRouter(PipelineMetrics pipelineMetrics) {
+		return new SentenceRouter(pipelineMetrics, "deadLetterChannel");
+	}
+
+	@Bean
+	public DeadLetterService deadLetterService(DemoSettings demoSettings) {
+		return new DeadLetterService(demoSettings.getDeadLetter().getSampleCapacity());
+	}
+
+	/**
+	 * Creates the GSV aggregator, sending partial groups to the GSV service, and
+	 * periodically expires its incomplete groups using the integration task scheduler.
+	 */
+	@Bean
+	public GsvAggregator gsvAggregator(PipelineMetrics pipelineMetrics, DemoSettings demoSettings,
+			@Qualifier("destination") MessageChannel destination,
+			@Qualifier(IntegrationContextUtils.TASK_SCHEDULER_BEAN_NAME) TaskScheduler taskScheduler) {
+		final DemoSettings.Aggregation aggregation = demoSettings.getAggregation();
+		final GsvAggregator gsvAggregator = new GsvAggregator(pipelineMetrics, aggregation, destination);
+		taskScheduler.scheduleWithFixedDelay(gsvAggregator::expireGroups, aggregation.getGroupTimeout());
+		return gsvAggregator;
+	}
+
+	@Bean
+	public StageTimingAdvice serviceTimingAdvice(PipelineMetrics pipelineMetrics) {
+		return new StageTimingAdvice(pipelineMetrics, PipelineMetrics.Stage.SERVICE);
+	}
+
+	@Bean
+	public GsvService gsvService(SatelliteStore satelliteStore, GnssStatusStore gnssStatusStore,
+			PipelineMetrics pipelineMetrics) {
+		return new GsvService(satelliteStore, gnssStatusStore, pipelineMetrics);
+	}
+
+	@Bean
+	public GsaService gsaService(GnssStatusStore gnssStatusStore, PipelineMetrics pipelineMetrics) {
+		return new GsaService(gnssStatusStore, pipelineMetrics);
+	}
+
+	@Bean
+	public PositionHistory positionHistory(DemoSettings demoSettings) {
+		return new PositionHistory(demoSettings.getHistory().getCapacity());
 	}
 
 	@Bean
-	public GsvService gsvService(SatelliteStore satelliteStore, GnssStatusStore gnssStatusStore) {
-		return new GsvService(satelliteStore, gnssStatusStore);
+	public GgaService ggaService(GnssStatusStore gnssStatusStore, PipelineMetrics pipelineMetrics,
+			PositionHistory positionHistory) {
+		return new GgaService(gnssStatusStore, pipelineMetrics, positionHistory);
 	}
 
 	@Bean
-	public GsaService gsaService(GnssStatusStore gnssStatusStore) {
-		return new GsaService(gnssStatusStore);
+	public EpochService epochService(GgaService ggaService, GsaService gsaService, GsvService gsvService,
+			SatelliteStore satelliteStore) {
+		return new EpochService(ggaService, gsaService, gsvService, satelliteStore);
 	}
 
 	@Bean
-	public GgaService ggaService(GnssStatusStore gnssStatusStore) {
-		return new GgaService(gnssStatusStore);
+	public UbxService ubxService(GnssStatusStore gnssStatusStore, PipelineMetrics pipelineMetrics) {
+		return new UbxService(gnssStatusStore, pipelineMetrics);
 	}
 
 	@Bean
-	public UbxService ubxService(GnssStatusStore gnssStatusStore) {
-		return new UbxService(gnssStatusStore);
+	public DirectPipeline directPipeline(GgaService ggaService, GsaService gsaService, GsvService gsvService,
+			UbxService ubxService, GsvAggregator gsvAggregator, DeadLetterService deadLetterService,
+			SatelliteStore satelliteStore, PipelineMetrics pipelineMetrics, DemoSettings demoSettings) {
+		return new DirectPipeline(ggaService, gsaService, gsvService, ubxService, gsvAggregator, deadLetterService,
+				satelliteStore, pipelineMetrics, demoSettings);
 	}
 }
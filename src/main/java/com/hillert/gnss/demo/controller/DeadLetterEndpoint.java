@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.hillert.gnss.demo.integration.DeadLetterService;
+
+/**
+ * Actuator endpoint ({@code /actuator/deadletters}) exposing the number of
+ * dead-lettered sentences per reason and the most recent samples. The samples
+ * can be discarded using a {@code DELETE} request.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@Component
+@Endpoint(id = "deadletters")
+public class DeadLetterEndpoint {
+
+	@Autowired
+	private DeadLetterService deadLetterService;
+
+	@ReadOperation
+	public Map<String, Object> deadLetters() {
+		final Map<String, Object> deadLetters = new LinkedHashMap<>();
+		deadLetters.put("counts", this.deadLetterService.getCounts());
+		deadLetters.put("samples", this.deadLetterService.getSamples());
+		return deadLetters;
+	}
+
+	@DeleteOperation
+	public void clearSamples() {
+		this.deadLetterService.clearSamples();
+	}
+}
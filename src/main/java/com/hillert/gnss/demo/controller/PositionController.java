@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hillert.gnss.demo.store.PositionHistory;
+
+/**
+ * Streams the positions of the {@link PositionHistory} within a time range as
+ * a JSON array, e.g. {@code /positions?from=1600000000000&to=1600000060000&step=1000}.
+ * Times are milliseconds since the epoch, {@code from} is inclusive and {@code to}
+ * exclusive, {@code step} is the minimum time between the returned positions.
+ * The positions are written while they are read from the history, without
+ * collecting them first.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@RestController
+@RequestMapping(path = "/positions")
+public class PositionController {
+
+	@Autowired
+	private PositionHistory positionHistory;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@GetMapping
+	public ResponseEntity<StreamingResponseBody> getPositions(
+			@RequestParam(required = false, defaultValue = "0") long from,
+			@RequestParam(required = false) Long to,
+			@RequestParam(required = false, defaultValue = "0") long step) {
+
+		if (step < 0) {
+			return ResponseEntity.badRequest().build();
+		}
+
+		final long end = to != null ? to : Long.MAX_VALUE;
+		final StreamingResponseBody body = outputStream -> {
+			try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+				generator.writeStartArray();
+				this.positionHistory.forEach(from, end, step, (time, latitude, longitude, altitude,
+						fixQuality, satellitesInUse, horizontalDilution) -> {
+					try {
+						writePosition(generator, time, latitude, longitude, altitude,
+								fixQuality, satellitesInUse, horizontalDilution);
+					}
+					catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				generator.writeEndArray();
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+	}
+
+	private static void writePosition(JsonGenerator generator, long time, double latitude, double longitude,
+			float altitude, int fixQuality, int satellitesInUse, float horizontalDilution) throws IOException {
+		generator.writeStartObject();
+		generator.writeNumberField("time", time);
+		generator.writeNumberField("latitude", latitude);
+		generator.writeNumberField("longitude", longitude);
+		if (!Float.isNaN(altitude)) {
+			generator.writeNumberField("altitude", altitude);
+		}
+		if (fixQuality >= 0) {
+			generator.writeNumberField("fixQuality", fixQuality);
+		}
+		if (satellitesInUse >= 0) {
+			generator.writeNumberField("satellitesInUse", satellitesInUse);
+		}
+		if (!Float.isNaN(horizontalDilution)) {
+			generator.writeNumberField("horizontalDilution", horizontalDilution);
+		}
+		generator.writeEndObject();
+	}
+}
@@ -1,7 +1,7 @@
 package com.hillert.gnss.demo.controller;
 
+import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,8 +10,6 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.hillert.gnss.demo.model.GnssProvider;
 import com.hillert.gnss.demo.model.Satellite;
-import com.hillert.gnss.demo.model.SignalId;
-import com.hillert.gnss.demo.store.SatelliteKey;
 import com.hillert.gnss.demo.store.SatelliteStore;
 
 @RestController
@@ -22,7 +20,7 @@ public class SatelliteController {
 	private SatelliteStore satelliteStore;
 
 	@GetMapping
-	public Map<GnssProvider, Set<Satellite>> getSatellites() {
+	public Map<GnssProvider, Collection<Satellite>> getSatellites() {
 		return satelliteStore.getSatellites();
 	}
 }
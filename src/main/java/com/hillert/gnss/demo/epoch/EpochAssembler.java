@@ -0,0 +1,275 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.epoch;
+
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.config.SpringIntegrationConfig.EpochGateway;
+import com.hillert.gnss.demo.config.SpringIntegrationConfig.NmeaMessageGateway;
+import com.hillert.gnss.demo.nmea.AbstractNmeaData;
+import com.hillert.gnss.demo.nmea.GgaData;
+import com.hillert.gnss.demo.nmea.GsaData;
+import com.hillert.gnss.demo.nmea.GsvData;
+import com.hillert.gnss.demo.nmea.NmeaParser;
+import com.hillert.gnss.demo.nmea.RmcData;
+import com.hillert.gnss.demo.services.ConnectionType;
+import com.hillert.gnss.demo.services.SentenceHandler;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Assembles the sentences a receiver emits per fix epoch into a single
+ * {@link GnssEpoch}, which is sent via the {@link EpochGateway}.
+ * GGA, GSA, GSV and RMC sentences are parsed by the {@link NmeaParser} and become
+ * part of the epoch, all other sentences (e.g. {@code $PUBX}) are forwarded to
+ * the regular per-sentence flow via the {@link NmeaMessageGateway}.
+ *
+ * Epoch boundaries are detected in two ways:
+ *
+ * <ul>
+ *   <li>A GGA or RMC sentence with a different time than the current epoch
+ *       starts a new epoch. The last sentence of the completed epoch is learned
+ *       as the terminator of the receiver's burst.
+ *   <li>Once learned, the terminator completes the epoch right away, so that an
+ *       epoch does not have to wait for the first sentence of the next one.
+ *</ul>
+ *
+ * An epoch is also completed once {@link DemoSettings.Pipeline#getMaxEpochSentences()}
+ * sentences were received. Sentences repeated back to back (e.g. one {@code $GNGSA}
+ * per constellation) are never learned as the terminator, and GSV sentences only
+ * with the last sentence of their group.
+ *
+ * The following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea.epochs - Number of assembled epochs (tag boundary: terminator, time_change, size_limit)
+ *   <li>nmea.epoch.sentences - Number of sentences per epoch
+ *</ul>
+ *
+ * Instances must only be used by the dispatcher thread of a single device.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class EpochAssembler implements SentenceHandler {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(EpochAssembler.class);
+
+	private static final long NO_KEY = -1;
+
+	private static final int MAX_ADDRESS_LENGTH = 6;
+
+	private final NmeaMessageGateway nmeaMessageGateway;
+	private final EpochGateway epochGateway;
+	private final String deviceId;
+	private final int maxEpochSentences;
+	private final NmeaParser nmeaParser = new NmeaParser();
+
+	private final Counter terminatorCounter;
+	private final Counter timeChangeCounter;
+	private final Counter sizeLimitCounter;
+	private final DistributionSummary sentencesSummary;
+
+	private GnssEpoch epoch;
+	private GsvData[] gsvGroup;
+	private int gsvGroupSize;
+
+	private long terminator = NO_KEY;
+	private long lastKey = NO_KEY;
+	private boolean lastKeyRepeated;
+
+	public EpochAssembler(NmeaMessageGateway nmeaMessageGateway, EpochGateway epochGateway,
+			ConnectionType connectionType, String deviceId, DemoSettings.Pipeline settings) {
+		Assert.notNull(nmeaMessageGateway, "nmeaMessageGateway must not be null.");
+		Assert.notNull(epochGateway, "epochGateway must not be null.");
+		Assert.notNull(connectionType, "connectionType must not be null.");
+		Assert.hasText(deviceId, "deviceId must not be null or empty.");
+		Assert.notNull(settings, "settings must not be null.");
+		Assert.isTrue(settings.getMaxEpochSentences() > 0, "maxEpochSentences must be greater than 0.");
+		this.nmeaMessageGateway = nmeaMessageGateway;
+		this.epochGateway = epochGateway;
+		this.deviceId = deviceId;
+		this.maxEpochSentences = settings.getMaxEpochSentences();
+
+		final Tags tags = Tags.of("connection_type", connectionType.name(), "device", deviceId);
+		this.terminatorCounter = this.createEpochCounter(tags, "terminator");
+		this.timeChangeCounter = this.createEpochCounter(tags, "time_change");
+		this.sizeLimitCounter = this.createEpochCounter(tags, "size_limit");
+		this.sentencesSummary = DistributionSummary.builder("nmea.epoch.sentences")
+				.description("Number of NMEA sentences per epoch.")
+				.tags(tags)
+				.register(Metrics.globalRegistry);
+	}
+
+	@Override
+	public void handle(String sentence) {
+		// A new data holder per sentence, as the epoch retains it
+		final AbstractNmeaData data = this.nmeaParser.parse(sentence);
+		final int timeOfDay = getTimeOfDay(data);
+
+		if (timeOfDay >= 0 && this.epoch != null && this.epoch.getTimeOfDay() >= 0
+				&& timeOfDay != this.epoch.getTimeOfDay()) {
+			this.terminator = this.lastKeyRepeated ? NO_KEY : this.lastKey;
+			this.complete(this.timeChangeCounter);
+		}
+
+		if (this.epoch == null) {
+			this.epoch = new GnssEpoch(this.deviceId, System.currentTimeMillis());
+		}
+		this.epoch.incrementSentenceCount();
+		if (timeOfDay >= 0 && this.epoch.getTimeOfDay() < 0) {
+			this.epoch.setTimeOfDay(timeOfDay);
+		}
+
+		if (data == null) {
+			this.nmeaMessageGateway.send(sentence, this.deviceId);
+		}
+		else {
+			this.add(data);
+		}
+
+		final long key = getKey(sentence, data);
+		this.lastKeyRepeated = key != NO_KEY && key == this.lastKey;
+		this.lastKey = key;
+
+		if (key != NO_KEY && key == this.terminator) {
+			this.complete(this.terminatorCounter);
+		}
+		else if (this.epoch.getSentenceCount() >= this.maxEpochSentences) {
+			this.complete(this.sizeLimitCounter);
+		}
+	}
+
+	private void add(AbstractNmeaData data) {
+		if (data instanceof GgaData) {
+			this.epoch.setGga((GgaData) data);
+		}
+		else if (data instanceof RmcData) {
+			this.epoch.setRmc((RmcData) data);
+		}
+		else if (data instanceof GsaData) {
+			this.epoch.addGsa((GsaData) data);
+		}
+		else if (data instanceof GsvData) {
+			this.addGsv((GsvData) data);
+		}
+	}
+
+	private void addGsv(GsvData gsvData) {
+		final int sentenceCount = gsvData.getSentenceCount();
+		final int sentenceIndex = gsvData.getSentenceIndex();
+
+		if (this.gsvGroup != null && !this.continuesGsvGroup(gsvData)) {
+			this.gsvGroup = null;
+		}
+		if (this.gsvGroup == null) {
+			if (sentenceIndex != 1 || sentenceCount < 1) {
+				return;
+			}
+			this.gsvGroup = new GsvData[sentenceCount];
+			this.gsvGroupSize = 0;
+		}
+
+		this.gsvGroup[this.gsvGroupSize++] = gsvData;
+		if (this.gsvGroupSize == this.gsvGroup.length) {
+			this.epoch.addGsvGroup(this.gsvGroup);
+			this.gsvGroup = null;
+		}
+	}
+
+	private boolean continuesGsvGroup(GsvData gsvData) {
+		final GsvData first = this.gsvGroup[0];
+		return gsvData.getSentenceIndex() == this.gsvGroupSize + 1
+				&& gsvData.getSentenceCount() == this.gsvGroup.length
+				&& gsvData.getSignalId() == first.getSignalId()
+				&& Objects.equals(gsvData.getTalkerId(), first.getTalkerId());
+	}
+
+	private void complete(Counter boundaryCounter) {
+		final GnssEpoch completedEpoch = this.epoch;
+		this.epoch = null;
+		this.gsvGroup = null;
+		if (completedEpoch == null) {
+			return;
+		}
+		boundaryCounter.increment();
+		this.sentencesSummary.record(completedEpoch.getSentenceCount());
+		try {
+			this.epochGateway.send(completedEpoch, this.deviceId);
+		}
+		catch (RuntimeException e) {
+			LOGGER.warn(String.format("Unable to dispatch epoch of device '%s'.", this.deviceId), e);
+		}
+	}
+
+	private Counter createEpochCounter(Tags tags, String boundary) {
+		return Counter.builder("nmea.epochs")
+				.description("Number of assembled epochs by the kind of boundary that completed them.")
+				.tags(tags.and("boundary", boundary))
+				.register(Metrics.globalRegistry);
+	}
+
+	private static int getTimeOfDay(AbstractNmeaData data) {
+		if (data instanceof GgaData) {
+			return ((GgaData) data).getTimeOfDay();
+		}
+		if (data instanceof RmcData) {
+			return ((RmcData) data).getTimeOfDay();
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns a key identifying the kind of sentence within an epoch, consisting
+	 * of the address field (e.g. {@code GPGSV}), the message id of proprietary
+	 * u-blox sentences and the signal id of GSV sentences. Only the last sentence
+	 * of a GSV group has a key.
+	 */
+	static long getKey(String sentence, AbstractNmeaData data) {
+		if (data instanceof GsvData
+				&& ((GsvData) data).getSentenceIndex() != ((GsvData) data).getSentenceCount()) {
+			return NO_KEY;
+		}
+		long key = 0;
+		int index = 1;
+		for (; index < sentence.length() && index <= MAX_ADDRESS_LENGTH; index++) {
+			final char c = sentence.charAt(index);
+			if (c == ',') {
+				break;
+			}
+			key = key << 8 | (c & 0xFF);
+		}
+		if (sentence.startsWith("$PUBX,") && sentence.length() > 8) {
+			key = key << 8 | (sentence.charAt(6) & 0xFF);
+			key = key << 8 | (sentence.charAt(7) & 0xFF);
+		}
+		if (data instanceof GsvData) {
+			key = key << 8 | (((GsvData) data).getSignalId() & 0xFF);
+		}
+		return key;
+	}
+
+}
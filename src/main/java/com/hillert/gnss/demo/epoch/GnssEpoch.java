@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.epoch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.hillert.gnss.demo.nmea.GgaData;
+import com.hillert.gnss.demo.nmea.GsaData;
+import com.hillert.gnss.demo.nmea.GsvData;
+import com.hillert.gnss.demo.nmea.RmcData;
+
+/**
+ * The sentences a GNSS receiver emits for a single fix epoch (typically once
+ * per second), assembled by the {@link EpochAssembler}. GSV sentences are
+ * grouped into complete groups, ordered by their sentence index; incomplete
+ * groups are not included.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class GnssEpoch {
+
+	private final String deviceId;
+	private final long receivedAt;
+
+	private int timeOfDay = -1;
+	private int sentenceCount;
+
+	private GgaData gga;
+	private RmcData rmc;
+	private final List<GsaData> gsa = new ArrayList<>(4);
+	private final List<GsvData[]> gsvGroups = new ArrayList<>(8);
+
+	GnssEpoch(String deviceId, long receivedAt) {
+		this.deviceId = deviceId;
+		this.receivedAt = receivedAt;
+	}
+
+	/**
+	 * @return The id of the device the epoch was received from
+	 */
+	public String getDeviceId() {
+		return this.deviceId;
+	}
+
+	/**
+	 * @return The time the first sentence of the epoch was received (milliseconds since the epoch)
+	 */
+	public long getReceivedAt() {
+		return this.receivedAt;
+	}
+
+	/**
+	 * @return The UTC time of the fix in milliseconds since midnight or -1 if no time-tagged sentence was received
+	 */
+	public int getTimeOfDay() {
+		return this.timeOfDay;
+	}
+
+	/**
+	 * @return The number of sentences received for the epoch, including those not part of this object
+	 */
+	public int getSentenceCount() {
+		return this.sentenceCount;
+	}
+
+	/**
+	 * @return The GGA data or null if not received
+	 */
+	public GgaData getGga() {
+		return this.gga;
+	}
+
+	/**
+	 * @return The RMC data or null if not received
+	 */
+	public RmcData getRmc() {
+		return this.rmc;
+	}
+
+	/**
+	 * @return The GSA data, one per constellation, never null
+	 */
+	public List<GsaData> getGsa() {
+		return Collections.unmodifiableList(this.gsa);
+	}
+
+	/**
+	 * @return The complete GSV groups, one per constellation and signal, never null
+	 */
+	public List<GsvData[]> getGsvGroups() {
+		return Collections.unmodifiableList(this.gsvGroups);
+	}
+
+	void setTimeOfDay(int timeOfDay) {
+		this.timeOfDay = timeOfDay;
+	}
+
+	void incrementSentenceCount() {
+		this.sentenceCount++;
+	}
+
+	void setGga(GgaData gga) {
+		this.gga = gga;
+	}
+
+	void setRmc(RmcData rmc) {
+		this.rmc = rmc;
+	}
+
+	void addGsa(GsaData gsaData) {
+		this.gsa.add(gsaData);
+	}
+
+	void addGsvGroup(GsvData[] gsvGroup) {
+		this.gsvGroups.add(gsvGroup);
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.time.Instant;
+
+/**
+ * A sentence that could not be processed, sampled by the {@link DeadLetterService}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class DeadLetter {
+
+	/**
+	 * The reasons for dead-lettering a sentence.
+	 */
+	public enum Reason {
+
+		/**
+		 * The sentence has no valid address field, e.g. {@code $GPGGA,}.
+		 */
+		MALFORMED,
+
+		/**
+		 * The talker id (e.g. {@code GQ} or {@code GI}) is not supported by marineapi.
+		 */
+		UNSUPPORTED_TALKER,
+
+		/**
+		 * There is no parser for the sentence type or the type is not a known
+		 * {@link net.sf.marineapi.nmea.sentence.SentenceId}.
+		 */
+		UNSUPPORTED_SENTENCE,
+
+		/**
+		 * Parsing the sentence failed.
+		 */
+		PARSE_FAILURE
+	}
+
+	private final Instant timestamp;
+	private final String deviceId;
+	private final Reason reason;
+	private final String sentence;
+	private final String detail;
+
+	public DeadLetter(Instant timestamp, String deviceId, Reason reason, String sentence, String detail) {
+		super();
+		this.timestamp = timestamp;
+		this.deviceId = deviceId;
+		this.reason = reason;
+		this.sentence = sentence;
+		this.detail = detail;
+	}
+
+	public Instant getTimestamp() {
+		return this.timestamp;
+	}
+
+	public String getDeviceId() {
+		return this.deviceId;
+	}
+
+	public Reason getReason() {
+		return this.reason;
+	}
+
+	public String getSentence() {
+		return this.sentence;
+	}
+
+	public String getDetail() {
+		return this.detail;
+	}
+
+}
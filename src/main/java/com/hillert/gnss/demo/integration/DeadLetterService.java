@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Consumes the sentences sent to the dead-letter channel. Each sentence is
+ * counted per {@link DeadLetter.Reason} and the most recent ones are kept in a
+ * bounded sample buffer, so that they can be inspected without logging every
+ * single sentence.
+ *
+ * The following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea.dead.letters - Number of dead-lettered sentences (tag reason)
+ *</ul>
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class DeadLetterService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DeadLetterService.class);
+
+	/**
+	 * The name of the header holding the {@link DeadLetter.Reason} of a dead-lettered sentence.
+	 */
+	public static final String REASON_HEADER = "deadLetterReason";
+
+	/**
+	 * The name of the header holding an optional description of the problem.
+	 */
+	public static final String DETAIL_HEADER = "deadLetterDetail";
+
+	private final Map<DeadLetter.Reason, LongAdder> counters = new EnumMap<>(DeadLetter.Reason.class);
+
+	private final DeadLetter[] samples;
+	private int nextSample;
+	private int sampleCount;
+
+	public DeadLetterService(int sampleCapacity) {
+		Assert.isTrue(sampleCapacity > 0, "sampleCapacity must be greater than 0.");
+		this.samples = new DeadLetter[sampleCapacity];
+		for (DeadLetter.Reason reason : DeadLetter.Reason.values()) {
+			final LongAdder counter = new LongAdder();
+			this.counters.put(reason, counter);
+			FunctionCounter.builder("nmea.dead.letters", counter, LongAdder::sum)
+					.description("Number of NMEA sentences that could not be processed.")
+					.tags("reason", reason.name().toLowerCase())
+					.register(Metrics.globalRegistry);
+		}
+	}
+
+	/**
+	 * Counts and samples a dead-lettered sentence.
+	 *
+	 * @param message The message holding the raw NMEA sentence
+	 */
+	public void process(Message<?> message) {
+		final Object reasonHeader = message.getHeaders().get(REASON_HEADER);
+		final DeadLetter.Reason reason = reasonHeader instanceof DeadLetter.Reason
+				? (DeadLetter.Reason) reasonHeader
+				: DeadLetter.Reason.PARSE_FAILURE;
+		this.deadLetter(NmeaMessage.getDeviceId(message), reason,
+				String.valueOf(message.getPayload()), message.getHeaders().get(DETAIL_HEADER, String.class));
+	}
+
+	/**
+	 * Counts and samples a dead-lettered sentence that was not sent as a message.
+	 *
+	 * @param deviceId The id of the device the sentence was received from
+	 * @param reason Why the sentence could not be processed
+	 * @param sentence The raw NMEA sentence
+	 * @param detail An optional description of the problem
+	 */
+	public void deadLetter(String deviceId, DeadLetter.Reason reason, String sentence, String detail) {
+		this.counters.get(reason).increment();
+
+		final DeadLetter deadLetter = new DeadLetter(Instant.now(), deviceId, reason, sentence, detail);
+		LOGGER.debug("Dead-lettered NMEA sentence '{}' ({}).", deadLetter.getSentence(), reason);
+
+		synchronized (this.samples) {
+			this.samples[this.nextSample] = deadLetter;
+			this.nextSample = (this.nextSample + 1) % this.samples.length;
+			this.sampleCount = Math.min(this.sampleCount + 1, this.samples.length);
+		}
+	}
+
+	/**
+	 * Returns the most recent dead-lettered sentences, oldest first.
+	 * @return The sampled sentences, never null
+	 */
+	public List<DeadLetter> getSamples() {
+		synchronized (this.samples) {
+			final List<DeadLetter> result = new ArrayList<>(this.sampleCount);
+			final int first = (this.nextSample - this.sampleCount + this.samples.length) % this.samples.length;
+			for (int i = 0; i < this.sampleCount; i++) {
+				result.add(this.samples[(first + i) % this.samples.length]);
+			}
+			return Collections.unmodifiableList(result);
+		}
+	}
+
+	/**
+	 * Returns the number of dead-lettered sentences per reason.
+	 * @return The counts, never null
+	 */
+	public Map<DeadLetter.Reason, Long> getCounts() {
+		final Map<DeadLetter.Reason, Long> counts = new EnumMap<>(DeadLetter.Reason.class);
+		this.counters.forEach((reason, counter) -> counts.put(reason, counter.sum()));
+		return counts;
+	}
+
+	/**
+	 * Discards the sampled sentences. The counters are not reset.
+	 */
+	public void clearSamples() {
+		synchronized (this.samples) {
+			Arrays.fill(this.samples, null);
+			this.nextSample = 0;
+			this.sampleCount = 0;
+		}
+	}
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.nmea.AbstractNmeaData;
+import com.hillert.gnss.demo.nmea.GgaData;
+import com.hillert.gnss.demo.nmea.GsaData;
+import com.hillert.gnss.demo.nmea.NmeaParser;
+import com.hillert.gnss.demo.services.SentenceHandler;
+import com.hillert.gnss.demo.store.SatelliteStore;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import net.sf.marineapi.nmea.parser.SentenceFactory;
+import net.sf.marineapi.nmea.sentence.GGASentence;
+import net.sf.marineapi.nmea.sentence.GSASentence;
+import net.sf.marineapi.nmea.sentence.Sentence;
+import net.sf.marineapi.nmea.sentence.SentenceId;
+import net.sf.marineapi.nmea.sentence.UBXSentence;
+
+/**
+ * Processes NMEA sentences without Spring Integration, for
+ * {@link DemoSettings.Pipeline.Mode#DIRECT}. Each sentence is checked, parsed
+ * and handed over to the {@link GgaService}, {@link GsaService}, {@link GsvService}
+ * (via the {@link GsvAggregator}) or {@link UbxService} on the calling (dispatcher)
+ * thread, selected by a switch on its sentence type. No messages or header maps
+ * are created on the way, so this is the cheapest way to process sentences on
+ * devices with little CPU, at the expense of the control bus and the integration
+ * graph covering the processing. Using the native parser, GGA and GSA sentences
+ * are parsed into per-thread data holders, as they are processed right away.
+ *
+ * Same as with the Spring Integration flow, unsupported sentences are counted
+ * by the {@link DeadLetterService} and the stages are recorded by the
+ * {@link PipelineMetrics}, except for {@link PipelineMetrics.Stage#ROUTE}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class DirectPipeline {
+
+	private final SentenceFactory sentenceFactory = SentenceFactory.getInstance();
+
+	private final SentencePrecheck sentencePrecheck = new SentencePrecheck(this.sentenceFactory);
+
+	private final ThreadLocal<NmeaParser> nmeaParser = ThreadLocal.withInitial(NmeaParser::new);
+	private final ThreadLocal<GgaData> ggaData = ThreadLocal.withInitial(GgaData::new);
+	private final ThreadLocal<GsaData> gsaData = ThreadLocal.withInitial(GsaData::new);
+
+	private final GgaService ggaService;
+	private final GsaService gsaService;
+	private final GsvService gsvService;
+	private final UbxService ubxService;
+	private final GsvAggregator gsvAggregator;
+	private final DeadLetterService deadLetterService;
+	private final SatelliteStore satelliteStore;
+	private final PipelineMetrics pipelineMetrics;
+
+	private final boolean nativeParsing;
+
+	public DirectPipeline(GgaService ggaService, GsaService gsaService, GsvService gsvService,
+			UbxService ubxService, GsvAggregator gsvAggregator, DeadLetterService deadLetterService,
+			SatelliteStore satelliteStore, PipelineMetrics pipelineMetrics, DemoSettings demoSettings) {
+		super();
+		Assert.notNull(ggaService, "ggaService must not be null.");
+		Assert.notNull(gsaService, "gsaService must not be null.");
+		Assert.notNull(gsvService, "gsvService must not be null.");
+		Assert.notNull(ubxService, "ubxService must not be null.");
+		Assert.notNull(gsvAggregator, "gsvAggregator must not be null.");
+		Assert.notNull(deadLetterService, "deadLetterService must not be null.");
+		Assert.notNull(satelliteStore, "satelliteStore must not be null.");
+		Assert.notNull(pipelineMetrics, "pipelineMetrics must not be null.");
+		this.ggaService = ggaService;
+		this.gsaService = gsaService;
+		this.gsvService = gsvService;
+		this.ubxService = ubxService;
+		this.gsvAggregator = gsvAggregator;
+		this.deadLetterService = deadLetterService;
+		this.satelliteStore = satelliteStore;
+		this.pipelineMetrics = pipelineMetrics;
+		this.nativeParsing = DemoSettings.Parsing.Engine.NATIVE.equals(demoSettings.getParsing().getEngine());
+	}
+
+	/**
+	 * Creates a {@link SentenceHandler} processing the sentences of a device.
+	 *
+	 * @param deviceId The id of the device
+	 * @return The sentence handler
+	 */
+	public SentenceHandler createSentenceHandler(String deviceId) {
+		return sentence -> this.process(sentence, deviceId);
+	}
+
+	/**
+	 * Processes a single NMEA sentence.
+	 *
+	 * @param sentence The NMEA sentence
+	 * @param deviceId The id of the device the sentence was received from
+	 */
+	public void process(String sentence, String deviceId) {
+		final long start = System.nanoTime();
+
+		final DeadLetter.Reason reason = this.sentencePrecheck.check(sentence);
+		if (reason != null) {
+			this.deadLetterService.deadLetter(deviceId, reason, sentence, null);
+			return;
+		}
+
+		final Object parsedSentence;
+		final SentenceId sentenceId;
+		try {
+			final AbstractNmeaData nmeaData = this.nativeParsing ? this.parse(sentence) : null;
+			if (nmeaData != null) {
+				parsedSentence = nmeaData;
+				sentenceId = nmeaData.getSentenceId();
+			}
+			else {
+				final Sentence marineApiSentence = this.sentenceFactory.createParser(sentence);
+				parsedSentence = marineApiSentence;
+				sentenceId = SentenceId.valueOf(marineApiSentence.getSentenceId());
+			}
+		}
+		catch (RuntimeException e) {
+			this.pipelineMetrics.recordParseFailure(sentence);
+			this.deadLetterService.deadLetter(deviceId, DeadLetter.Reason.PARSE_FAILURE, sentence, e.getMessage());
+			return;
+		}
+		this.pipelineMetrics.record(sentenceId, PipelineMetrics.Stage.PARSE, start);
+
+		if (!SentenceId.GSV.equals(sentenceId)) {
+			this.satelliteStore.cleanupIfNecessary();
+		}
+
+		final long serviceStart = System.nanoTime();
+		switch (sentenceId) {
+			case GGA:
+				if (parsedSentence instanceof GgaData) {
+					this.ggaService.process((GgaData) parsedSentence);
+				}
+				else {
+					this.ggaService.process((GGASentence) parsedSentence);
+				}
+				break;
+			case GSA:
+				if (parsedSentence instanceof GsaData) {
+					this.gsaService.process((GsaData) parsedSentence);
+				}
+				else {
+					this.gsaService.process((GSASentence) parsedSentence);
+				}
+				break;
+			case GSV:
+				final Object[] gsvGroup = this.gsvAggregator.add(deviceId, parsedSentence);
+				if (gsvGroup == null) {
+					return;
+				}
+				this.gsvService.process(gsvGroup);
+				break;
+			default:
+				if (sentenceId != PipelineMetrics.UBX_SENTENCE_ID) {
+					return;
+				}
+				this.ubxService.process((UBXSentence) parsedSentence);
+		}
+		this.pipelineMetrics.record(sentenceId, PipelineMetrics.Stage.SERVICE, serviceStart);
+	}
+
+	/**
+	 * Parses GGA and GSA sentences into the data holders of the current thread.
+	 * Other supported sentences get a new data holder, as the {@link GsvAggregator}
+	 * retains GSV sentences until their group is complete.
+	 */
+	private AbstractNmeaData parse(String sentence) {
+		final NmeaParser nmeaParser = this.nmeaParser.get();
+		final SentenceId sentenceId = NmeaParser.getSupportedSentenceId(sentence);
+		if (SentenceId.GGA.equals(sentenceId)) {
+			final GgaData ggaData = this.ggaData.get();
+			return nmeaParser.parseGga(sentence, ggaData) ? ggaData : null;
+		}
+		if (SentenceId.GSA.equals(sentenceId)) {
+			final GsaData gsaData = this.gsaData.get();
+			return nmeaParser.parseGsa(sentence, gsaData) ? gsaData : null;
+		}
+		return sentenceId != null ? nmeaParser.parse(sentence) : null;
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.List;
+
+import com.hillert.gnss.demo.epoch.GnssEpoch;
+import com.hillert.gnss.demo.nmea.GsaData;
+import com.hillert.gnss.demo.nmea.GsvData;
+import com.hillert.gnss.demo.store.SatelliteStore;
+
+/**
+ * Processes {@link GnssEpoch}s by handing their data over to the services of
+ * the individual sentence types. As all GSV groups of an epoch are processed
+ * together, satellites of constellations no longer in view are removed right
+ * after the epoch.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class EpochService {
+
+	private final GgaService ggaService;
+	private final GsaService gsaService;
+	private final GsvService gsvService;
+	private final SatelliteStore satelliteStore;
+
+	public EpochService(GgaService ggaService, GsaService gsaService, GsvService gsvService,
+			SatelliteStore satelliteStore) {
+		super();
+		this.ggaService = ggaService;
+		this.gsaService = gsaService;
+		this.gsvService = gsvService;
+		this.satelliteStore = satelliteStore;
+	}
+
+	/**
+	 * Handles a complete epoch.
+	 *
+	 * @param epoch The {@link GnssEpoch} to process
+	 */
+	public void process(GnssEpoch epoch) {
+		if (epoch.getGga() != null) {
+			this.ggaService.process(epoch.getGga());
+		}
+		for (GsaData gsaData : epoch.getGsa()) {
+			this.gsaService.process(gsaData);
+		}
+
+		final List<GsvData[]> gsvGroups = epoch.getGsvGroups();
+		for (GsvData[] gsvGroup : gsvGroups) {
+			this.gsvService.process(gsvGroup);
+		}
+		if (!gsvGroups.isEmpty()) {
+			this.satelliteStore.cleanupIfNecessary();
+		}
+	}
+
+}
@@ -18,6 +18,7 @@ package com.hillert.gnss.demo.integration;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
 
 import org.geotools.geometry.jts.JTS;
 import org.geotools.geometry.jts.JTSFactoryFinder;
@@ -34,18 +35,23 @@ import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.Message;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.hillert.gnss.demo.nmea.GgaData;
 import com.hillert.gnss.demo.store.GnssStatusStore;
+import com.hillert.gnss.demo.store.PositionHistory;
 
 import net.sf.marineapi.nmea.sentence.GGASentence;
+import net.sf.marineapi.nmea.sentence.SentenceId;
 import net.sf.marineapi.nmea.util.GpsFixQuality;
 import net.sf.marineapi.nmea.util.Position;
+import net.sf.marineapi.nmea.util.Time;
 
 /**
- * Processes {@link GGASentence}s.
+ * Processes {@link GGASentence}s. Positions are added to the {@link PositionHistory}
+ * under the UTC time of their fix, so that replayed recordings keep their
+ * recorded times regardless of the replay speed.
  *
  * @author Gunnar Hillert
  *
@@ -54,11 +60,21 @@ public class GgaService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(GgaService.class);
 
+	private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
 	private final GnssStatusStore gnssStatusStore;
+	private final PipelineMetrics pipelineMetrics;
+	private final PositionHistory positionHistory;
+
+	private long lastFixTime = -1;
+	private long lastReceiveTime;
 
-	public GgaService(GnssStatusStore gnssStatusStore) {
+	public GgaService(GnssStatusStore gnssStatusStore, PipelineMetrics pipelineMetrics,
+			PositionHistory positionHistory) {
 		super();
 		this.gnssStatusStore = gnssStatusStore;
+		this.pipelineMetrics = pipelineMetrics;
+		this.positionHistory = positionHistory;
 	}
 
 	/**
@@ -68,44 +84,131 @@ public class GgaService {
 	 * would be technically more appropriate compared to the GGA message, but the
 	 * GGA message also provides altitude information.
 	 *
-	 * @param message The {@link GGASentence} to process, only GGA, GSA, GSV - other messages will be ignored
+	 * @param sentence The {@link GGASentence} to process
 	 */
-	public void process(Message<GGASentence> message) {
-		final GGASentence sentence = message.getPayload();
-
+	public void process(GGASentence sentence) {
 		final Position position = SentenceUtils.handleNmeaData(sentence::getPosition);
 
 		final Double latitude;
 		final Double longitude;
+		final Double accuracy;
 		if (position != null) {
 			latitude = position.getLatitude();
 			longitude = position.getLongitude();
 
-			addToCache(latitude, longitude);
+			accuracy = addToCache(latitude, longitude);
 		}
 		else {
 			latitude = null;
 			longitude = null;
+			accuracy = null;
 		}
 
 		final Double altitude = SentenceUtils.handleNmeaData(sentence::getAltitude);
 		final GpsFixQuality fixQuality = SentenceUtils.handleNmeaData(sentence::getFixQuality);
-		this.gnssStatusStore.getGnssStatus().setLatitude(latitude);
-		this.gnssStatusStore.getGnssStatus().setLongitude(longitude);
-		this.gnssStatusStore.getGnssStatus().setAltitude(altitude);
-		this.gnssStatusStore.getGnssStatus().setFixQuality(fixQuality);
+		if (position != null) {
+			final Integer satellitesInUse = SentenceUtils.handleNmeaData(sentence::getSatelliteCount);
+			final Double horizontalDilution = SentenceUtils.handleNmeaData(sentence::getHorizontalDOP);
+			final Time time = SentenceUtils.handleNmeaData(sentence::getTime);
+			this.positionHistory.add(this.getFixTime(time != null ? toTimeOfDay(time) : -1), latitude, longitude,
+					altitude != null ? altitude : Double.NaN,
+					fixQuality != null ? fixQuality.toInt() : -1,
+					satellitesInUse != null ? satellitesInUse : -1,
+					horizontalDilution != null ? horizontalDilution : Double.NaN);
+		}
+		this.updateGnssStatus(latitude, longitude, altitude, fixQuality, accuracy);
+	}
+
+	/**
+	 * Handles GGA data parsed by the {@link com.hillert.gnss.demo.nmea.NmeaParser}.
+	 *
+	 * @param ggaData The {@link GgaData} to process
+	 */
+	public void process(GgaData ggaData) {
+		final Double latitude;
+		final Double longitude;
+		final Double accuracy;
+		if (ggaData.isPositionAvailable()) {
+			latitude = ggaData.getLatitude();
+			longitude = ggaData.getLongitude();
+
+			accuracy = addToCache(latitude, longitude);
+		}
+		else {
+			latitude = null;
+			longitude = null;
+			accuracy = null;
+		}
+
+		if (ggaData.isPositionAvailable()) {
+			this.positionHistory.add(this.getFixTime(ggaData.getTimeOfDay()), ggaData.getLatitude(), ggaData.getLongitude(),
+					ggaData.getAltitude(), ggaData.getFixQuality(), ggaData.getSatellitesInUse(),
+					ggaData.getHorizontalDilution());
+		}
+
+		final Double altitude = ggaData.isAltitudeAvailable() ? ggaData.getAltitude() : null;
+		this.updateGnssStatus(latitude, longitude, altitude, SentenceUtils.toGpsFixQuality(ggaData.getFixQuality()),
+				accuracy);
+	}
+
+	/**
+	 * Publishes the position and the accuracy calculated from it as a single snapshot.
+	 */
+	private void updateGnssStatus(Double latitude, Double longitude, Double altitude, GpsFixQuality fixQuality,
+			Double accuracy) {
+		final long start = System.nanoTime();
+		this.gnssStatusStore.update(gnssStatus ->
+				gnssStatus.withPosition(latitude, longitude, altitude, fixQuality, accuracy));
+		this.pipelineMetrics.record(SentenceId.GGA, PipelineMetrics.Stage.STORE, start);
+	}
+
+	/**
+	 * Returns the time of a fix: its UTC time of day on the date of the previous
+	 * fix, or of the next or previous day if the time of day is more than half a
+	 * day apart, e.g. after midnight. The receive time anchors the first fix and
+	 * fixes received more than half a day after the previous one, and is used as
+	 * is if the time of day is not available.
+	 *
+	 * @param timeOfDay The milliseconds since midnight (UTC) or -1 if not available
+	 * @return The time of the fix in milliseconds since the epoch
+	 */
+	synchronized long getFixTime(int timeOfDay) {
+		final long now = System.currentTimeMillis();
+		if (timeOfDay < 0) {
+			return now;
+		}
+		final long anchor = this.lastFixTime >= 0 && now - this.lastReceiveTime < MILLIS_PER_DAY / 2
+				? this.lastFixTime : now;
+		long fixTime = anchor - Math.floorMod(anchor, MILLIS_PER_DAY) + timeOfDay;
+		if (fixTime < anchor - MILLIS_PER_DAY / 2) {
+			fixTime += MILLIS_PER_DAY;
+		}
+		else if (fixTime >= anchor + MILLIS_PER_DAY / 2) {
+			fixTime -= MILLIS_PER_DAY;
+		}
+		this.lastFixTime = fixTime;
+		this.lastReceiveTime = now;
+		return fixTime;
+	}
+
+	private static int toTimeOfDay(Time time) {
+		return (int) Math.round(((time.getHour() * 60 + time.getMinutes()) * 60 + time.getSeconds()) * 1000);
 	}
 
 	final Cache<String, Coordinate> cache = CacheBuilder.newBuilder().maximumSize(100).build();
 
-	private void addToCache(double latitude, double longitude) {
+	/**
+	 * @return The horizontal accuracy calculated from the cached positions, null
+	 * if there are not enough positions yet
+	 */
+	private Double addToCache(double latitude, double longitude) {
 
 		cache.put(String.valueOf(latitude) + "_" + String.valueOf(longitude), new Coordinate(longitude,latitude));
 
 		if (cache.size() > 20) {
-			final BigDecimal accuracy = calculateMinimumBoundingCircle(cache);
-			this.gnssStatusStore.getGnssStatus().setCalculatedHorizontalAccuracyInMeters(accuracy.doubleValue());
+			return calculateMinimumBoundingCircle(cache).doubleValue();
 		}
+		return null;
 	}
 
 	private BigDecimal calculateMinimumBoundingCircle(Cache<String, Coordinate> cache) {
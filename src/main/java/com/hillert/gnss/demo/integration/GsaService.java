@@ -18,11 +18,13 @@ package com.hillert.gnss.demo.integration;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.Message;
 
+import com.hillert.gnss.demo.nmea.GsaData;
 import com.hillert.gnss.demo.store.GnssStatusStore;
 
 import net.sf.marineapi.nmea.sentence.GSASentence;
+import net.sf.marineapi.nmea.sentence.SentenceId;
+import net.sf.marineapi.nmea.util.GpsFixStatus;
 
 /**
  * Processes {@link GSASentence}s.
@@ -35,10 +37,12 @@ public class GsaService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(GsaService.class);
 
 	private final GnssStatusStore gnssStatusStore;
+	private final PipelineMetrics pipelineMetrics;
 
-	public GsaService(GnssStatusStore gnssStatusStore) {
+	public GsaService(GnssStatusStore gnssStatusStore, PipelineMetrics pipelineMetrics) {
 		super();
 		this.gnssStatusStore = gnssStatusStore;
+		this.pipelineMetrics = pipelineMetrics;
 	}
 
 	/**
@@ -56,8 +60,22 @@ public class GsaService {
 	 *
 	 * @param message The NMEA to process, only GGA, GSA, GSV - other messages will be ignored
 	 */
-	public void process(Message<GSASentence> message) {
-		final GSASentence sentence = message.getPayload();
-		this.gnssStatusStore.getGnssStatus().setGpsFixStatus(SentenceUtils.handleNmeaData(sentence::getFixStatus));
+	public void process(GSASentence sentence) {
+		this.updateGnssStatus(SentenceUtils.handleNmeaData(sentence::getFixStatus));
+	}
+
+	/**
+	 * Handles GSA data parsed by the {@link com.hillert.gnss.demo.nmea.NmeaParser}.
+	 *
+	 * @param gsaData The {@link GsaData} to process
+	 */
+	public void process(GsaData gsaData) {
+		this.updateGnssStatus(SentenceUtils.toGpsFixStatus(gsaData.getFixType()));
+	}
+
+	private void updateGnssStatus(GpsFixStatus gpsFixStatus) {
+		final long start = System.nanoTime();
+		this.gnssStatusStore.update(gnssStatus -> gnssStatus.withGpsFixStatus(gpsFixStatus));
+		this.pipelineMetrics.record(SentenceId.GSA, PipelineMetrics.Stage.STORE, start);
 	}
 }
@@ -0,0 +1,453 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.nmea.GsvData;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import net.sf.marineapi.nmea.sentence.GSVSentence;
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Aggregates the GSV sentences of a device into groups and releases each
+ * complete group as an array to the {@link GsvService}. Unlike correlating
+ * by talker id and sentence count, groups are keyed by device, talker id and
+ * signal id (NMEA 4.10 and later), so that e.g. the GPS L1 C/A and L2 CL
+ * groups - which have the same talker id and often the same number of
+ * sentences - are not mixed up. A sentence with a different sentence count
+ * or a sentence index that was already received starts a new group and
+ * supersedes the incomplete one.
+ *
+ * Each group keeps a preallocated slot array that is reused for subsequent
+ * groups, and the release check is a comparison of a bit mask, so no
+ * expression needs to be evaluated per sentence.
+ *
+ * Incomplete groups expire if no sentence was added for the configured group
+ * timeout (e.g. because a sentence was lost), and the least recently updated
+ * group expires if the maximum number of groups is reached. The sentences of
+ * expired groups are either discarded or sent to the partial group channel with
+ * the {@link #PARTIAL_HEADER} set. Groups without sentences are removed after
+ * the group timeout as well, so that devices and signals no longer received
+ * do not retain memory. {@link #expireGroups()} is expected to be invoked
+ * periodically, in addition groups are expired while aggregating. Partial
+ * groups are collected while the groups are locked and only sent once the lock
+ * is released, so that a slow or blocking partial group channel does not hold
+ * up the aggregation.
+ *
+ * The following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea.gsv.groups.open - Number of incomplete groups
+ *   <li>nmea.gsv.groups.expired - Number of expired incomplete groups (tag reason)
+ *   <li>nmea.gsv.groups.partial - Number of incomplete groups released as partial groups
+ *</ul>
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class GsvAggregator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(GsvAggregator.class);
+
+	/**
+	 * The header containing the signal id of a released group, -1 if not available.
+	 */
+	public static final String SIGNAL_ID_HEADER = "signalId";
+
+	/**
+	 * The header set to true for the released sentences of an incomplete group.
+	 */
+	public static final String PARTIAL_HEADER = "partial";
+
+	/**
+	 * The maximum number of sentences per group.
+	 */
+	public static final int MAX_SENTENCES = Long.SIZE;
+
+	private static final int INITIAL_GROUPS = 16;
+
+	/**
+	 * Why an incomplete group expired.
+	 */
+	public enum ExpiryReason {
+
+		/**
+		 * No sentence was added within the group timeout.
+		 */
+		TIMEOUT,
+
+		/**
+		 * The maximum number of groups was reached.
+		 */
+		OVERFLOW,
+
+		/**
+		 * A sentence of a new group with the same key was received.
+		 */
+		SUPERSEDED
+	}
+
+	private final PipelineMetrics pipelineMetrics;
+	private final long groupTimeoutNanos;
+	private final int maxGroups;
+	private final boolean releasePartialGroups;
+	private final MessageChannel partialGroupChannel;
+
+	private final Map<ExpiryReason, LongAdder> expiredGroups = new EnumMap<>(ExpiryReason.class);
+	private final LongAdder partialGroups = new LongAdder();
+	private final Queue<Message<Object[]>> pendingPartialGroups = new ConcurrentLinkedQueue<>();
+
+	private Group[] groups;
+	private int groupCount;
+	private long lastExpiryNanos = System.nanoTime();
+
+	/**
+	 * @param pipelineMetrics The pipeline metrics
+	 * @param settings The aggregation settings
+	 * @param partialGroupChannel The channel to send partial groups to, only required
+	 * if partial groups are released
+	 */
+	public GsvAggregator(PipelineMetrics pipelineMetrics, DemoSettings.Aggregation settings,
+			MessageChannel partialGroupChannel) {
+		super();
+		Assert.notNull(pipelineMetrics, "pipelineMetrics must not be null.");
+		Assert.notNull(settings, "settings must not be null.");
+		Assert.isTrue(settings.getMaxGroups() > 0, "maxGroups must be greater than 0.");
+		Assert.isTrue(!settings.getGroupTimeout().isNegative() && !settings.getGroupTimeout().isZero(),
+				"groupTimeout must be greater than 0.");
+		this.releasePartialGroups = DemoSettings.Aggregation.PartialGroups.RELEASE.equals(settings.getPartialGroups());
+		Assert.isTrue(!this.releasePartialGroups || partialGroupChannel != null,
+				"partialGroupChannel must not be null if partial groups are released.");
+
+		this.pipelineMetrics = pipelineMetrics;
+		this.groupTimeoutNanos = settings.getGroupTimeout().toNanos();
+		this.maxGroups = settings.getMaxGroups();
+		this.partialGroupChannel = partialGroupChannel;
+		this.groups = new Group[Math.min(INITIAL_GROUPS, this.maxGroups)];
+
+		Gauge.builder("nmea.gsv.groups.open", this, GsvAggregator::getOpenGroups)
+				.description("Number of incomplete GSV groups.")
+				.register(Metrics.globalRegistry);
+		for (ExpiryReason reason : ExpiryReason.values()) {
+			final LongAdder counter = new LongAdder();
+			this.expiredGroups.put(reason, counter);
+			FunctionCounter.builder("nmea.gsv.groups.expired", counter, LongAdder::sum)
+					.description("Number of incomplete GSV groups that expired.")
+					.tags("reason", reason.name().toLowerCase())
+					.register(Metrics.globalRegistry);
+		}
+		FunctionCounter.builder("nmea.gsv.groups.partial", this.partialGroups, LongAdder::sum)
+				.description("Number of incomplete GSV groups released as partial groups.")
+				.register(Metrics.globalRegistry);
+	}
+
+	/**
+	 * Adds a GSV sentence to its group.
+	 *
+	 * @param message The message containing either a {@link GSVSentence} or {@link GsvData}
+	 * @return The message containing the sentences of the group as an array, once
+	 * the group is complete, null otherwise. If the provided message is an
+	 * {@link NmeaMessage}, so is the returned message.
+	 */
+	public Message<?> aggregate(Message<?> message) {
+		final Object[] sentences = this.add(NmeaMessage.getDeviceId(message), message.getPayload(), message);
+		this.sendPartialGroups();
+		if (sentences == null) {
+			return null;
+		}
+		final int signalId = getSignalId(sentences[0]);
+		if (message instanceof NmeaMessage) {
+			return ((NmeaMessage) message).withPayload(sentences, signalId);
+		}
+		return MessageBuilder.withPayload(sentences)
+				.copyHeaders(message.getHeaders())
+				.setHeader(SIGNAL_ID_HEADER, signalId)
+				.build();
+	}
+
+	/**
+	 * Adds a GSV sentence to its group, without the need to wrap it into a message.
+	 *
+	 * @param deviceId The id of the device the sentence was received from
+	 * @param sentence Either a {@link GSVSentence} or {@link GsvData}
+	 * @return The sentences of the group, once the group is complete, null otherwise
+	 */
+	public Object[] add(String deviceId, Object sentence) {
+		final Object[] sentences = this.add(deviceId, sentence, null);
+		this.sendPartialGroups();
+		return sentences;
+	}
+
+	private synchronized Object[] add(String deviceId, Object sentence, Message<?> message) {
+		final String talkerId;
+		final int signalId;
+		final int sentenceCount;
+		final int sentenceIndex;
+
+		if (sentence instanceof GsvData) {
+			final GsvData gsvData = (GsvData) sentence;
+			talkerId = gsvData.getTalkerId();
+			signalId = gsvData.getSignalId();
+			sentenceCount = gsvData.getSentenceCount();
+			sentenceIndex = gsvData.getSentenceIndex();
+		}
+		else if (sentence instanceof GSVSentence) {
+			final GSVSentence gsvSentence = (GSVSentence) sentence;
+			talkerId = gsvSentence.getTalkerId().name();
+			signalId = SentenceUtils.getSignalId(gsvSentence);
+			sentenceCount = gsvSentence.getSentenceCount();
+			sentenceIndex = gsvSentence.getSentenceIndex();
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported payload " + sentence.getClass().getName());
+		}
+
+		if (sentenceCount < 1 || sentenceCount > MAX_SENTENCES || sentenceIndex < 1 || sentenceIndex > sentenceCount) {
+			LOGGER.warn("Ignoring GSV sentence {} of {} ({}, signal {}).", sentenceIndex, sentenceCount, talkerId, signalId);
+			return null;
+		}
+
+		final long now = System.nanoTime();
+		if (now - this.lastExpiryNanos >= this.groupTimeoutNanos) {
+			this.expireGroups(now);
+		}
+
+		final Group group = this.getGroup(deviceId, talkerId, signalId, now);
+		final long sentenceBit = 1L << (sentenceIndex - 1);
+
+		if (group.sentenceCount != sentenceCount || (group.receivedMask & sentenceBit) != 0) {
+			if (group.receivedMask != 0) {
+				this.expire(group, ExpiryReason.SUPERSEDED);
+			}
+			group.start(sentenceCount);
+		}
+		if (group.receivedMask == 0) {
+			group.startNanos = now;
+		}
+		group.sentences[sentenceIndex - 1] = sentence;
+		group.receivedMask |= sentenceBit;
+		group.lastUpdateNanos = now;
+		group.lastMessage = message;
+
+		if (group.receivedMask != group.completeMask) {
+			return null;
+		}
+
+		final Object[] sentences = Arrays.copyOf(group.sentences, sentenceCount);
+		group.reset();
+		this.pipelineMetrics.record(SentenceId.GSV, PipelineMetrics.Stage.AGGREGATE, group.startNanos);
+		return sentences;
+	}
+
+	/**
+	 * Expires the incomplete groups that were not updated within the group
+	 * timeout and removes empty groups that were not used within the group timeout.
+	 *
+	 * @return The number of expired incomplete groups
+	 */
+	public int expireGroups() {
+		final int expired;
+		synchronized (this) {
+			expired = this.expireGroups(System.nanoTime());
+		}
+		this.sendPartialGroups();
+		return expired;
+	}
+
+	private int expireGroups(long now) {
+		this.lastExpiryNanos = now;
+		int expired = 0;
+		for (int i = this.groupCount - 1; i >= 0; i--) {
+			final Group group = this.groups[i];
+			if (now - group.lastUpdateNanos < this.groupTimeoutNanos) {
+				continue;
+			}
+			if (group.receivedMask != 0) {
+				this.expire(group, ExpiryReason.TIMEOUT);
+				expired++;
+			}
+			this.removeGroup(i);
+		}
+		return expired;
+	}
+
+	/**
+	 * @return The number of groups with at least one, but not all sentences
+	 */
+	public synchronized int getOpenGroups() {
+		int openGroups = 0;
+		for (int i = 0; i < this.groupCount; i++) {
+			if (this.groups[i].receivedMask != 0) {
+				openGroups++;
+			}
+		}
+		return openGroups;
+	}
+
+	/**
+	 * @param reason The reason the groups expired
+	 * @return The number of incomplete groups that expired for the given reason
+	 */
+	public long getExpiredGroups(ExpiryReason reason) {
+		return this.expiredGroups.get(reason).sum();
+	}
+
+	/**
+	 * @return The number of incomplete groups released as partial groups
+	 */
+	public long getPartialGroups() {
+		return this.partialGroups.sum();
+	}
+
+	private static int getSignalId(Object sentence) {
+		return sentence instanceof GsvData
+				? ((GsvData) sentence).getSignalId()
+				: SentenceUtils.getSignalId((GSVSentence) sentence);
+	}
+
+	private Group getGroup(String deviceId, String talkerId, int signalId, long now) {
+		for (int i = 0; i < this.groupCount; i++) {
+			final Group group = this.groups[i];
+			if (group.signalId == signalId && group.talkerId.equals(talkerId)
+					&& Objects.equals(group.deviceId, deviceId)) {
+				return group;
+			}
+		}
+		if (this.groupCount == this.maxGroups) {
+			this.removeLeastRecentlyUpdatedGroup();
+		}
+		if (this.groupCount == this.groups.length) {
+			this.groups = Arrays.copyOf(this.groups, Math.min(this.groups.length * 2, this.maxGroups));
+		}
+		final Group group = new Group(deviceId, talkerId, signalId);
+		group.lastUpdateNanos = now;
+		this.groups[this.groupCount++] = group;
+		return group;
+	}
+
+	private void removeLeastRecentlyUpdatedGroup() {
+		int index = 0;
+		for (int i = 1; i < this.groupCount; i++) {
+			if (this.groups[i].lastUpdateNanos - this.groups[index].lastUpdateNanos < 0) {
+				index = i;
+			}
+		}
+		if (this.groups[index].receivedMask != 0) {
+			this.expire(this.groups[index], ExpiryReason.OVERFLOW);
+		}
+		this.removeGroup(index);
+	}
+
+	private void removeGroup(int index) {
+		this.groups[index] = this.groups[--this.groupCount];
+		this.groups[this.groupCount] = null;
+	}
+
+	private void expire(Group group, ExpiryReason reason) {
+		this.expiredGroups.get(reason).increment();
+		LOGGER.debug("GSV group {} of {} (signal {}) expired: {}.", group.talkerId, group.deviceId, group.signalId, reason);
+
+		if (this.releasePartialGroups) {
+			final Object[] sentences = new Object[Long.bitCount(group.receivedMask)];
+			int index = 0;
+			for (int i = 0; i < group.sentenceCount; i++) {
+				if (group.sentences[i] != null) {
+					sentences[index++] = group.sentences[i];
+				}
+			}
+			final Message<Object[]> message = MessageBuilder.withPayload(sentences)
+					.copyHeaders(group.lastMessage != null ? group.lastMessage.getHeaders() : null)
+					.setHeader(NmeaMessage.DEVICE_ID_HEADER, group.deviceId)
+					.setHeader(SIGNAL_ID_HEADER, group.signalId)
+					.setHeader(PARTIAL_HEADER, true)
+					.build();
+			this.pendingPartialGroups.add(message);
+		}
+		group.reset();
+	}
+
+	/**
+	 * Sends the partial groups collected while the groups were locked. Must not
+	 * be invoked while holding the lock.
+	 */
+	private void sendPartialGroups() {
+		Message<Object[]> message;
+		while ((message = this.pendingPartialGroups.poll()) != null) {
+			this.partialGroups.increment();
+			this.partialGroupChannel.send(message);
+		}
+	}
+
+	/**
+	 * The sentences received so far for a device, talker and signal id.
+	 */
+	private static final class Group {
+
+		private final String deviceId;
+		private final String talkerId;
+		private final int signalId;
+
+		private Object[] sentences = new Object[4];
+		private int sentenceCount;
+		private long completeMask;
+		private long receivedMask;
+		private long startNanos;
+		private long lastUpdateNanos;
+		private Message<?> lastMessage;
+
+		private Group(String deviceId, String talkerId, int signalId) {
+			this.deviceId = deviceId;
+			this.talkerId = talkerId;
+			this.signalId = signalId;
+		}
+
+		private void start(int sentenceCount) {
+			if (this.sentences.length < sentenceCount) {
+				this.sentences = new Object[sentenceCount];
+			}
+			this.reset();
+			this.sentenceCount = sentenceCount;
+			this.completeMask = sentenceCount == Long.SIZE ? -1L : (1L << sentenceCount) - 1;
+		}
+
+		private void reset() {
+			Arrays.fill(this.sentences, null);
+			this.receivedMask = 0;
+			this.lastMessage = null;
+		}
+	}
+
+}
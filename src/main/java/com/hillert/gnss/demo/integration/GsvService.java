@@ -16,21 +16,17 @@
 
 package com.hillert.gnss.demo.integration;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.Message;
 
 import com.hillert.gnss.demo.model.GnssProvider;
-import com.hillert.gnss.demo.model.Satellite;
+import com.hillert.gnss.demo.nmea.GsvData;
 import com.hillert.gnss.demo.store.GnssStatusStore;
 import com.hillert.gnss.demo.store.SatelliteStore;
+import com.hillert.gnss.demo.store.SatelliteTable;
 
 import net.sf.marineapi.nmea.sentence.GSVSentence;
+import net.sf.marineapi.nmea.sentence.SentenceId;
 import net.sf.marineapi.nmea.util.SatelliteInfo;
 
 /**
@@ -45,25 +41,32 @@ public class GsvService {
 
 	private final SatelliteStore satelliteStore;
 	private final GnssStatusStore gnssStatusStore;
+	private final PipelineMetrics pipelineMetrics;
 
-	public GsvService(SatelliteStore satelliteStore, GnssStatusStore gnssStatusStore) {
+	public GsvService(SatelliteStore satelliteStore, GnssStatusStore gnssStatusStore, PipelineMetrics pipelineMetrics) {
 		super();
 		this.satelliteStore = satelliteStore;
 		this.gnssStatusStore = gnssStatusStore;
+		this.pipelineMetrics = pipelineMetrics;
 	}
 
 	/**
-	 * Currently handles the {@link GSVSentence} (GNSS Satellites in View).
+	 * Currently handles the {@link GSVSentence} (GNSS Satellites in View). The
+	 * aggregated sentences are either {@link GSVSentence}s (marineapi) or
+	 * {@link GsvData} (parsed by the {@link com.hillert.gnss.demo.nmea.NmeaParser})
+	 * of a single GNSS provider and signal.
 	 *
-	 * @param message The GSVSentence array to process
+	 * @param sentences The array of GSVSentences or GsvData to process
 	 */
-	public void process(Message<GSVSentence[]> message) {
+	public void process(Object[] sentences) {
 		GnssProvider gnssProvider = null;
-		int satelliteCount = -1;
-		Set<Satellite> satellites = new TreeSet<>();
+		int signalId = -1;
 
-		for (GSVSentence gsvSentence : message.getPayload()) {
-			final GnssProvider gnssProviderFromSentence = GnssProvider.fromKey(gsvSentence.getTalkerId().name());
+		for (Object sentence : sentences) {
+			final String talkerId = sentence instanceof GsvData
+					? ((GsvData) sentence).getTalkerId()
+					: ((GSVSentence) sentence).getTalkerId().name();
+			final GnssProvider gnssProviderFromSentence = GnssProvider.fromKey(talkerId);
 			if (gnssProvider != null && !gnssProvider.equals(gnssProviderFromSentence)) {
 				throw new IllegalStateException("All GnssProvider in this message should be the same.");
 			}
@@ -71,24 +74,48 @@ public class GsvService {
 				gnssProvider = gnssProviderFromSentence;
 			}
 
-			satelliteCount = gsvSentence.getSatelliteCount();
-			final List<SatelliteInfo> satelliteInfos = gsvSentence.getSatelliteInfo();
-
-			for (SatelliteInfo satelliteInfo : satelliteInfos) {
-				final String id = satelliteInfo.getId();
-				final int azimuth = satelliteInfo.getAzimuth();
-				final int elevation = satelliteInfo.getElevation();
-				final int noise = satelliteInfo.getNoise();
-				final Satellite satellite = new Satellite(gnssProvider, id, elevation, azimuth, noise);
-				satellites.add(satellite);
+			if (sentence instanceof GsvData) {
+				signalId = ((GsvData) sentence).getSignalId();
+			}
+			else {
+				signalId = SentenceUtils.getSignalId((GSVSentence) sentence);
 			}
+		}
 
+		if (gnssProvider == GnssProvider.UNKNOWN) {
+			LOGGER.debug("Ignoring GSV sentences of an unknown GNSS provider.");
+			return;
 		}
 
-		this.gnssStatusStore.getGnssStatus().getSatelliteCount().put(gnssProvider, satelliteCount);
-		satelliteStore.getSatellites().put(gnssProvider, Collections.unmodifiableSet(satellites));
+		final long start = System.nanoTime();
+		// The satellites in view of all signals, as the GSV groups of each signal only count their own
+		final int satelliteCount = this.satelliteStore.update(gnssProvider, signalId, sentences, GsvService::putSatellites);
+		final Integer currentSatelliteCount = this.gnssStatusStore.getGnssStatus().getSatelliteCount().get(gnssProvider);
+		if (currentSatelliteCount == null || currentSatelliteCount != satelliteCount) {
+			final GnssProvider provider = gnssProvider;
+			this.gnssStatusStore.update(gnssStatus -> gnssStatus.withSatelliteCount(provider, satelliteCount));
+		}
 
 		this.satelliteStore.setProcessed(false);
 		this.satelliteStore.getProcessedGnssProviders().add(gnssProvider);
+		this.pipelineMetrics.record(SentenceId.GSV, PipelineMetrics.Stage.STORE, start);
+	}
+
+	private static void putSatellites(Object[] sentences, SatelliteTable satelliteTable) {
+		for (Object sentence : sentences) {
+			if (sentence instanceof GsvData) {
+				final GsvData gsvData = (GsvData) sentence;
+				for (int i = 0; i < gsvData.getSatellitesInSentence(); i++) {
+					satelliteTable.put(gsvData.getSatelliteId(i), gsvData.getElevation(i),
+							gsvData.getAzimuth(i), gsvData.getNoise(i));
+				}
+				continue;
+			}
+
+			for (SatelliteInfo satelliteInfo : ((GSVSentence) sentence).getSatelliteInfo()) {
+				satelliteTable.put(Integer.parseInt(satelliteInfo.getId()), satelliteInfo.getElevation(),
+						satelliteInfo.getAzimuth(), satelliteInfo.getNoise());
+			}
+		}
 	}
 }
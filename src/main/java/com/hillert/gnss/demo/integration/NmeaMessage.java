@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.util.Assert;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * {@link Message} carrying a parsed NMEA sentence (or a group of sentences)
+ * together with its receive timestamp, device id, sentence id and signal id as
+ * typed fields. Building a message using a
+ * {@link org.springframework.integration.support.MessageBuilder} copies the
+ * headers of the incoming message into a new immutable map (and generates a
+ * new id) for every hop, while the components of the pipeline only ever need
+ * these few attributes. Use the static accessors, e.g. {@link #getDeviceId(Message)},
+ * to read them from any message without a map lookup for {@link NmeaMessage}s.
+ *
+ * The {@link MessageHeaders} are only created if requested, e.g. by a
+ * component not aware of this class. They contain the attributes as well as the
+ * headers of the message the sentence was received with, and no id header.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public final class NmeaMessage implements Message<Object> {
+
+	/**
+	 * The name of the header holding the id of the device a sentence was received from.
+	 */
+	public static final String DEVICE_ID_HEADER = "deviceId";
+
+	private final Object payload;
+	private final long timestamp;
+	private final String deviceId;
+	private final SentenceId sentenceId;
+	private final int signalId;
+	private final Map<String, Object> sourceHeaders;
+
+	private volatile MessageHeaders headers;
+
+	/**
+	 * @param payload The parsed sentence(s)
+	 * @param timestamp The receive timestamp in milliseconds since the epoch
+	 * @param deviceId The id of the device, may be null
+	 * @param sentenceId The sentence id, may be null
+	 * @param signalId The signal id, -1 if not available
+	 * @param sourceHeaders The headers of the message the sentence was received with, may be null
+	 */
+	public NmeaMessage(Object payload, long timestamp, String deviceId, SentenceId sentenceId, int signalId,
+			Map<String, Object> sourceHeaders) {
+		Assert.notNull(payload, "payload must not be null.");
+		this.payload = payload;
+		this.timestamp = timestamp;
+		this.deviceId = deviceId;
+		this.sentenceId = sentenceId;
+		this.signalId = signalId;
+		this.sourceHeaders = sourceHeaders;
+	}
+
+	/**
+	 * Creates a message with the same attributes, but a different payload and signal id.
+	 *
+	 * @param payload The new payload
+	 * @param signalId The signal id, -1 if not available
+	 * @return The new message
+	 */
+	public NmeaMessage withPayload(Object payload, int signalId) {
+		return new NmeaMessage(payload, this.timestamp, this.deviceId, this.sentenceId, signalId, this.sourceHeaders);
+	}
+
+	@Override
+	public Object getPayload() {
+		return this.payload;
+	}
+
+	public long getTimestamp() {
+		return this.timestamp;
+	}
+
+	public String getDeviceId() {
+		return this.deviceId;
+	}
+
+	public SentenceId getSentenceId() {
+		return this.sentenceId;
+	}
+
+	public int getSignalId() {
+		return this.signalId;
+	}
+
+	@Override
+	public MessageHeaders getHeaders() {
+		MessageHeaders headers = this.headers;
+		if (headers == null) {
+			final Map<String, Object> values = this.sourceHeaders != null
+					? new HashMap<>(this.sourceHeaders)
+					: new HashMap<>();
+			values.remove(MessageHeaders.ID);
+			values.remove(MessageHeaders.TIMESTAMP);
+			if (this.deviceId != null) {
+				values.put(DEVICE_ID_HEADER, this.deviceId);
+			}
+			if (this.sentenceId != null) {
+				values.put(PipelineMetrics.SENTENCE_ID_HEADER, this.sentenceId);
+			}
+			if (this.signalId >= 0) {
+				values.put(GsvAggregator.SIGNAL_ID_HEADER, this.signalId);
+			}
+			headers = new NmeaMessageHeaders(values, this.timestamp);
+			this.headers = headers;
+		}
+		return headers;
+	}
+
+	/**
+	 * Returns the id of the device the message was received from.
+	 *
+	 * @param message The message
+	 * @return The device id or null if not available
+	 */
+	public static String getDeviceId(Message<?> message) {
+		return message instanceof NmeaMessage
+				? ((NmeaMessage) message).getDeviceId()
+				: message.getHeaders().get(DEVICE_ID_HEADER, String.class);
+	}
+
+	/**
+	 * Returns the timestamp of the message.
+	 *
+	 * @param message The message
+	 * @return The timestamp in milliseconds since the epoch or -1 if not available
+	 */
+	public static long getTimestamp(Message<?> message) {
+		if (message instanceof NmeaMessage) {
+			return ((NmeaMessage) message).getTimestamp();
+		}
+		final Long timestamp = message.getHeaders().getTimestamp();
+		return timestamp != null ? timestamp : -1;
+	}
+
+	@Override
+	public String toString() {
+		return "NmeaMessage [payload=" + this.payload + ", timestamp=" + this.timestamp + ", deviceId=" + this.deviceId
+				+ ", sentenceId=" + this.sentenceId + ", signalId=" + this.signalId + "]";
+	}
+
+	/**
+	 * Headers of an {@link NmeaMessage}, using the receive timestamp and no id.
+	 */
+	private static final class NmeaMessageHeaders extends MessageHeaders {
+
+		private static final long serialVersionUID = 1L;
+
+		private NmeaMessageHeaders(Map<String, Object> headers, long timestamp) {
+			super(headers, MessageHeaders.ID_VALUE_NONE, timestamp);
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Instrumentation of the message processing pipeline. All meters are registered
+ * once per {@link SentenceId} and {@link Stage} up front, so that recording a
+ * measurement neither looks up the meter registry nor allocates any objects.
+ * Sentence types that were not registered are recorded as {@code OTHER}.
+ *
+ * The following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea.pipeline.stage - Time spent in each stage of the pipeline (tags stage, sentence_type)
+ *   <li>nmea.pipeline.parse.failures - Number of sentences that could not be parsed (tag sentence_type)
+ *</ul>
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class PipelineMetrics {
+
+	/**
+	 * The name of the header holding the {@link SentenceId} of a message.
+	 */
+	public static final String SENTENCE_ID_HEADER = "sentenceId";
+
+	private static final String OTHER_SENTENCE_TYPE = "OTHER";
+
+	private static final Map<String, SentenceId> SENTENCE_IDS = new HashMap<>();
+
+	static {
+		for (SentenceId sentenceId : SentenceId.values()) {
+			SENTENCE_IDS.put(sentenceId.name(), sentenceId);
+		}
+	}
+
+	/**
+	 * The {@link SentenceId} of proprietary u-blox sentences, null if not supported
+	 * by the marineapi version in use.
+	 */
+	public static final SentenceId UBX_SENTENCE_ID = toSentenceIdOrNull("UBX");
+
+	/**
+	 * The stages of the pipeline.
+	 */
+	public enum Stage {
+
+		/**
+		 * Parsing the raw NMEA sentence.
+		 */
+		PARSE,
+
+		/**
+		 * Routing the parsed sentence to the channel of its service.
+		 */
+		ROUTE,
+
+		/**
+		 * Time from the first sentence of a group (e.g. GSV) arriving at the
+		 * aggregator until the group is complete.
+		 */
+		AGGREGATE,
+
+		/**
+		 * Processing the sentence by its service activator.
+		 */
+		SERVICE,
+
+		/**
+		 * Updating the stores with the processed data.
+		 */
+		STORE
+	}
+
+	private final Map<SentenceId, Timer[]> timers = new EnumMap<>(SentenceId.class);
+	private final Map<SentenceId, Counter> parseFailures = new EnumMap<>(SentenceId.class);
+
+	private final Timer[] otherTimers;
+	private final Counter otherParseFailures;
+
+	/**
+	 * @param sentenceIds The sentence types to register meters for
+	 */
+	public PipelineMetrics(Collection<SentenceId> sentenceIds) {
+		Assert.notNull(sentenceIds, "sentenceIds must not be null.");
+		for (SentenceId sentenceId : sentenceIds) {
+			this.timers.put(sentenceId, createTimers(sentenceId.name()));
+			this.parseFailures.put(sentenceId, createParseFailureCounter(sentenceId.name()));
+		}
+		this.otherTimers = createTimers(OTHER_SENTENCE_TYPE);
+		this.otherParseFailures = createParseFailureCounter(OTHER_SENTENCE_TYPE);
+	}
+
+	/**
+	 * Records the time elapsed since the provided start time.
+	 *
+	 * @param sentenceId The type of the processed sentence, may be null
+	 * @param stage The pipeline stage
+	 * @param startNanos The start time as returned by {@link System#nanoTime()}
+	 */
+	public void record(SentenceId sentenceId, Stage stage, long startNanos) {
+		this.getTimer(sentenceId, stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Records the time elapsed since the provided start time for the sentence type
+	 * held by the {@link #SENTENCE_ID_HEADER} of the message.
+	 *
+	 * @param message The processed message
+	 * @param stage The pipeline stage
+	 * @param startNanos The start time as returned by {@link System#nanoTime()}
+	 */
+	public void record(Message<?> message, Stage stage, long startNanos) {
+		this.record(getSentenceId(message), stage, startNanos);
+	}
+
+	/**
+	 * Records the provided duration.
+	 *
+	 * @param sentenceId The type of the processed sentence, may be null
+	 * @param stage The pipeline stage
+	 * @param duration The duration
+	 * @param unit The unit of the duration
+	 */
+	public void record(SentenceId sentenceId, Stage stage, long duration, TimeUnit unit) {
+		this.getTimer(sentenceId, stage).record(duration, unit);
+	}
+
+	/**
+	 * Counts a sentence that could not be parsed. The sentence type is derived
+	 * from the address field of the raw sentence.
+	 *
+	 * @param sentence The raw NMEA sentence
+	 */
+	public void recordParseFailure(String sentence) {
+		final Counter counter = this.parseFailures.get(toSentenceId(sentence));
+		(counter != null ? counter : this.otherParseFailures).increment();
+	}
+
+	Timer getTimer(SentenceId sentenceId, Stage stage) {
+		final Timer[] stageTimers = sentenceId != null ? this.timers.get(sentenceId) : null;
+		return (stageTimers != null ? stageTimers : this.otherTimers)[stage.ordinal()];
+	}
+
+	/**
+	 * Returns the {@link SentenceId} held by the {@link #SENTENCE_ID_HEADER} of the message.
+	 *
+	 * @param message The message
+	 * @return The sentence id or null if not available
+	 */
+	public static SentenceId getSentenceId(Message<?> message) {
+		if (message instanceof NmeaMessage) {
+			return ((NmeaMessage) message).getSentenceId();
+		}
+		final Object sentenceId = message.getHeaders().get(SENTENCE_ID_HEADER);
+		return sentenceId instanceof SentenceId ? (SentenceId) sentenceId : null;
+	}
+
+	/**
+	 * Resolves the {@link SentenceId} of the provided sentence type, e.g. {@code GGA}.
+	 *
+	 * @param sentenceType The sentence type
+	 * @return The sentence id or null if not supported by marineapi
+	 */
+	public static SentenceId toSentenceIdOrNull(String sentenceType) {
+		return SENTENCE_IDS.get(sentenceType);
+	}
+
+	private static SentenceId toSentenceId(String sentence) {
+		if (sentence == null) {
+			return null;
+		}
+		if (sentence.startsWith("$PUBX,")) {
+			return SENTENCE_IDS.get("UBX");
+		}
+		if (sentence.length() > 6 && sentence.charAt(6) == ',') {
+			return SENTENCE_IDS.get(sentence.substring(3, 6));
+		}
+		return null;
+	}
+
+	private static Timer[] createTimers(String sentenceType) {
+		final Stage[] stages = Stage.values();
+		final Timer[] stageTimers = new Timer[stages.length];
+		for (Stage stage : stages) {
+			stageTimers[stage.ordinal()] = Timer.builder("nmea.pipeline.stage")
+					.description("Time spent in a stage of the NMEA processing pipeline.")
+					.tags("stage", stage.name().toLowerCase(), "sentence_type", sentenceType)
+					.register(Metrics.globalRegistry);
+		}
+		return stageTimers;
+	}
+
+	private static Counter createParseFailureCounter(String sentenceType) {
+		return Counter.builder("nmea.pipeline.parse.failures")
+				.description("Number of NMEA sentences that could not be parsed.")
+				.tags("sentence_type", sentenceType)
+				.register(Metrics.globalRegistry);
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.util.Assert;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records how long messages wait in a queue or executor channel before they are
+ * handled by the consumer. When a message is sent, it is wrapped together with
+ * the current {@link System#nanoTime()}, and unwrapped again when it is received
+ * (queue channels) or handed to the handler (executor channels), so only the
+ * time spent in the channel is measured.
+ *
+ * The following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea.channel.queue.wait - Time messages waited in the channel (tag channel)
+ *</ul>
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class QueueWaitInterceptor implements ExecutorChannelInterceptor {
+
+	private final Timer queueWaitTimer;
+
+	public QueueWaitInterceptor(String channelName) {
+		Assert.hasText(channelName, "channelName must not be null or empty.");
+		this.queueWaitTimer = Timer.builder("nmea.channel.queue.wait")
+				.description("Time messages waited in a channel before they were handled.")
+				.tags("channel", channelName)
+				.register(Metrics.globalRegistry);
+	}
+
+	@Override
+	public Message<?> preSend(Message<?> message, MessageChannel channel) {
+		return new EnqueuedMessage<>(message, System.nanoTime());
+	}
+
+	/**
+	 * Invoked by {@link org.springframework.integration.channel.QueueChannel}s
+	 * on the consumer thread.
+	 */
+	@Override
+	public Message<?> postReceive(Message<?> message, MessageChannel channel) {
+		return message != null ? this.record(message) : null;
+	}
+
+	/**
+	 * Invoked by {@link org.springframework.integration.channel.ExecutorChannel}s
+	 * on the consumer thread.
+	 */
+	@Override
+	public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+		return this.record(message);
+	}
+
+	private Message<?> record(Message<?> message) {
+		if (!(message instanceof EnqueuedMessage)) {
+			return message;
+		}
+		final EnqueuedMessage<?> enqueuedMessage = (EnqueuedMessage<?>) message;
+		this.queueWaitTimer.record(System.nanoTime() - enqueuedMessage.enqueued, TimeUnit.NANOSECONDS);
+		return enqueuedMessage.message;
+	}
+
+	/**
+	 * A message while it is held by the channel, with the time it was sent.
+	 */
+	private static final class EnqueuedMessage<T> implements Message<T> {
+
+		private final Message<T> message;
+		private final long enqueued;
+
+		private EnqueuedMessage(Message<T> message, long enqueued) {
+			this.message = message;
+			this.enqueued = enqueued;
+		}
+
+		@Override
+		public T getPayload() {
+			return this.message.getPayload();
+		}
+
+		@Override
+		public MessageHeaders getHeaders() {
+			return this.message.getHeaders();
+		}
+
+		@Override
+		public String toString() {
+			return this.message.toString();
+		}
+	}
+
+}
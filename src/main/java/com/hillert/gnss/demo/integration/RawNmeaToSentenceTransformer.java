@@ -21,15 +21,32 @@ import org.slf4j.LoggerFactory;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
 
+import com.hillert.gnss.demo.nmea.AbstractNmeaData;
+import com.hillert.gnss.demo.nmea.NmeaParser;
 import com.hillert.gnss.demo.store.SatelliteStore;
+import com.hillert.gnss.demo.support.DemoSettings;
 
-import io.micrometer.core.instrument.Metrics;
 import net.sf.marineapi.nmea.parser.SentenceFactory;
 import net.sf.marineapi.nmea.sentence.Sentence;
 import net.sf.marineapi.nmea.sentence.SentenceId;
 
 /**
- * Processes all Nmea messages.
+ * Processes all Nmea messages. By default, all sentences are parsed using
+ * marineapi. When using the {@link DemoSettings.Parsing.Engine#NATIVE} parsing
+ * engine, the GGA, GSA, GSV and RMC sentences are parsed by the {@link NmeaParser}
+ * into {@link AbstractNmeaData} payloads instead, while marineapi remains the
+ * fallback for all other sentences.
+ *
+ * The time spent parsing and the sentences that could not be parsed are recorded
+ * by the {@link PipelineMetrics}.
+ *
+ * Parsed sentences are returned as {@link NmeaMessage}s, carrying the receive
+ * timestamp, device id and sentence id as fields instead of copying the headers.
+ *
+ * Sentences that cannot be parsed are not rejected by throwing an exception,
+ * but returned unparsed with a {@link DeadLetterService#REASON_HEADER}, so that
+ * they are routed to the dead-letter channel. Unsupported talker ids and sentence
+ * types are detected by a cheap {@link SentencePrecheck} before parsing.
  *
  * @author Gunnar Hillert
  *
@@ -40,11 +57,22 @@ public class RawNmeaToSentenceTransformer {
 
 	private final SentenceFactory sentenceFactory = SentenceFactory.getInstance();
 
+	private final SentencePrecheck sentencePrecheck = new SentencePrecheck(this.sentenceFactory);
+
+	private final ThreadLocal<NmeaParser> nmeaParser = ThreadLocal.withInitial(NmeaParser::new);
+
 	private final SatelliteStore satelliteStore;
 
-	public RawNmeaToSentenceTransformer(SatelliteStore satelliteStore) {
+	private final PipelineMetrics pipelineMetrics;
+
+	private final boolean nativeParsing;
+
+	public RawNmeaToSentenceTransformer(SatelliteStore satelliteStore, PipelineMetrics pipelineMetrics,
+			DemoSettings demoSettings) {
 		super();
 		this.satelliteStore = satelliteStore;
+		this.pipelineMetrics = pipelineMetrics;
+		this.nativeParsing = DemoSettings.Parsing.Engine.NATIVE.equals(demoSettings.getParsing().getEngine());
 	}
 
 	/**
@@ -61,24 +89,54 @@ public class RawNmeaToSentenceTransformer {
 	 * GGA message also provides altitude information.
 	 *
 	 * @param message The NMEA to process, only GGA, GSA, GSV - other messages will be ignored
+	 * @return An {@link NmeaMessage} with the parsed sentence, either a marineapi {@link Sentence}
+	 * or an {@link AbstractNmeaData}, or the raw sentence if it is dead-lettered
 	 */
-	public Message<Sentence> transform(Message<String> message) {
+	public Message<?> transform(Message<String> message) {
 
-		final Sentence sentence = sentenceFactory.createParser(message.getPayload());
-		final SentenceId sentenceId = SentenceId.valueOf(sentence.getSentenceId());
+		final long start = System.nanoTime();
+		final Object sentence;
+		final SentenceId sentenceId;
 
-		Metrics.counter("nmea",
-				"message_type", sentenceId.name()).increment();
+		final DeadLetter.Reason reason = this.sentencePrecheck.check(message.getPayload());
+		if (reason != null) {
+			return deadLetter(message, reason, null);
+		}
+
+		try {
+			// A new data holder per sentence, as it becomes the payload of the message
+			final AbstractNmeaData nmeaData = this.nativeParsing ? this.nmeaParser.get().parse(message.getPayload()) : null;
+			if (nmeaData != null) {
+				sentence = nmeaData;
+				sentenceId = nmeaData.getSentenceId();
+			}
+			else {
+				final Sentence parsedSentence = sentenceFactory.createParser(message.getPayload());
+				sentence = parsedSentence;
+				sentenceId = SentenceId.valueOf(parsedSentence.getSentenceId());
+			}
+		}
+		catch (RuntimeException e) {
+			this.pipelineMetrics.recordParseFailure(message.getPayload());
+			return deadLetter(message, DeadLetter.Reason.PARSE_FAILURE, e.getMessage());
+		}
+		this.pipelineMetrics.record(sentenceId, PipelineMetrics.Stage.PARSE, start);
 
 		if (!SentenceId.GSV.equals(sentenceId)) {
 			satelliteStore.cleanupIfNecessary();
 		}
 
-		final Message<Sentence> messageOut = MessageBuilder
-				.withPayload(sentence)
-				.copyHeadersIfAbsent(message.getHeaders())
-				.setHeaderIfAbsent("sentenceId", sentenceId).build();
+		final Long timestamp = message.getHeaders().getTimestamp();
+		return new NmeaMessage(sentence, timestamp != null ? timestamp : System.currentTimeMillis(),
+				NmeaMessage.getDeviceId(message), sentenceId, -1, message.getHeaders());
+	}
 
-		return messageOut;
+	private static Message<?> deadLetter(Message<String> message, DeadLetter.Reason reason, String detail) {
+		final MessageBuilder<String> builder = MessageBuilder.fromMessage(message)
+				.setHeader(DeadLetterService.REASON_HEADER, reason);
+		if (detail != null) {
+			builder.setHeader(DeadLetterService.DETAIL_HEADER, detail);
+		}
+		return builder.build();
 	}
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import net.sf.marineapi.nmea.parser.SentenceFactory;
+import net.sf.marineapi.nmea.sentence.SentenceId;
+import net.sf.marineapi.nmea.sentence.TalkerId;
+
+/**
+ * Checks whether a sentence can be parsed by marineapi, before actually
+ * parsing it, so that unsupported sentences are dead-lettered without throwing
+ * (and unwinding) exceptions. Talker ids and sentence types are looked up in
+ * tables built once from {@link TalkerId}, {@link SentenceId} and the parsers
+ * registered with the {@link SentenceFactory}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+class SentencePrecheck {
+
+	private static final int LETTERS = 26;
+
+	private final boolean[] talkerIds = new boolean[LETTERS * LETTERS];
+	private final boolean[] sentenceTypes = new boolean[LETTERS * LETTERS * LETTERS];
+	private final boolean proprietaryUbx;
+
+	SentencePrecheck(SentenceFactory sentenceFactory) {
+		for (TalkerId talkerId : TalkerId.values()) {
+			final int index = talkerId.name().length() == 2 ? indexOf(talkerId.name(), 0, 2) : -1;
+			if (index >= 0) {
+				this.talkerIds[index] = true;
+			}
+		}
+		for (SentenceId sentenceId : SentenceId.values()) {
+			final int index = sentenceId.name().length() == 3 ? indexOf(sentenceId.name(), 0, 3) : -1;
+			if (index >= 0 && sentenceFactory.hasParser(sentenceId.name())) {
+				this.sentenceTypes[index] = true;
+			}
+		}
+		this.proprietaryUbx = this.sentenceTypes[indexOf("UBX", 0, 3)];
+	}
+
+	/**
+	 * Checks the address field of the sentence, e.g. {@code $GPGGA} or {@code $PUBX}.
+	 *
+	 * @param sentence The NMEA sentence
+	 * @return The reason why the sentence cannot be parsed or null if it can be parsed
+	 */
+	DeadLetter.Reason check(String sentence) {
+		if (sentence == null || sentence.length() < 6
+				|| (sentence.charAt(0) != '$' && sentence.charAt(0) != '!')) {
+			return DeadLetter.Reason.MALFORMED;
+		}
+		if (sentence.charAt(1) == 'P') {
+			return this.proprietaryUbx && sentence.startsWith("UBX,", 2) ? null : DeadLetter.Reason.UNSUPPORTED_SENTENCE;
+		}
+		if (sentence.length() < 7 || sentence.charAt(6) != ',') {
+			return DeadLetter.Reason.MALFORMED;
+		}
+		final int talkerId = indexOf(sentence, 1, 2);
+		if (talkerId < 0 || !this.talkerIds[talkerId]) {
+			return DeadLetter.Reason.UNSUPPORTED_TALKER;
+		}
+		final int sentenceType = indexOf(sentence, 3, 3);
+		if (sentenceType < 0 || !this.sentenceTypes[sentenceType]) {
+			return DeadLetter.Reason.UNSUPPORTED_SENTENCE;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the table index of the upper-case letters at the given position
+	 * or -1 if any character is not an upper-case letter.
+	 */
+	private static int indexOf(CharSequence value, int offset, int length) {
+		int index = 0;
+		for (int i = offset; i < offset + length; i++) {
+			final char c = value.charAt(i);
+			if (c < 'A' || c > 'Z') {
+				return -1;
+			}
+			index = index * LETTERS + (c - 'A');
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.integration.router.HeaderValueRouter;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.integration.PipelineMetrics.Stage;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Routes the parsed sentences to the channel of their service based on the
+ * {@link PipelineMetrics#SENTENCE_ID_HEADER}, recording the time spent for routing
+ * (including sending the message to the target channel) as {@link Stage#ROUTE}.
+ * The channel mappings are configured in {@code integration-context.xml}.
+ * Messages holding a {@link DeadLetterService#REASON_HEADER} are routed to the
+ * dead-letter channel instead. For {@link NmeaMessage}s, the sentence id is read
+ * from the message itself, and the (immutable) channel keys are looked up per
+ * sentence id instead of being created per message.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class SentenceRouter extends HeaderValueRouter {
+
+	private final PipelineMetrics pipelineMetrics;
+
+	private final List<Object> deadLetterChannelKeys;
+
+	private final List<Object>[] channelKeys;
+
+	public SentenceRouter(PipelineMetrics pipelineMetrics, String deadLetterChannelName) {
+		super(PipelineMetrics.SENTENCE_ID_HEADER);
+		Assert.notNull(pipelineMetrics, "pipelineMetrics must not be null.");
+		Assert.hasText(deadLetterChannelName, "deadLetterChannelName must not be null or empty.");
+		this.pipelineMetrics = pipelineMetrics;
+		this.deadLetterChannelKeys = Collections.singletonList(deadLetterChannelName);
+		this.channelKeys = createChannelKeys();
+	}
+
+	@Override
+	protected List<Object> getChannelKeys(Message<?> message) {
+		if (message instanceof NmeaMessage && ((NmeaMessage) message).getSentenceId() != null) {
+			return this.channelKeys[((NmeaMessage) message).getSentenceId().ordinal()];
+		}
+		if (message.getHeaders().containsKey(DeadLetterService.REASON_HEADER)) {
+			return this.deadLetterChannelKeys;
+		}
+		return super.getChannelKeys(message);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static List<Object>[] createChannelKeys() {
+		final SentenceId[] sentenceIds = SentenceId.values();
+		final List<Object>[] channelKeys = new List[sentenceIds.length];
+		for (SentenceId sentenceId : sentenceIds) {
+			channelKeys[sentenceId.ordinal()] = Collections.singletonList(sentenceId.name());
+		}
+		return channelKeys;
+	}
+
+	@Override
+	protected void handleMessageInternal(Message<?> message) {
+		final long start = System.nanoTime();
+		try {
+			super.handleMessageInternal(message);
+		}
+		finally {
+			this.pipelineMetrics.record(message, Stage.ROUTE, start);
+		}
+	}
+
+}
@@ -3,6 +3,9 @@ package com.hillert.gnss.demo.integration;
 import java.util.function.Supplier;
 
 import net.sf.marineapi.nmea.parser.DataNotAvailableException;
+import net.sf.marineapi.nmea.sentence.GSVSentence;
+import net.sf.marineapi.nmea.util.GpsFixQuality;
+import net.sf.marineapi.nmea.util.GpsFixStatus;
 
 public class SentenceUtils {
 	/**
@@ -26,4 +29,83 @@ public class SentenceUtils {
 		return returnValue;
 	}
 
+	/**
+	 * Converts the GGA fix quality indicator of the native parser.
+	 *
+	 * @param fixQuality The fix quality indicator, -1 if not available
+	 * @return The {@link GpsFixQuality} or null if not available or unknown
+	 */
+	public static GpsFixQuality toGpsFixQuality(int fixQuality) {
+		if (fixQuality < 0) {
+			return null;
+		}
+		try {
+			return GpsFixQuality.valueOf(fixQuality);
+		}
+		catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Converts the GSA fix type of the native parser.
+	 *
+	 * @param fixType The fix type, -1 if not available
+	 * @return The {@link GpsFixStatus} or null if not available or unknown
+	 */
+	public static GpsFixStatus toGpsFixStatus(int fixType) {
+		if (fixType < 0) {
+			return null;
+		}
+		try {
+			return GpsFixStatus.valueOf(fixType);
+		}
+		catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Formats a satellite id the same way as it is provided by marineapi, i.e.
+	 * as (at least) two digits.
+	 *
+	 * @param satelliteId The satellite id
+	 * @return The formatted satellite id
+	 */
+	public static String toSatelliteId(int satelliteId) {
+		return satelliteId < 10 ? "0" + satelliteId : String.valueOf(satelliteId);
+	}
+
+	/**
+	 * Returns the signal id (NMEA 4.10 and later) of a marineapi {@link GSVSentence},
+	 * which is not exposed by marineapi. The signal id is the field following the
+	 * (up to 4) blocks of 4 satellite fields.
+	 *
+	 * @param gsvSentence The GSV sentence
+	 * @return The signal id or -1 if not available
+	 */
+	public static int getSignalId(GSVSentence gsvSentence) {
+		if ((gsvSentence.getFieldCount() - 3) % 4 != 1) {
+			return -1;
+		}
+		final String sentence = gsvSentence.toSentence();
+		int end = sentence.lastIndexOf('*');
+		if (end < 0) {
+			end = sentence.length();
+		}
+		final int start = sentence.lastIndexOf(',', end - 1) + 1;
+		if (start == 0 || start >= end) {
+			return -1;
+		}
+		int signalId = 0;
+		for (int i = start; i < end; i++) {
+			final int digit = Character.digit(sentence.charAt(i), 16);
+			if (digit < 0) {
+				return -1;
+			}
+			signalId = signalId * 16 + digit;
+		}
+		return signalId;
+	}
+
 }
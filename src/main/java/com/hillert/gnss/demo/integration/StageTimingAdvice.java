@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import org.springframework.integration.handler.advice.AbstractRequestHandlerAdvice;
+import org.springframework.messaging.Message;
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.integration.PipelineMetrics.Stage;
+
+/**
+ * Records the time spent by the advised message handler (e.g. a service activator)
+ * in the given {@link Stage}, tagged with the sentence type of the message.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class StageTimingAdvice extends AbstractRequestHandlerAdvice {
+
+	private final PipelineMetrics pipelineMetrics;
+	private final Stage stage;
+
+	public StageTimingAdvice(PipelineMetrics pipelineMetrics, Stage stage) {
+		super();
+		Assert.notNull(pipelineMetrics, "pipelineMetrics must not be null.");
+		Assert.notNull(stage, "stage must not be null.");
+		this.pipelineMetrics = pipelineMetrics;
+		this.stage = stage;
+	}
+
+	@Override
+	protected Object doInvoke(ExecutionCallback callback, Object target, Message<?> message) {
+		final long start = System.nanoTime();
+		try {
+			return callback.execute();
+		}
+		finally {
+			this.pipelineMetrics.record(message, this.stage, start);
+		}
+	}
+
+}
@@ -21,7 +21,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.messaging.Message;
 
 import com.google.common.util.concurrent.AtomicDouble;
 import com.hillert.gnss.demo.store.GnssStatusStore;
@@ -47,25 +46,30 @@ public class UbxService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(UbxService.class);
 
 	private final GnssStatusStore gnssStatusStore;
+	private final PipelineMetrics pipelineMetrics;
 
-	public UbxService(GnssStatusStore gnssStatusStore) {
+	public UbxService(GnssStatusStore gnssStatusStore, PipelineMetrics pipelineMetrics) {
 		super();
 		this.gnssStatusStore = gnssStatusStore;
+		this.pipelineMetrics = pipelineMetrics;
 	}
 
 	private AtomicDouble horizontalAccuracyGauge = Metrics.gauge("nmea.accuracy.horizontal", new AtomicDouble(0));
 	private AtomicDouble verticalAccuracyGauge = Metrics.gauge("nmea.accuracy.vertical", new AtomicDouble(0));
+	private AtomicInteger satellitesGauge = Metrics.gauge("nmea.satellites", Tags.empty(), new AtomicInteger(0));
+	private AtomicInteger statusGauge = Metrics.gauge("nmea.status", Tags.empty(), new AtomicInteger(0));
 
 	/**
 	 * Handles the proprietary {@link UBXSentence}.
+	 *
+	 * @param sentence The {@link UBXSentence} to process
 	 */
-	public void process(Message<UBXSentence> message) {
-		final UBXSentence sentence = message.getPayload();
+	public void process(UBXSentence sentence) {
 
 		if (sentence.getMessageId().equals(3)) {
 			final UBXMessage03 ubxMessage00 = new UBXMessage03Parser(sentence);
 			final List<UbloxSatelliteInfo> satelliteInfos = ubxMessage00.getSatellites();
-			Metrics.gaugeCollectionSize("nmea.satellites", Tags.empty(), satelliteInfos);
+			satellitesGauge.set(satelliteInfos.size());
 		}
 		if (sentence.getMessageId().equals(0)) {
 			final UBXMessage00 ubxMessage00 = new UBXMessage00Parser(sentence);
@@ -73,14 +77,16 @@ public class UbxService {
 			final double horizontalAccuracyEstimate = ubxMessage00.getHorizontalAccuracyEstimate();
 			final double verticaAccuracyEstimate = ubxMessage00.getVerticaAccuracyEstimate();
 
-			this.gnssStatusStore.getGnssStatus().setUbloxHorizontalAccuracyInMeters(horizontalAccuracyEstimate);
-			this.gnssStatusStore.getGnssStatus().setUbloxVerticalAccuracyInMeters(verticaAccuracyEstimate);
+			final long start = System.nanoTime();
+			this.gnssStatusStore.update(gnssStatus ->
+					gnssStatus.withUbloxAccuracyInMeters(horizontalAccuracyEstimate, verticaAccuracyEstimate));
+			this.pipelineMetrics.record(PipelineMetrics.UBX_SENTENCE_ID, PipelineMetrics.Stage.STORE, start);
 
 			horizontalAccuracyGauge.set(horizontalAccuracyEstimate);
 			verticalAccuracyGauge.set(verticaAccuracyEstimate);
 
 			final UbloxNavigationStatus navigationalStatus = ubxMessage00.getNavigationStatus();
-			Metrics.gauge("nmea.status", Tags.empty(), navigationalStatus.ordinal());
+			statusGauge.set(navigationalStatus.ordinal());
 			LOGGER.info(
 					"HorizontalAccuracyEstimate: {} | VerticaAccuracyEstimate {} | Nav Status: {}",
 					horizontalAccuracyEstimate,
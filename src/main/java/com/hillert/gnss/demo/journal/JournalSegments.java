@@ -0,0 +1,193 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.journal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.support.DemoSettings;
+
+/**
+ * Writes journal lines to rolling segment files of a single device. A new
+ * segment is started once the current one exceeds the maximum size or age, and
+ * the oldest segments are deleted once the retention limits are exceeded. Not
+ * thread-safe, only used by the writer thread of the {@link NmeaJournal}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+class JournalSegments {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(JournalSegments.class);
+
+	static final String SEGMENT_PREFIX = "nmea-";
+	static final String SEGMENT_SUFFIX = ".log";
+	static final String GZIP_SUFFIX = ".gz";
+
+	private static final DateTimeFormatter SEGMENT_NAME_FORMATTER = DateTimeFormatter
+			.ofPattern("yyyyMMdd'T'HHmmss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+	private final Path directory;
+	private final DemoSettings.Journal settings;
+	private final Clock clock;
+
+	private FileChannel fileChannel;
+	private OutputStream compressedStream;
+	private long segmentBytes;
+	private Instant segmentStart;
+
+	JournalSegments(Path directory, DemoSettings.Journal settings, Clock clock) {
+		Assert.notNull(directory, "directory must not be null.");
+		Assert.notNull(settings, "settings must not be null.");
+		Assert.notNull(clock, "clock must not be null.");
+		this.directory = directory;
+		this.settings = settings;
+		this.clock = clock;
+	}
+
+	/**
+	 * Writes the content of the provided buffer to the current segment, starting
+	 * a new segment first if necessary.
+	 *
+	 * @param buffer The buffer holding complete journal lines, ready to be read
+	 * @throws IOException if writing the segment fails
+	 */
+	void write(ByteBuffer buffer) throws IOException {
+		if (this.fileChannel == null || this.isRotationDue()) {
+			this.rotate();
+		}
+		this.segmentBytes += buffer.remaining();
+		if (this.compressedStream != null) {
+			this.compressedStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			this.compressedStream.flush();
+			buffer.position(buffer.limit());
+		}
+		else {
+			while (buffer.hasRemaining()) {
+				this.fileChannel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Closes the current segment, if any.
+	 */
+	void close() {
+		try {
+			if (this.compressedStream != null) {
+				this.compressedStream.close();
+			}
+			else if (this.fileChannel != null) {
+				this.fileChannel.close();
+			}
+		}
+		catch (IOException e) {
+			LOGGER.warn("Unable to close journal segment in {}.", this.directory, e);
+		}
+		finally {
+			this.compressedStream = null;
+			this.fileChannel = null;
+		}
+	}
+
+	private boolean isRotationDue() {
+		return this.segmentBytes >= this.settings.getMaxSegmentSize().toBytes()
+				|| !this.clock.instant().isBefore(this.segmentStart.plus(this.settings.getMaxSegmentAge()));
+	}
+
+	private void rotate() throws IOException {
+		this.close();
+		Files.createDirectories(this.directory);
+
+		this.segmentStart = this.clock.instant();
+		this.segmentBytes = 0;
+
+		final boolean gzip = this.settings.getCompression() == DemoSettings.Journal.Compression.GZIP;
+		final Path segment = this.directory.resolve(SEGMENT_PREFIX + SEGMENT_NAME_FORMATTER.format(this.segmentStart)
+				+ SEGMENT_SUFFIX + (gzip ? GZIP_SUFFIX : ""));
+
+		this.fileChannel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		if (gzip) {
+			this.compressedStream = new GZIPOutputStream(Channels.newOutputStream(this.fileChannel), 8192, true);
+		}
+		LOGGER.info("Started journal segment {}.", segment);
+
+		this.applyRetention();
+	}
+
+	private void applyRetention() {
+		final List<Path> segments = listSegments(this.directory);
+		final Instant oldestAllowed = this.clock.instant().minus(this.settings.getMaxAge());
+		final int maxSegments = this.settings.getMaxSegments();
+
+		for (int i = 0; i < segments.size() - 1; i++) {
+			final Path segment = segments.get(i);
+			try {
+				if (segments.size() - i > maxSegments
+						|| Files.getLastModifiedTime(segment).toInstant().isBefore(oldestAllowed)) {
+					Files.deleteIfExists(segment);
+					LOGGER.info("Deleted journal segment {}.", segment);
+				}
+			}
+			catch (IOException e) {
+				LOGGER.warn("Unable to delete journal segment {}.", segment, e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the journal segments in the provided directory, oldest first.
+	 *
+	 * @param directory The journal directory of a device
+	 * @return The segments, never null
+	 */
+	static List<Path> listSegments(Path directory) {
+		if (!Files.isDirectory(directory)) {
+			return Collections.emptyList();
+		}
+		final List<Path> segments = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX + "*")) {
+			stream.forEach(segments::add);
+		}
+		catch (IOException e) {
+			LOGGER.warn("Unable to list journal segments in {}.", directory, e);
+		}
+		Collections.sort(segments);
+		return segments;
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.services.ConnectionType;
+import com.hillert.gnss.demo.services.SentenceRingBuffer;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Append-only journal of the raw NMEA sentences received from a single device.
+ * Each line consists of the ingest time (milliseconds since the epoch), a
+ * space and the sentence as received, e.g.:
+ *
+ * <pre>
+ * 1603101234567 $GPGGA,...*47
+ * </pre>
+ *
+ * Sentences are handed over via a {@link SentenceRingBuffer} and written in
+ * batches by a dedicated writer thread to rolling, optionally GZIP compressed,
+ * segment files in {@code <directory>/<deviceId>}. Appending never blocks the
+ * reader thread: if the writer falls behind, the oldest pending lines are dropped.
+ *
+ * The following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea.journal.lines - Number of lines written to the journal
+ *   <li>nmea.journal.bytes - Number of (uncompressed) bytes written to the journal
+ *   <li>nmea.journal.dropped - Number of lines dropped because the writer fell behind
+ *</ul>
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class NmeaJournal {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NmeaJournal.class);
+
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+	private final String deviceId;
+	private final SentenceRingBuffer ringBuffer;
+	private final JournalSegments segments;
+	private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+	private final AtomicLong linesWritten = new AtomicLong();
+	private final AtomicLong bytesWritten = new AtomicLong();
+	private final List<Meter> meters;
+
+	private Thread writerThread;
+
+	public NmeaJournal(ConnectionType connectionType, String deviceId, DemoSettings.Journal settings) {
+		Assert.notNull(connectionType, "connectionType must not be null.");
+		Assert.hasText(deviceId, "deviceId must not be null or empty.");
+		Assert.notNull(settings, "settings must not be null.");
+		this.deviceId = deviceId;
+		this.ringBuffer = new SentenceRingBuffer(settings.getBufferCapacity(), SentenceRingBuffer.DropPolicy.DROP_OLDEST, 1);
+		this.segments = new JournalSegments(getDirectory(settings, deviceId), settings, Clock.systemUTC());
+
+		final Tags tags = Tags.of("connection_type", connectionType.name(), "device", deviceId);
+		this.meters = List.of(
+				FunctionCounter.builder("nmea.journal.lines", this.linesWritten, AtomicLong::get)
+						.description("Number of NMEA lines written to the journal.")
+						.tags(tags)
+						.register(Metrics.globalRegistry),
+				FunctionCounter.builder("nmea.journal.bytes", this.bytesWritten, AtomicLong::get)
+						.description("Number of uncompressed bytes written to the journal.")
+						.baseUnit("bytes")
+						.tags(tags)
+						.register(Metrics.globalRegistry),
+				FunctionCounter.builder("nmea.journal.dropped", this.ringBuffer, SentenceRingBuffer::getDroppedOldest)
+						.description("Number of NMEA lines dropped because the journal writer fell behind.")
+						.tags(tags)
+						.register(Metrics.globalRegistry));
+	}
+
+	/**
+	 * Returns the journal directory of the provided device.
+	 *
+	 * @param settings The journal settings
+	 * @param deviceId The id of the device
+	 * @return The directory holding the segments of the device
+	 */
+	public static Path getDirectory(DemoSettings.Journal settings, String deviceId) {
+		return settings.getDirectory().resolve(deviceId.replaceAll("[^A-Za-z0-9._-]", "_"));
+	}
+
+	/**
+	 * Returns the journal segments in the provided directory, oldest first.
+	 *
+	 * @param directory The journal directory of a device
+	 * @return The segments, never null
+	 */
+	public static List<Path> listSegments(Path directory) {
+		return JournalSegments.listSegments(directory);
+	}
+
+	/**
+	 * Starts the writer thread, unless already started.
+	 */
+	public synchronized void start() {
+		if (this.writerThread != null) {
+			return;
+		}
+		this.writerThread = new Thread(this::writeLoop, "nmea-journal-" + this.deviceId);
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	/**
+	 * Stops the writer thread after writing the pending lines and removes the
+	 * metrics of this journal. The writer thread is not interrupted, as that
+	 * would close the segment file.
+	 */
+	public synchronized void stop() {
+		this.meters.forEach(Metrics.globalRegistry::remove);
+		if (this.writerThread != null) {
+			this.ringBuffer.close();
+			try {
+				this.writerThread.join(1000);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.writerThread = null;
+		}
+	}
+
+	/**
+	 * Appends a sentence to the journal. Must only be invoked by the reader
+	 * thread of the device. Never blocks.
+	 *
+	 * @param ingestTimeMillis The time the sentence was received
+	 * @param frame The buffer holding the sentence
+	 * @param offset The offset of the sentence
+	 * @param length The length of the sentence
+	 */
+	public void append(long ingestTimeMillis, byte[] frame, int offset, int length) {
+		this.ringBuffer.offer(ingestTimeMillis + " " + new String(frame, offset, length, StandardCharsets.ISO_8859_1), false);
+	}
+
+	private void writeLoop() {
+		try {
+			String line;
+			while ((line = this.takeLine()) != null) {
+				do {
+					this.bufferLine(line);
+				}
+				while ((line = this.ringBuffer.poll()) != null);
+				this.flush();
+			}
+		}
+		finally {
+			this.segments.close();
+		}
+		LOGGER.debug("Stopped journaling NMEA sentences of device '{}'.", this.deviceId);
+	}
+
+	private String takeLine() {
+		try {
+			return this.ringBuffer.take();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	private void bufferLine(String line) {
+		if (this.writeBuffer.remaining() < line.length() + 2) {
+			this.flush();
+			if (this.writeBuffer.remaining() < line.length() + 2) {
+				LOGGER.warn("Ignoring journal line exceeding {} bytes.", WRITE_BUFFER_SIZE);
+				return;
+			}
+		}
+		for (int i = 0; i < line.length(); i++) {
+			this.writeBuffer.put((byte) line.charAt(i));
+		}
+		this.writeBuffer.put((byte) '\r').put((byte) '\n');
+		this.linesWritten.incrementAndGet();
+	}
+
+	private void flush() {
+		if (this.writeBuffer.position() == 0) {
+			return;
+		}
+		this.writeBuffer.flip();
+		final int bytes = this.writeBuffer.remaining();
+		try {
+			this.segments.write(this.writeBuffer);
+			this.bytesWritten.addAndGet(bytes);
+		}
+		catch (IOException e) {
+			LOGGER.warn(String.format("Unable to write %s bytes to the journal of device '%s'.", bytes, this.deviceId), e);
+			this.segments.close();
+		}
+		finally {
+			this.writeBuffer.clear();
+		}
+	}
+
+}
@@ -16,20 +16,26 @@
 
 package com.hillert.gnss.demo.model;
 
+import java.util.Arrays;
+
 import org.springframework.util.Assert;
 
 /**
- * Defines Bluetooth Service Classes supported by the application.
+ * Defines the GNSS providers (constellations) and their NMEA talker ids. The
+ * talker ids, including aliases such as {@code BD} for BeiDou, are resolved
+ * using a table indexed by the two talker id characters.
+ * <p>
+ * SBAS satellites have no talker id of their own, they are reported by the
+ * {@code GP} talker (satellite ids 33 to 64).
  *
  * @author Gunnar Hillert
- * @see <a href="https://www.bluetooth.com/specifications/assigned-numbers/service-discovery">
- *   https://www.bluetooth.com/specifications/assigned-numbers/service-discovery</a>
+ * @see <a href="https://www.nmea.org/content/STANDARDS/NMEA_0183_Standard">NMEA 0183</a>
  *
  */
 public enum GnssProvider {
 
 	/**
-	 * Represents the Global Positioning System (USA).
+	 * Represents the Global Positioning System (USA), including SBAS.
 	 */
 	GPS("GP", "GPS"),
 
@@ -46,28 +52,74 @@ public enum GnssProvider {
 	/**
 	 * Represents the global navigation satellite system of China.
 	 */
-	BAIDOU("GB", "BeiDou");
+	BAIDOU("GB", "BeiDou", "BD"),
+
+	/**
+	 * Represents the Quasi-Zenith Satellite System (Japan).
+	 */
+	QZSS("GQ", "QZSS", "QZ"),
+
+	/**
+	 * Represents the Navigation with Indian Constellation.
+	 */
+	NAVIC("GI", "NavIC"),
+
+	/**
+	 * Represents solutions combining several GNSS providers.
+	 */
+	COMBINED("GN", "Combined GNSS"),
+
+	/**
+	 * Returned for unknown talker ids.
+	 */
+	UNKNOWN("--", "Unknown");
+
+	private static final int LETTERS = 26;
+
+	private static final GnssProvider[] TALKER_IDS = new GnssProvider[LETTERS * LETTERS];
+
+	static {
+		Arrays.fill(TALKER_IDS, UNKNOWN);
+		for (GnssProvider gnssProvider : GnssProvider.values()) {
+			if (gnssProvider == UNKNOWN) {
+				continue;
+			}
+			for (String talkerId : gnssProvider.talkerIds) {
+				TALKER_IDS[indexOf(talkerId.charAt(0), talkerId.charAt(1))] = gnssProvider;
+			}
+		}
+	}
 
-	private String id;
-	private String name;
+	private final String id;
+	private final String name;
+	private final String[] talkerIds;
 
-	GnssProvider(String id, String name) {
+	GnssProvider(String id, String name, String... aliases) {
 		this.id = id;
 		this.name = name;
+		this.talkerIds = concat(id, aliases);
 	}
 
+	/**
+	 * @param id The talker id, e.g. {@code GP}
+	 * @return The GNSS provider or {@link #UNKNOWN}
+	 */
 	public static GnssProvider fromKey(String id) {
 
 		Assert.hasText(id, "Parameter id must not be null or empty.");
 
-		for (GnssProvider gnssProvider : GnssProvider.values()) {
-			if (gnssProvider.getId().equals(id)) {
-				return gnssProvider;
-			}
-		}
+		return id.length() == 2 ? fromKey(id.charAt(0), id.charAt(1)) : UNKNOWN;
 
-		throw new IllegalArgumentException("Unable to gnssProvider " + id);
+	}
 
+	/**
+	 * @param first The first character of the talker id
+	 * @param second The second character of the talker id
+	 * @return The GNSS provider or {@link #UNKNOWN}
+	 */
+	public static GnssProvider fromKey(char first, char second) {
+		final int index = indexOf(first, second);
+		return index >= 0 ? TALKER_IDS[index] : UNKNOWN;
 	}
 
 	public String getId() {
@@ -78,4 +130,17 @@ public enum GnssProvider {
 		return this.name;
 	}
 
+	private static int indexOf(char first, char second) {
+		if (first < 'A' || first > 'Z' || second < 'A' || second > 'Z') {
+			return -1;
+		}
+		return (first - 'A') * LETTERS + (second - 'A');
+	}
+
+	private static String[] concat(String id, String[] aliases) {
+		final String[] talkerIds = Arrays.copyOf(aliases, aliases.length + 1);
+		talkerIds[aliases.length] = id;
+		return talkerIds;
+	}
+
 }
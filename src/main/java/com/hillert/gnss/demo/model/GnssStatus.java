@@ -16,8 +16,9 @@
 
 package com.hillert.gnss.demo.model;
 
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.marineapi.nmea.util.GpsFixQuality;
 import net.sf.marineapi.nmea.util.GpsFixStatus;
@@ -25,78 +26,188 @@ import net.sf.marineapi.nmea.util.GpsFixStatus;
 /**
 * Basic status information of the GNSS (GPS, Galileo etc.) data.
 *
+* Instances are immutable snapshots. Updates create a new snapshot using one of
+* the {@code with} methods, which also increment the {@link #getVersion() version},
+* and are published by the {@link com.hillert.gnss.demo.store.GnssStatusStore}.
+* Readers therefore always see values that were set together, e.g. the latitude
+* and longitude of the same fix.
+*
 * @author Gunnar Hillert
 *
 */
-public class GnssStatus {
+public final class GnssStatus {
 
-	private volatile Double altitude;
-	private volatile Double longitude;
-	private volatile Double latitude;
+	/**
+	 * The initial status without any data.
+	 */
+	public static final GnssStatus EMPTY = new GnssStatus();
 
-	private volatile GpsFixQuality fixQuality;
-	private volatile Map<GnssProvider, Integer> satelliteCount = new ConcurrentHashMap<>();
-	private volatile GpsFixStatus gpsFixStatus;
+	private final long version;
 
-	private volatile Double calculatedHorizontalAccuracyInMeters;
-	private volatile Double ubloxHorizontalAccuracyInMeters;
-	private volatile Double ubloxVerticalAccuracyInMeters;
+	private final Double altitude;
+	private final Double longitude;
+	private final Double latitude;
 
-	public Double getAltitude() {
-		return this.altitude;
+	private final GpsFixQuality fixQuality;
+	private final Map<GnssProvider, Integer> satelliteCount;
+	private final int totalSatelliteCount;
+	private final GpsFixStatus gpsFixStatus;
+
+	private final Double calculatedHorizontalAccuracyInMeters;
+	private final Double ubloxHorizontalAccuracyInMeters;
+	private final Double ubloxVerticalAccuracyInMeters;
+
+	private GnssStatus() {
+		this(0, null, null, null, null, Collections.emptyMap(), null, null, null, null);
 	}
-	public void setAltitude(Double altitude) {
+
+	private GnssStatus(long version, Double altitude, Double longitude, Double latitude, GpsFixQuality fixQuality,
+			Map<GnssProvider, Integer> satelliteCount, GpsFixStatus gpsFixStatus,
+			Double calculatedHorizontalAccuracyInMeters, Double ubloxHorizontalAccuracyInMeters,
+			Double ubloxVerticalAccuracyInMeters) {
+		this.version = version;
 		this.altitude = altitude;
+		this.longitude = longitude;
+		this.latitude = latitude;
+		this.fixQuality = fixQuality;
+		this.satelliteCount = satelliteCount;
+		this.gpsFixStatus = gpsFixStatus;
+		this.calculatedHorizontalAccuracyInMeters = calculatedHorizontalAccuracyInMeters;
+		this.ubloxHorizontalAccuracyInMeters = ubloxHorizontalAccuracyInMeters;
+		this.ubloxVerticalAccuracyInMeters = ubloxVerticalAccuracyInMeters;
+
+		int totalSatelliteCount = 0;
+		for (Integer count : satelliteCount.values()) {
+			if (count != null) {
+				totalSatelliteCount = totalSatelliteCount + count.intValue();
+			}
+		}
+		this.totalSatelliteCount = totalSatelliteCount;
+	}
+
+	/**
+	 * Returns a copy of this status with the position data of a new fix.
+	 *
+	 * @param latitude The latitude, may be null
+	 * @param longitude The longitude, may be null
+	 * @param altitude The altitude, may be null
+	 * @param fixQuality The fix quality, may be null
+	 * @return The new status
+	 */
+	public GnssStatus withPosition(Double latitude, Double longitude, Double altitude, GpsFixQuality fixQuality) {
+		return this.withPosition(latitude, longitude, altitude, fixQuality, null);
+	}
+
+	/**
+	 * Returns a copy of this status with the position data of a new fix and
+	 * the horizontal accuracy calculated from it, so both are published together.
+	 *
+	 * @param latitude The latitude, may be null
+	 * @param longitude The longitude, may be null
+	 * @param altitude The altitude, may be null
+	 * @param fixQuality The fix quality, may be null
+	 * @param calculatedHorizontalAccuracyInMeters The calculated accuracy, null to keep the current one
+	 * @return The new status
+	 */
+	public GnssStatus withPosition(Double latitude, Double longitude, Double altitude, GpsFixQuality fixQuality,
+			Double calculatedHorizontalAccuracyInMeters) {
+		return new GnssStatus(this.version + 1, altitude, longitude, latitude, fixQuality, this.satelliteCount,
+				this.gpsFixStatus,
+				calculatedHorizontalAccuracyInMeters != null
+						? calculatedHorizontalAccuracyInMeters : this.calculatedHorizontalAccuracyInMeters,
+				this.ubloxHorizontalAccuracyInMeters, this.ubloxVerticalAccuracyInMeters);
+	}
+
+	/**
+	 * Returns a copy of this status with the number of satellites in view of a {@link GnssProvider}.
+	 *
+	 * @param gnssProvider The GNSS provider
+	 * @param count The number of satellites in view
+	 * @return The new status
+	 */
+	public GnssStatus withSatelliteCount(GnssProvider gnssProvider, int count) {
+		final Map<GnssProvider, Integer> satelliteCount = new EnumMap<>(GnssProvider.class);
+		satelliteCount.putAll(this.satelliteCount);
+		satelliteCount.put(gnssProvider, count);
+		return new GnssStatus(this.version + 1, this.altitude, this.longitude, this.latitude, this.fixQuality,
+				Collections.unmodifiableMap(satelliteCount), this.gpsFixStatus, this.calculatedHorizontalAccuracyInMeters,
+				this.ubloxHorizontalAccuracyInMeters, this.ubloxVerticalAccuracyInMeters);
+	}
+
+	/**
+	 * Returns a copy of this status with the fix status of a GSA sentence.
+	 *
+	 * @param gpsFixStatus The fix status, may be null
+	 * @return The new status
+	 */
+	public GnssStatus withGpsFixStatus(GpsFixStatus gpsFixStatus) {
+		return new GnssStatus(this.version + 1, this.altitude, this.longitude, this.latitude, this.fixQuality,
+				this.satelliteCount, gpsFixStatus, this.calculatedHorizontalAccuracyInMeters,
+				this.ubloxHorizontalAccuracyInMeters, this.ubloxVerticalAccuracyInMeters);
+	}
+
+	/**
+	 * Returns a copy of this status with the horizontal accuracy calculated from recent positions.
+	 *
+	 * @param calculatedHorizontalAccuracyInMeters The accuracy, may be null
+	 * @return The new status
+	 */
+	public GnssStatus withCalculatedHorizontalAccuracyInMeters(Double calculatedHorizontalAccuracyInMeters) {
+		return new GnssStatus(this.version + 1, this.altitude, this.longitude, this.latitude, this.fixQuality,
+				this.satelliteCount, this.gpsFixStatus, calculatedHorizontalAccuracyInMeters,
+				this.ubloxHorizontalAccuracyInMeters, this.ubloxVerticalAccuracyInMeters);
+	}
+
+	/**
+	 * Returns a copy of this status with the accuracy estimates reported by a u-blox receiver.
+	 *
+	 * @param ubloxHorizontalAccuracyInMeters The horizontal accuracy, may be null
+	 * @param ubloxVerticalAccuracyInMeters The vertical accuracy, may be null
+	 * @return The new status
+	 */
+	public GnssStatus withUbloxAccuracyInMeters(Double ubloxHorizontalAccuracyInMeters, Double ubloxVerticalAccuracyInMeters) {
+		return new GnssStatus(this.version + 1, this.altitude, this.longitude, this.latitude, this.fixQuality,
+				this.satelliteCount, this.gpsFixStatus, this.calculatedHorizontalAccuracyInMeters,
+				ubloxHorizontalAccuracyInMeters, ubloxVerticalAccuracyInMeters);
+	}
+
+	/**
+	 * @return The version of this snapshot, incremented with every update
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+	public Double getAltitude() {
+		return this.altitude;
 	}
 	public GpsFixQuality getFixQuality() {
 		return this.fixQuality;
 	}
-	public void setFixQuality(GpsFixQuality fixQuality) {
-		this.fixQuality = fixQuality;
-	}
 	public Map<GnssProvider, Integer> getSatelliteCount() {
 		return this.satelliteCount;
 	}
-	public void setSatelliteCount(Map<GnssProvider, Integer> satelliteCount) {
-		this.satelliteCount = satelliteCount;
-	}
 	public GpsFixStatus getGpsFixStatus() {
 		return this.gpsFixStatus;
 	}
-	public void setGpsFixStatus(GpsFixStatus gpsFixStatus) {
-		this.gpsFixStatus = gpsFixStatus;
-	}
 	public Double getLongitude() {
 		return this.longitude;
 	}
-	public void setLongitude(Double longitude) {
-		this.longitude = longitude;
-	}
 	public Double getLatitude() {
 		return this.latitude;
 	}
-	public void setLatitude(Double latitude) {
-		this.latitude = latitude;
-	}
-
 	public Double getCalculatedHorizontalAccuracyInMeters() {
-		return calculatedHorizontalAccuracyInMeters;
-	}
-	public void setCalculatedHorizontalAccuracyInMeters(Double calculatedHorizontalAccuracyInMeters) {
-		this.calculatedHorizontalAccuracyInMeters = calculatedHorizontalAccuracyInMeters;
+		return this.calculatedHorizontalAccuracyInMeters;
 	}
 	public Double getUbloxHorizontalAccuracyInMeters() {
-		return ubloxHorizontalAccuracyInMeters;
-	}
-	public void setUbloxHorizontalAccuracyInMeters(Double ubloxHorizontalAccuracyInMeters) {
-		this.ubloxHorizontalAccuracyInMeters = ubloxHorizontalAccuracyInMeters;
+		return this.ubloxHorizontalAccuracyInMeters;
 	}
 	public Double getUbloxVerticalAccuracyInMeters() {
-		return ubloxVerticalAccuracyInMeters;
+		return this.ubloxVerticalAccuracyInMeters;
 	}
-	public void setUbloxVerticalAccuracyInMeters(Double ubloxVerticalAccuracyInMeters) {
-		this.ubloxVerticalAccuracyInMeters = ubloxVerticalAccuracyInMeters;
+	public int getTotalSatelliteCount() {
+		return this.totalSatelliteCount;
 	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -164,7 +275,9 @@ public class GnssStatus {
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
-		builder.append("GnssStatus [altitude=");
+		builder.append("GnssStatus [version=");
+		builder.append(this.version);
+		builder.append(", altitude=");
 		builder.append(this.altitude);
 		builder.append(", longitude=");
 		builder.append(this.longitude);
@@ -179,14 +292,4 @@ public class GnssStatus {
 		builder.append("]");
 		return builder.toString();
 	}
-
-	public int getTotalSatelliteCount() {
-		int totalSatelliteCount = 0;
-		for (Map.Entry<GnssProvider, Integer> satelliteCountEntry : this.satelliteCount.entrySet()) {
-			if (satelliteCountEntry.getValue() != null) {
-				totalSatelliteCount = totalSatelliteCount + satelliteCountEntry.getValue().intValue();
-			}
-		}
-		return totalSatelliteCount;
-	}
 }
@@ -15,6 +15,18 @@
  */
 package com.hillert.gnss.demo.model;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A satellite in view. Satellites received on more than one signal are merged
+ * into a single instance that holds the signal-to-noise ratio per
+ * {@link SignalId}. Instances are immutable.
+ *
+ * @author Gunnar Hillert
+ *
+ */
 public class Satellite implements Comparable<Satellite>{
 
 	private final GnssProvider gnssProvider;
@@ -22,6 +34,7 @@ public class Satellite implements Comparable<Satellite>{
 	private final int elevation;
 	private final int azimuth;
 	private final int noise;
+	private final Map<SignalId, Integer> signalNoise;
 
 	public Satellite(GnssProvider gnssProvider, String id, int elevation, int azimuth, int noise) {
 		super();
@@ -30,6 +43,22 @@ public class Satellite implements Comparable<Satellite>{
 		this.elevation = elevation;
 		this.azimuth = azimuth;
 		this.noise = noise;
+		this.signalNoise = Collections.emptyMap();
+	}
+
+	public Satellite(GnssProvider gnssProvider, String id, int elevation, int azimuth,
+			Map<SignalId, Integer> signalNoise) {
+		super();
+		this.gnssProvider = gnssProvider;
+		this.id = id;
+		this.elevation = elevation;
+		this.azimuth = azimuth;
+		this.signalNoise = Collections.unmodifiableMap(signalNoise);
+		int noise = -1;
+		for (Integer signal : signalNoise.values()) {
+			noise = Math.max(noise, signal);
+		}
+		this.noise = noise;
 	}
 
 	public GnssProvider getGnssProvider() {
@@ -48,10 +77,20 @@ public class Satellite implements Comparable<Satellite>{
 		return azimuth;
 	}
 
+	/**
+	 * @return The signal-to-noise ratio, the highest one of all signals for merged satellites
+	 */
 	public int getNoise() {
 		return noise;
 	}
 
+	/**
+	 * @return The signal-to-noise ratio per signal, empty if the satellite was not merged
+	 */
+	public Map<SignalId, Integer> getSignalNoise() {
+		return signalNoise;
+	}
+
 	@Override
 	public int compareTo(Satellite otherSatellite) {
 		return this.getId().compareTo(otherSatellite.getId());
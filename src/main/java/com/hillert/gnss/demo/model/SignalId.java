@@ -16,34 +16,98 @@
 
 package com.hillert.gnss.demo.model;
 
+import java.util.Arrays;
+
 import org.springframework.util.Assert;
 
 /**
- * Defines Bluetooth Service Classes supported by the application.
+ * Defines the GNSS signals by their NMEA 4.11 signal ids, which are only unique
+ * per {@link GnssProvider}. Signals are resolved using a table indexed by the
+ * GNSS provider and the signal id.
  *
  * @author Gunnar Hillert
- * @see <a href="https://www.bluetooth.com/specifications/assigned-numbers/service-discovery">
- *   https://www.bluetooth.com/specifications/assigned-numbers/service-discovery</a>
+ * @see <a href="https://www.nmea.org/content/STANDARDS/NMEA_0183_Standard">NMEA 0183</a>
  *
  */
 public enum SignalId {
 
 	GPS_L1(GnssProvider.GPS , 1, "GPS L1C/A"),
-	GPS_L2CL(GnssProvider.GPS , 6, "GPS L2 CL"),
+	GPS_L1P(GnssProvider.GPS , 2, "GPS L1 P(Y)"),
+	GPS_L1M(GnssProvider.GPS , 3, "GPS L1 M"),
+	GPS_L2P(GnssProvider.GPS , 4, "GPS L2 P(Y)"),
 	GPS_L2CM(GnssProvider.GPS , 5, "GPS L2 CM"),
+	GPS_L2CL(GnssProvider.GPS , 6, "GPS L2 CL"),
+	GPS_L5I(GnssProvider.GPS , 7, "GPS L5 I"),
+	GPS_L5Q(GnssProvider.GPS , 8, "GPS L5 Q"),
 
+	GLONASS_L1(GnssProvider.GLONASS , 1, "GLONASS L1 OF"),
+	GLONASS_L1P(GnssProvider.GLONASS , 2, "GLONASS L1 P"),
+	GLONASS_L2(GnssProvider.GLONASS , 3, "GLONASS L2 OF"),
+	GLONASS_L2P(GnssProvider.GLONASS , 4, "GLONASS L2 P"),
+
+	GALILEO_E5A(GnssProvider.GALILEO , 1, "Galileo E5a"),
+	GALILEO_E5 (GnssProvider.GALILEO , 2, "Galileo E5b"),
+	GALILEO_E5AB(GnssProvider.GALILEO , 3, "Galileo E5 a+b"),
+	GALILEO_E6A(GnssProvider.GALILEO , 4, "Galileo E6-A"),
+	GALILEO_E6BC(GnssProvider.GALILEO , 5, "Galileo E6-BC"),
+	GALILEO_L1A(GnssProvider.GALILEO , 6, "Galileo L1-A"),
 	GALILEO_E1(GnssProvider.GALILEO , 7, "Galileo E1"),
-	GALILEO_E5 (GnssProvider.GALILEO , 2, "Galileo E5"),
 
 	BAIDOU_B1I(GnssProvider.BAIDOU , 1, "BeiDou B1I"),
+	BAIDOU_B1Q(GnssProvider.BAIDOU , 2, "BeiDou B1Q"),
+	BAIDOU_B1C(GnssProvider.BAIDOU , 3, "BeiDou B1C"),
+	BAIDOU_B1A(GnssProvider.BAIDOU , 4, "BeiDou B1A"),
+	BAIDOU_B2A(GnssProvider.BAIDOU , 5, "BeiDou B2a"),
+	BAIDOU_B2B(GnssProvider.BAIDOU , 6, "BeiDou B2b"),
+	BAIDOU_B2AB(GnssProvider.BAIDOU , 7, "BeiDou B2 a+b"),
+	BAIDOU_B3I(GnssProvider.BAIDOU , 8, "BeiDou B3I"),
+	BAIDOU_B3Q(GnssProvider.BAIDOU , 9, "BeiDou B3Q"),
+	BAIDOU_B3A(GnssProvider.BAIDOU , 10, "BeiDou B3A"),
 	BAIDOU_B2I(GnssProvider.BAIDOU , 11, "BeiDou B2I"),
+	BAIDOU_B2Q(GnssProvider.BAIDOU , 12, "BeiDou B2Q"),
+
+	QZSS_L1(GnssProvider.QZSS , 1, "QZSS L1C/A"),
+	QZSS_L1CD(GnssProvider.QZSS , 2, "QZSS L1C (D)"),
+	QZSS_L1CP(GnssProvider.QZSS , 3, "QZSS L1C (P)"),
+	QZSS_L1S(GnssProvider.QZSS , 4, "QZSS L1S"),
+	QZSS_L2CM(GnssProvider.QZSS , 5, "QZSS L2 CM"),
+	QZSS_L2CL(GnssProvider.QZSS , 6, "QZSS L2 CL"),
+	QZSS_L5I(GnssProvider.QZSS , 7, "QZSS L5 I"),
+	QZSS_L5Q(GnssProvider.QZSS , 8, "QZSS L5 Q"),
+	QZSS_L6D(GnssProvider.QZSS , 9, "QZSS L6D"),
+	QZSS_L6E(GnssProvider.QZSS , 10, "QZSS L6E"),
+
+	NAVIC_L5SPS(GnssProvider.NAVIC , 1, "NavIC L5 SPS"),
+	NAVIC_SSPS(GnssProvider.NAVIC , 2, "NavIC S SPS"),
+	NAVIC_L5RS(GnssProvider.NAVIC , 3, "NavIC L5 RS"),
+	NAVIC_SRS(GnssProvider.NAVIC , 4, "NavIC S RS"),
+	NAVIC_L1SPS(GnssProvider.NAVIC , 5, "NavIC L1 SPS"),
+
+	/**
+	 * Returned for unknown signals and used for satellites whose signal is not
+	 * known, e.g. as the sentences predate NMEA 4.10.
+	 */
+	UNKNOWN(null, null, "Unknown");
+
+	/**
+	 * Number of signal ids per GNSS provider, NMEA uses a single hex digit.
+	 */
+	private static final int SIGNAL_IDS = 16;
+
+	private static final SignalId[] SIGNALS = new SignalId[GnssProvider.values().length * SIGNAL_IDS];
+
+	static {
+		Arrays.fill(SIGNALS, UNKNOWN);
+		for (SignalId signalId : SignalId.values()) {
+			if (signalId != UNKNOWN) {
+				SIGNALS[signalId.getGnssProvider().ordinal() * SIGNAL_IDS + signalId.getSignalId()] = signalId;
+			}
+		}
+	}
 
-	GLONASS_L1(GnssProvider.GLONASS , 1, "GLONASS L1 OF"),
-	GLONASS_L2(GnssProvider.GLONASS , 3, "GLONASS L2 OF");
-
-	private GnssProvider gnssProvider;
-	private Integer signalId;
-	private String name;
+	private final GnssProvider gnssProvider;
+	private final Integer signalId;
+	private final String name;
 
 	SignalId(GnssProvider gnssProvider, Integer signalId, String name) {
 		this.gnssProvider = gnssProvider;
@@ -51,21 +115,28 @@ public enum SignalId {
 		this.name = name;
 	}
 
+	/**
+	 * @param gnssProvider The GNSS provider
+	 * @param signalIdToConvert The NMEA signal id, may be null
+	 * @return The signal or {@link #UNKNOWN}
+	 */
 	public static SignalId fromKey(GnssProvider gnssProvider, Integer signalIdToConvert) {
+		return fromKey(gnssProvider, signalIdToConvert != null ? signalIdToConvert : -1);
+	}
+
+	/**
+	 * @param gnssProvider The GNSS provider
+	 * @param signalIdToConvert The NMEA signal id
+	 * @return The signal or {@link #UNKNOWN}
+	 */
+	public static SignalId fromKey(GnssProvider gnssProvider, int signalIdToConvert) {
 
 		Assert.notNull(gnssProvider, "Parameter gnssProvider must not be null.");
-		//Assert.notNull(signalIdToConvert, "Parameter signalIdToConvert must not be null.");
 
-		for (SignalId signalId : SignalId.values()) {
-			if (signalId.getGnssProvider().equals(gnssProvider) &&
-				signalId.getSignalId().equals(signalIdToConvert)) {
-				return signalId;
-			}
+		if (signalIdToConvert < 0 || signalIdToConvert >= SIGNAL_IDS) {
+			return UNKNOWN;
 		}
-		return null;
-//		throw new IllegalArgumentException(String.format("Unable to find SignalId for gnssProvider %s and signalId %s.",
-//				gnssProvider, signalIdToConvert));
-
+		return SIGNALS[gnssProvider.ordinal() * SIGNAL_IDS + signalIdToConvert];
 	}
 
 	public String getName() {
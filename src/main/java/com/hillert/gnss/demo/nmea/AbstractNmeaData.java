@@ -0,0 +1,92 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Base class of the mutable, reusable data holders populated by the
+ * {@link NmeaParser}. Missing values are represented by sentinel values
+ * ({@code -1} for integers, {@link Double#NaN} for decimals) which can be
+ * checked using the {@code is...Available()} methods.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public abstract class AbstractNmeaData {
+
+	private String talkerId;
+
+	/**
+	 * Returns the sentence id of the data.
+	 * @return The sentence id
+	 */
+	public abstract SentenceId getSentenceId();
+
+	/**
+	 * Returns the talker id, e.g. {@code GP} for GPS or {@code GN} for combined
+	 * GNSS solutions.
+	 *
+	 * @return The talker id
+	 */
+	public String getTalkerId() {
+		return this.talkerId;
+	}
+
+	/**
+	 * Clears all values, so the instance can be reused.
+	 */
+	public void reset() {
+		this.talkerId = null;
+	}
+
+	void setTalkerId(char first, char second) {
+		this.talkerId = toTalkerId(first, second);
+	}
+
+	/**
+	 * Returns the talker id for the provided characters. Common talker ids are
+	 * returned as constants, so no {@link String} is allocated.
+	 */
+	private static String toTalkerId(char first, char second) {
+		if (first == 'G') {
+			switch (second) {
+				case 'P':
+					return "GP";
+				case 'L':
+					return "GL";
+				case 'A':
+					return "GA";
+				case 'B':
+					return "GB";
+				case 'N':
+					return "GN";
+				case 'Q':
+					return "GQ";
+				case 'I':
+					return "GI";
+				default:
+					break;
+			}
+		}
+		else if (first == 'B' && second == 'D') {
+			return "BD";
+		}
+		return new String(new char[] { first, second });
+	}
+
+}
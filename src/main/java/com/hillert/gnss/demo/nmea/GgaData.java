@@ -0,0 +1,166 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Data of a GGA (Global positioning system fix data) sentence, populated by
+ * the {@link NmeaParser}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class GgaData extends AbstractNmeaData {
+
+	private int timeOfDay;
+	private double latitude;
+	private double longitude;
+	private int fixQuality;
+	private int satellitesInUse;
+	private double horizontalDilution;
+	private double altitude;
+	private double geoidalHeight;
+
+	public GgaData() {
+		this.reset();
+	}
+
+	@Override
+	public SentenceId getSentenceId() {
+		return SentenceId.GGA;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		this.timeOfDay = -1;
+		this.latitude = Double.NaN;
+		this.longitude = Double.NaN;
+		this.fixQuality = -1;
+		this.satellitesInUse = -1;
+		this.horizontalDilution = Double.NaN;
+		this.altitude = Double.NaN;
+		this.geoidalHeight = Double.NaN;
+	}
+
+	/**
+	 * Returns the UTC time of the position.
+	 * @return The milliseconds since midnight (UTC) or -1 if not available
+	 */
+	public int getTimeOfDay() {
+		return this.timeOfDay;
+	}
+
+	/**
+	 * Returns whether latitude and longitude are available.
+	 * @return true if the position is available
+	 */
+	public boolean isPositionAvailable() {
+		return !Double.isNaN(this.latitude) && !Double.isNaN(this.longitude);
+	}
+
+	/**
+	 * Returns the latitude in decimal degrees, negative for the southern hemisphere.
+	 * @return The latitude or {@link Double#NaN} if not available
+	 */
+	public double getLatitude() {
+		return this.latitude;
+	}
+
+	/**
+	 * Returns the longitude in decimal degrees, negative for the western hemisphere.
+	 * @return The longitude or {@link Double#NaN} if not available
+	 */
+	public double getLongitude() {
+		return this.longitude;
+	}
+
+	/**
+	 * Returns the fix quality indicator, e.g. 0 (invalid), 1 (GPS fix) or 4 (RTK fixed).
+	 * @return The fix quality or -1 if not available
+	 */
+	public int getFixQuality() {
+		return this.fixQuality;
+	}
+
+	/**
+	 * Returns the number of satellites used for the position.
+	 * @return The number of satellites or -1 if not available
+	 */
+	public int getSatellitesInUse() {
+		return this.satellitesInUse;
+	}
+
+	/**
+	 * Returns the horizontal dilution of precision.
+	 * @return The HDOP or {@link Double#NaN} if not available
+	 */
+	public double getHorizontalDilution() {
+		return this.horizontalDilution;
+	}
+
+	/**
+	 * Returns whether the altitude is available.
+	 * @return true if the altitude is available
+	 */
+	public boolean isAltitudeAvailable() {
+		return !Double.isNaN(this.altitude);
+	}
+
+	/**
+	 * Returns the altitude above mean sea level in meters.
+	 * @return The altitude or {@link Double#NaN} if not available
+	 */
+	public double getAltitude() {
+		return this.altitude;
+	}
+
+	/**
+	 * Returns the height of the geoid above the WGS84 ellipsoid in meters.
+	 * @return The geoidal height or {@link Double#NaN} if not available
+	 */
+	public double getGeoidalHeight() {
+		return this.geoidalHeight;
+	}
+
+	void setTimeOfDay(int timeOfDay) {
+		this.timeOfDay = timeOfDay;
+	}
+	void setLatitude(double latitude) {
+		this.latitude = latitude;
+	}
+	void setLongitude(double longitude) {
+		this.longitude = longitude;
+	}
+	void setFixQuality(int fixQuality) {
+		this.fixQuality = fixQuality;
+	}
+	void setSatellitesInUse(int satellitesInUse) {
+		this.satellitesInUse = satellitesInUse;
+	}
+	void setHorizontalDilution(double horizontalDilution) {
+		this.horizontalDilution = horizontalDilution;
+	}
+	void setAltitude(double altitude) {
+		this.altitude = altitude;
+	}
+	void setGeoidalHeight(double geoidalHeight) {
+		this.geoidalHeight = geoidalHeight;
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Data of a GSA (GNSS DOP and active satellites) sentence, populated by the
+ * {@link NmeaParser}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class GsaData extends AbstractNmeaData {
+
+	/**
+	 * Maximum number of satellite ids in a GSA sentence.
+	 */
+	public static final int MAX_SATELLITES = 12;
+
+	private final int[] satelliteIds = new int[MAX_SATELLITES];
+
+	private char mode;
+	private int fixType;
+	private int satelliteCount;
+	private double positionDilution;
+	private double horizontalDilution;
+	private double verticalDilution;
+	private int systemId;
+
+	public GsaData() {
+		this.reset();
+	}
+
+	@Override
+	public SentenceId getSentenceId() {
+		return SentenceId.GSA;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		this.mode = 0;
+		this.fixType = -1;
+		this.satelliteCount = 0;
+		this.positionDilution = Double.NaN;
+		this.horizontalDilution = Double.NaN;
+		this.verticalDilution = Double.NaN;
+		this.systemId = -1;
+	}
+
+	/**
+	 * Returns the selection mode, {@code M} (manual) or {@code A} (automatic).
+	 * @return The mode or {@code 0} if not available
+	 */
+	public char getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * Returns the fix type: 1 (no fix), 2 (2D fix) or 3 (3D fix).
+	 * @return The fix type or -1 if not available
+	 */
+	public int getFixType() {
+		return this.fixType;
+	}
+
+	/**
+	 * Returns the number of satellite ids used for the fix.
+	 * @return The number of satellite ids
+	 */
+	public int getSatelliteCount() {
+		return this.satelliteCount;
+	}
+
+	/**
+	 * Returns the satellite id at the provided index.
+	 * @param index The index, less than {@link #getSatelliteCount()}
+	 * @return The satellite id
+	 */
+	public int getSatelliteId(int index) {
+		return this.satelliteIds[index];
+	}
+
+	/**
+	 * Returns the position dilution of precision.
+	 * @return The PDOP or {@link Double#NaN} if not available
+	 */
+	public double getPositionDilution() {
+		return this.positionDilution;
+	}
+
+	/**
+	 * Returns the horizontal dilution of precision.
+	 * @return The HDOP or {@link Double#NaN} if not available
+	 */
+	public double getHorizontalDilution() {
+		return this.horizontalDilution;
+	}
+
+	/**
+	 * Returns the vertical dilution of precision.
+	 * @return The VDOP or {@link Double#NaN} if not available
+	 */
+	public double getVerticalDilution() {
+		return this.verticalDilution;
+	}
+
+	/**
+	 * Returns the GNSS system id (NMEA 4.10 and later).
+	 * @return The system id or -1 if not available
+	 */
+	public int getSystemId() {
+		return this.systemId;
+	}
+
+	void setMode(char mode) {
+		this.mode = mode;
+	}
+	void setFixType(int fixType) {
+		this.fixType = fixType;
+	}
+	void addSatelliteId(int satelliteId) {
+		if (this.satelliteCount < MAX_SATELLITES) {
+			this.satelliteIds[this.satelliteCount++] = satelliteId;
+		}
+	}
+	void setPositionDilution(double positionDilution) {
+		this.positionDilution = positionDilution;
+	}
+	void setHorizontalDilution(double horizontalDilution) {
+		this.horizontalDilution = horizontalDilution;
+	}
+	void setVerticalDilution(double verticalDilution) {
+		this.verticalDilution = verticalDilution;
+	}
+	void setSystemId(int systemId) {
+		this.systemId = systemId;
+	}
+
+}
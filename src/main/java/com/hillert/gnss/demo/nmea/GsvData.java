@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Data of a GSV (GNSS satellites in view) sentence, populated by the
+ * {@link NmeaParser}. A single sentence holds up to 4 satellites.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class GsvData extends AbstractNmeaData {
+
+	/**
+	 * Maximum number of satellites in a GSV sentence.
+	 */
+	public static final int MAX_SATELLITES = 4;
+
+	private final int[] satelliteIds = new int[MAX_SATELLITES];
+	private final int[] elevations = new int[MAX_SATELLITES];
+	private final int[] azimuths = new int[MAX_SATELLITES];
+	private final int[] noises = new int[MAX_SATELLITES];
+
+	private int sentenceCount;
+	private int sentenceIndex;
+	private int satelliteCount;
+	private int satellitesInSentence;
+	private int signalId;
+
+	public GsvData() {
+		this.reset();
+	}
+
+	@Override
+	public SentenceId getSentenceId() {
+		return SentenceId.GSV;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		this.sentenceCount = -1;
+		this.sentenceIndex = -1;
+		this.satelliteCount = -1;
+		this.satellitesInSentence = 0;
+		this.signalId = -1;
+	}
+
+	/**
+	 * Returns the total number of GSV sentences of this talker (and signal).
+	 * @return The number of sentences or -1 if not available
+	 */
+	public int getSentenceCount() {
+		return this.sentenceCount;
+	}
+
+	/**
+	 * Returns the 1-based index of this sentence.
+	 * @return The index or -1 if not available
+	 */
+	public int getSentenceIndex() {
+		return this.sentenceIndex;
+	}
+
+	/**
+	 * Returns the total number of satellites in view.
+	 * @return The number of satellites in view or -1 if not available
+	 */
+	public int getSatelliteCount() {
+		return this.satelliteCount;
+	}
+
+	/**
+	 * Returns the number of satellites contained in this sentence.
+	 * @return The number of satellites, 0 to {@link #MAX_SATELLITES}
+	 */
+	public int getSatellitesInSentence() {
+		return this.satellitesInSentence;
+	}
+
+	/**
+	 * Returns the id of the satellite at the provided index.
+	 * @param index The index, less than {@link #getSatellitesInSentence()}
+	 * @return The satellite id or -1 if not available
+	 */
+	public int getSatelliteId(int index) {
+		return this.satelliteIds[index];
+	}
+
+	/**
+	 * Returns the elevation of the satellite at the provided index.
+	 * @param index The index, less than {@link #getSatellitesInSentence()}
+	 * @return The elevation in degrees or -1 if not available
+	 */
+	public int getElevation(int index) {
+		return this.elevations[index];
+	}
+
+	/**
+	 * Returns the azimuth of the satellite at the provided index.
+	 * @param index The index, less than {@link #getSatellitesInSentence()}
+	 * @return The azimuth in degrees or -1 if not available
+	 */
+	public int getAzimuth(int index) {
+		return this.azimuths[index];
+	}
+
+	/**
+	 * Returns the signal strength (C/N0) of the satellite at the provided index.
+	 * @param index The index, less than {@link #getSatellitesInSentence()}
+	 * @return The signal strength in dBHz or -1 if not tracked
+	 */
+	public int getNoise(int index) {
+		return this.noises[index];
+	}
+
+	/**
+	 * Returns the signal id (NMEA 4.10 and later).
+	 * @return The signal id or -1 if not available
+	 */
+	public int getSignalId() {
+		return this.signalId;
+	}
+
+	void setSentenceCount(int sentenceCount) {
+		this.sentenceCount = sentenceCount;
+	}
+	void setSentenceIndex(int sentenceIndex) {
+		this.sentenceIndex = sentenceIndex;
+	}
+	void setSatelliteCount(int satelliteCount) {
+		this.satelliteCount = satelliteCount;
+	}
+	void addSatellite(int satelliteId, int elevation, int azimuth, int noise) {
+		if (this.satellitesInSentence < MAX_SATELLITES) {
+			final int index = this.satellitesInSentence++;
+			this.satelliteIds[index] = satelliteId;
+			this.elevations[index] = elevation;
+			this.azimuths[index] = azimuth;
+			this.noises[index] = noise;
+		}
+	}
+	void setSignalId(int signalId) {
+		this.signalId = signalId;
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+/**
+ * Helper methods to inspect NMEA frames directly on their bytes, without
+ * creating any {@link String}s.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public final class NmeaBytes {
+
+	private NmeaBytes() {
+		throw new AssertionError("This is a utility class and must not be instantiated.");
+	}
+
+	/**
+	 * Checks whether the frame is of the given three-letter sentence type, ignoring
+	 * the talker id, e.g. {@code GGA} matches {@code $GPGGA} as well as {@code $GNGGA}.
+	 *
+	 * @param frame The buffer holding the frame
+	 * @param offset The offset of the start byte ({@code $} or {@code !})
+	 * @param length The length of the frame
+	 * @param sentenceType The three-letter sentence type, e.g. {@code GGA}
+	 * @return true if the frame is of the given sentence type
+	 */
+	public static boolean isSentenceType(byte[] frame, int offset, int length, String sentenceType) {
+		return length > 6
+				&& frame[offset + 3] == sentenceType.charAt(0)
+				&& frame[offset + 4] == sentenceType.charAt(1)
+				&& frame[offset + 5] == sentenceType.charAt(2)
+				&& frame[offset + 6] == ',';
+	}
+
+	/**
+	 * Parses an NMEA UTC time field ({@code hhmmss.sss}) into milliseconds since
+	 * midnight.
+	 *
+	 * @param frame The buffer holding the frame
+	 * @param offset The offset of the first digit of the time field
+	 * @param end The index after the last byte of the frame
+	 * @return The milliseconds since midnight or -1 if the field is empty or malformed
+	 */
+	public static int parseTimeOfDay(byte[] frame, int offset, int end) {
+		if (end - offset < 6) {
+			return -1;
+		}
+
+		final int hours = parseTwoDigits(frame, offset);
+		final int minutes = parseTwoDigits(frame, offset + 2);
+		final int seconds = parseTwoDigits(frame, offset + 4);
+		if (hours < 0 || minutes < 0 || seconds < 0) {
+			return -1;
+		}
+
+		int millis = 0;
+		int index = offset + 6;
+		if (index < end && frame[index] == '.') {
+			int scale = 100;
+			for (index++; index < end && isDigit(frame[index]); index++) {
+				millis += (frame[index] - '0') * scale;
+				scale /= 10;
+			}
+		}
+		return ((hours * 60 + minutes) * 60 + seconds) * 1000 + millis;
+	}
+
+	/**
+	 * Returns the index of the first byte of the n-th field (0 being the address
+	 * field, e.g. {@code $GPGGA}).
+	 *
+	 * @param frame The buffer holding the frame
+	 * @param offset The offset of the start byte ({@code $} or {@code !})
+	 * @param end The index after the last byte of the frame
+	 * @param field The field to look up
+	 * @return The index of the field or -1 if the frame has fewer fields
+	 */
+	public static int indexOfField(byte[] frame, int offset, int end, int field) {
+		int index = offset;
+		for (int i = 0; i < field; i++) {
+			while (index < end && frame[index] != ',' && frame[index] != '*') {
+				index++;
+			}
+			if (index >= end || frame[index] == '*') {
+				return -1;
+			}
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns whether the provided byte is an ASCII digit.
+	 * @param b The byte to check
+	 * @return true if the byte is a digit
+	 */
+	public static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	private static int parseTwoDigits(byte[] frame, int offset) {
+		final byte first = frame[offset];
+		final byte second = frame[offset + 1];
+		if (!isDigit(first) || !isDigit(second)) {
+			return -1;
+		}
+		return (first - '0') * 10 + (second - '0');
+	}
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+/**
+ * Allocation-free cursor over the comma-separated fields of a single NMEA
+ * sentence. Values are decoded straight from the characters of the sentence into
+ * primitives. Missing (empty) or malformed fields are reported using sentinel
+ * values ({@link #MISSING} for integers, {@link Double#NaN} for decimals) rather
+ * than exceptions. Instances are reusable but not thread-safe.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+final class NmeaFieldReader {
+
+	/**
+	 * Sentinel returned for missing or malformed integer fields.
+	 */
+	static final int MISSING = -1;
+
+	private static final double[] POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+		1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+	};
+
+	private CharSequence sentence;
+	private int end;
+	private int next;
+	private int fieldStart;
+	private int fieldEnd;
+
+	/**
+	 * Positions the reader in front of the first data field, i.e. the field
+	 * following the address field (e.g. {@code $GPGGA}).
+	 *
+	 * @param sentence The sentence to read
+	 * @return false if the sentence has no data fields
+	 */
+	boolean reset(CharSequence sentence) {
+		this.sentence = sentence;
+		int end = sentence.length();
+		for (int i = 0; i < end; i++) {
+			final char c = sentence.charAt(i);
+			if (c == '*' || c == '\r' || c == '\n') {
+				end = i;
+				break;
+			}
+		}
+		this.end = end;
+		this.next = end + 1;
+		for (int i = 0; i < end; i++) {
+			if (sentence.charAt(i) == ',') {
+				this.next = i + 1;
+				break;
+			}
+		}
+		this.fieldStart = this.next;
+		this.fieldEnd = this.next;
+		return this.next <= end;
+	}
+
+	/**
+	 * Advances to the next field.
+	 *
+	 * @return false if there are no more fields
+	 */
+	boolean next() {
+		if (this.next > this.end) {
+			this.fieldStart = this.end;
+			this.fieldEnd = this.end;
+			return false;
+		}
+		this.fieldStart = this.next;
+		int i = this.next;
+		while (i < this.end && this.sentence.charAt(i) != ',') {
+			i++;
+		}
+		this.fieldEnd = i;
+		this.next = i + 1;
+		return true;
+	}
+
+	/**
+	 * Returns the number of fields after the current field.
+	 * @return The number of remaining fields
+	 */
+	int remainingFields() {
+		if (this.next > this.end) {
+			return 0;
+		}
+		int count = 1;
+		for (int i = this.next; i < this.end; i++) {
+			if (this.sentence.charAt(i) == ',') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns whether the current field is empty.
+	 * @return true if the field is empty
+	 */
+	boolean isEmpty() {
+		return this.fieldStart >= this.fieldEnd;
+	}
+
+	/**
+	 * Returns the first character of the current field.
+	 * @return The character or {@code 0} if the field is empty
+	 */
+	char charValue() {
+		return this.isEmpty() ? 0 : this.sentence.charAt(this.fieldStart);
+	}
+
+	/**
+	 * Decodes the current field as a non-negative integer. A fractional part is ignored.
+	 * @return The value or {@link #MISSING}
+	 */
+	int intValue() {
+		if (this.isEmpty()) {
+			return MISSING;
+		}
+		int value = 0;
+		for (int i = this.fieldStart; i < this.fieldEnd; i++) {
+			final char c = this.sentence.charAt(i);
+			if (c == '.') {
+				break;
+			}
+			if (c < '0' || c > '9') {
+				return MISSING;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Decodes the current field as a decimal number.
+	 * @return The value or {@link Double#NaN}
+	 */
+	double doubleValue() {
+		return this.parseDouble(this.fieldStart, this.fieldEnd);
+	}
+
+	/**
+	 * Decodes the current field as a UTC time of day ({@code hhmmss.sss}).
+	 * @return The milliseconds since midnight or {@link #MISSING}
+	 */
+	int timeOfDay() {
+		if (this.fieldEnd - this.fieldStart < 6) {
+			return MISSING;
+		}
+		final int hours = this.twoDigits(this.fieldStart);
+		final int minutes = this.twoDigits(this.fieldStart + 2);
+		final double seconds = this.parseDouble(this.fieldStart + 4, this.fieldEnd);
+		if (hours < 0 || minutes < 0 || Double.isNaN(seconds)) {
+			return MISSING;
+		}
+		return (hours * 3600 + minutes * 60) * 1000 + (int) Math.round(seconds * 1000);
+	}
+
+	/**
+	 * Decodes the current field as a date ({@code ddmmyy}).
+	 * @return The date as {@code ddmmyy} integer or {@link #MISSING}
+	 */
+	int date() {
+		return this.fieldEnd - this.fieldStart == 6 ? this.intValue() : MISSING;
+	}
+
+	/**
+	 * Decodes the current field as a latitude or longitude ({@code (d)ddmm.mmmm})
+	 * and advances to the hemisphere field following it.
+	 *
+	 * @param negativeHemisphere The hemisphere indicating a negative value, {@code S} or {@code W}
+	 * @return The coordinate in decimal degrees or {@link Double#NaN}
+	 */
+	double coordinate(char negativeHemisphere) {
+		final double value = this.parseDouble(this.fieldStart, this.fieldEnd);
+		this.next();
+		if (Double.isNaN(value) || this.isEmpty()) {
+			return Double.NaN;
+		}
+		final double degrees = Math.floor(value / 100);
+		final double decimalDegrees = degrees + (value - degrees * 100) / 60;
+		return this.charValue() == negativeHemisphere ? -decimalDegrees : decimalDegrees;
+	}
+
+	private int twoDigits(int offset) {
+		final char c1 = this.sentence.charAt(offset);
+		final char c2 = this.sentence.charAt(offset + 1);
+		if (c1 < '0' || c1 > '9' || c2 < '0' || c2 > '9') {
+			return MISSING;
+		}
+		return (c1 - '0') * 10 + (c2 - '0');
+	}
+
+	private double parseDouble(int start, int end) {
+		if (start >= end) {
+			return Double.NaN;
+		}
+		int i = start;
+		boolean negative = false;
+		final char first = this.sentence.charAt(i);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int scale = -1;
+		int digits = 0;
+		for (; i < end; i++) {
+			final char c = this.sentence.charAt(i);
+			if (c == '.') {
+				if (scale >= 0) {
+					return Double.NaN;
+				}
+				scale = 0;
+				continue;
+			}
+			if (c < '0' || c > '9') {
+				return Double.NaN;
+			}
+			if (digits < 18) {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (scale >= 0) {
+					scale++;
+				}
+			}
+			else if (scale < 0) {
+				return Double.NaN;
+			}
+		}
+		if (digits == 0) {
+			return Double.NaN;
+		}
+		final double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+		return negative ? -value : value;
+	}
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import org.springframework.util.Assert;
+
+/**
+ * Splits a raw byte stream into NMEA frames without allocating any objects.
+ *
+ * Frames start with {@code $} (regular sentences) or {@code !} (encapsulated
+ * sentences) and end with {@code \r\n}. Every frame must carry a {@code *hh}
+ * checksum which is verified in place before the frame is handed over to the
+ * {@link FrameHandler}. Frames with an invalid or missing checksum are dropped.
+ * Bytes that do not belong to a frame (e.g. a partially received sentence after
+ * connecting or binary UBX data) are skipped until the next start byte.
+ *
+ * Instances are not thread-safe and are meant to be used by a single reader thread.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class NmeaFramer {
+
+	/**
+	 * The default maximum frame length. NMEA 0183 limits sentences to 82 characters,
+	 * but proprietary sentences such as {@code $PUBX,03} can be considerably longer.
+	 */
+	public static final int DEFAULT_MAX_FRAME_LENGTH = 1024;
+
+	private final FrameHandler frameHandler;
+
+	private final byte[] frame;
+
+	private int position = 0;
+	private boolean inFrame = false;
+	private boolean skipping = false;
+
+	private volatile long frameCount = 0;
+	private volatile long checksumFailures = 0;
+	private volatile long resyncs = 0;
+
+	public NmeaFramer(FrameHandler frameHandler) {
+		this(frameHandler, DEFAULT_MAX_FRAME_LENGTH);
+	}
+
+	public NmeaFramer(FrameHandler frameHandler, int maxFrameLength) {
+		Assert.notNull(frameHandler, "frameHandler must not be null.");
+		Assert.isTrue(maxFrameLength >= 16, "maxFrameLength must be at least 16.");
+		this.frameHandler = frameHandler;
+		this.frame = new byte[maxFrameLength];
+	}
+
+	/**
+	 * Feeds the provided bytes into the framer. Every complete and valid frame
+	 * is passed to the {@link FrameHandler} before this method returns. Incomplete
+	 * frames are retained until the next invocation.
+	 *
+	 * @param data The buffer holding the received bytes
+	 * @param offset The offset of the first byte to process
+	 * @param length The number of bytes to process
+	 */
+	public void feed(byte[] data, int offset, int length) {
+		final int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			final byte b = data[i];
+
+			if (b == '$' || b == '!') {
+				if (this.inFrame) {
+					// Start byte without a preceding terminator, the previous frame was truncated
+					this.resyncs++;
+				}
+				this.frame[0] = b;
+				this.position = 1;
+				this.inFrame = true;
+				this.skipping = false;
+			}
+			else if (b == '\r' || b == '\n') {
+				if (this.inFrame) {
+					this.inFrame = false;
+					this.completeFrame();
+				}
+				this.skipping = false;
+			}
+			else if (this.inFrame) {
+				if (this.position == this.frame.length) {
+					this.inFrame = false;
+					this.skipping = true;
+					this.resyncs++;
+				}
+				else {
+					this.frame[this.position++] = b;
+				}
+			}
+			else if (!this.skipping) {
+				this.skipping = true;
+				this.resyncs++;
+			}
+		}
+	}
+
+	/**
+	 * Discards any partially received frame, e.g. after the underlying connection
+	 * was re-established.
+	 */
+	public void reset() {
+		this.position = 0;
+		this.inFrame = false;
+		this.skipping = false;
+	}
+
+	private void completeFrame() {
+		final int length = this.position;
+		if (isChecksumValid(this.frame, 0, length)) {
+			this.frameCount++;
+			this.frameHandler.onFrame(this.frame, 0, length);
+		}
+		else {
+			this.checksumFailures++;
+		}
+	}
+
+	/**
+	 * Verifies the {@code *hh} checksum of the provided frame. The checksum is
+	 * the XOR of all bytes between the start byte and the {@code *}.
+	 *
+	 * @param frame The buffer holding the frame
+	 * @param offset The offset of the start byte ({@code $} or {@code !})
+	 * @param length The length of the frame without the line terminator
+	 * @return true if the frame carries a valid checksum
+	 */
+	public static boolean isChecksumValid(byte[] frame, int offset, int length) {
+		final int asteriskIndex = offset + length - 3;
+		if (length < 6 || frame[asteriskIndex] != '*') {
+			return false;
+		}
+
+		final int high = hexValue(frame[asteriskIndex + 1]);
+		final int low = hexValue(frame[asteriskIndex + 2]);
+		if (high < 0 || low < 0) {
+			return false;
+		}
+
+		int checksum = 0;
+		for (int i = offset + 1; i < asteriskIndex; i++) {
+			checksum ^= frame[i] & 0xFF;
+		}
+		return checksum == ((high << 4) | low);
+	}
+
+	private static int hexValue(byte b) {
+		if (b >= '0' && b <= '9') {
+			return b - '0';
+		}
+		if (b >= 'A' && b <= 'F') {
+			return b - 'A' + 10;
+		}
+		if (b >= 'a' && b <= 'f') {
+			return b - 'a' + 10;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the number of valid frames passed to the {@link FrameHandler}.
+	 * @return The number of valid frames
+	 */
+	public long getFrameCount() {
+		return this.frameCount;
+	}
+
+	/**
+	 * Returns the number of frames dropped due to an invalid or missing checksum.
+	 * @return The number of checksum failures
+	 */
+	public long getChecksumFailures() {
+		return this.checksumFailures;
+	}
+
+	/**
+	 * Returns the number of times the framer had to skip bytes to find the next frame.
+	 * @return The number of resyncs
+	 */
+	public long getResyncs() {
+		return this.resyncs;
+	}
+
+	/**
+	 * Callback for valid NMEA frames. The provided buffer is reused by the
+	 * {@link NmeaFramer}, so implementations must not hold on to it.
+	 */
+	@FunctionalInterface
+	public interface FrameHandler {
+
+		/**
+		 * Invoked for each frame with a valid checksum.
+		 *
+		 * @param buffer The buffer holding the frame, starting with {@code $} or {@code !}
+		 * @param offset The offset of the frame within the buffer
+		 * @param length The length of the frame including the checksum, excluding the line terminator
+		 */
+		void onFrame(byte[] buffer, int offset, int length);
+	}
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Allocation-free parser for the GGA, GSA, GSV and RMC sentences. The fields
+ * are decoded straight from the characters of the sentence into the primitive
+ * fields of reusable {@link AbstractNmeaData} holders. Missing values are
+ * represented by sentinel values instead of exceptions. The checksum is not
+ * verified, as sentences are only dispatched after being validated by the
+ * {@link NmeaFramer}.
+ *
+ * Instances are not thread-safe, use one parser per thread.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public final class NmeaParser {
+
+	private final NmeaFieldReader reader = new NmeaFieldReader();
+
+	/**
+	 * Returns the id of the provided sentence if it is supported by this parser.
+	 *
+	 * @param sentence The NMEA sentence
+	 * @return The sentence id or null if the sentence is not supported
+	 */
+	public static SentenceId getSupportedSentenceId(CharSequence sentence) {
+		if (sentence.length() < 7 || sentence.charAt(6) != ',') {
+			return null;
+		}
+		final char c3 = sentence.charAt(3);
+		final char c4 = sentence.charAt(4);
+		final char c5 = sentence.charAt(5);
+		if (c3 == 'G' && c4 == 'G' && c5 == 'A') {
+			return SentenceId.GGA;
+		}
+		if (c3 == 'G' && c4 == 'S') {
+			if (c5 == 'A') {
+				return SentenceId.GSA;
+			}
+			if (c5 == 'V') {
+				return SentenceId.GSV;
+			}
+		}
+		if (c3 == 'R' && c4 == 'M' && c5 == 'C') {
+			return SentenceId.RMC;
+		}
+		return null;
+	}
+
+	/**
+	 * Parses a supported sentence into a newly created data holder, for data
+	 * that is retained, e.g. as message payload. Use the {@code parse...}
+	 * methods with reusable data holders where the data is consumed right away.
+	 *
+	 * @param sentence The NMEA sentence
+	 * @return The data or null if the sentence is not supported
+	 */
+	public AbstractNmeaData parse(CharSequence sentence) {
+		final SentenceId sentenceId = getSupportedSentenceId(sentence);
+		if (sentenceId == null) {
+			return null;
+		}
+		switch (sentenceId) {
+			case GGA:
+				final GgaData ggaData = new GgaData();
+				return this.parseGga(sentence, ggaData) ? ggaData : null;
+			case GSA:
+				final GsaData gsaData = new GsaData();
+				return this.parseGsa(sentence, gsaData) ? gsaData : null;
+			case GSV:
+				final GsvData gsvData = new GsvData();
+				return this.parseGsv(sentence, gsvData) ? gsvData : null;
+			case RMC:
+				final RmcData rmcData = new RmcData();
+				return this.parseRmc(sentence, rmcData) ? rmcData : null;
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Parses a GGA sentence.
+	 *
+	 * @param sentence The GGA sentence
+	 * @param data The data holder to populate, reset before parsing
+	 * @return false if the sentence has no data fields
+	 */
+	public boolean parseGga(CharSequence sentence, GgaData data) {
+		data.reset();
+		if (!this.start(sentence, data)) {
+			return false;
+		}
+		final NmeaFieldReader reader = this.reader;
+		data.setTimeOfDay(reader.timeOfDay());
+		reader.next();
+		data.setLatitude(reader.coordinate('S'));
+		reader.next();
+		data.setLongitude(reader.coordinate('W'));
+		reader.next();
+		data.setFixQuality(reader.intValue());
+		reader.next();
+		data.setSatellitesInUse(reader.intValue());
+		reader.next();
+		data.setHorizontalDilution(reader.doubleValue());
+		reader.next();
+		data.setAltitude(reader.doubleValue());
+		reader.next();
+		reader.next();
+		data.setGeoidalHeight(reader.doubleValue());
+		return true;
+	}
+
+	/**
+	 * Parses a GSA sentence.
+	 *
+	 * @param sentence The GSA sentence
+	 * @param data The data holder to populate, reset before parsing
+	 * @return false if the sentence has no data fields
+	 */
+	public boolean parseGsa(CharSequence sentence, GsaData data) {
+		data.reset();
+		if (!this.start(sentence, data)) {
+			return false;
+		}
+		final NmeaFieldReader reader = this.reader;
+		data.setMode(reader.charValue());
+		reader.next();
+		data.setFixType(reader.intValue());
+		for (int i = 0; i < GsaData.MAX_SATELLITES; i++) {
+			reader.next();
+			final int satelliteId = reader.intValue();
+			if (satelliteId != NmeaFieldReader.MISSING) {
+				data.addSatelliteId(satelliteId);
+			}
+		}
+		reader.next();
+		data.setPositionDilution(reader.doubleValue());
+		reader.next();
+		data.setHorizontalDilution(reader.doubleValue());
+		reader.next();
+		data.setVerticalDilution(reader.doubleValue());
+		if (reader.next()) {
+			data.setSystemId(reader.intValue());
+		}
+		return true;
+	}
+
+	/**
+	 * Parses a GSV sentence.
+	 *
+	 * @param sentence The GSV sentence
+	 * @param data The data holder to populate, reset before parsing
+	 * @return false if the sentence has no data fields
+	 */
+	public boolean parseGsv(CharSequence sentence, GsvData data) {
+		data.reset();
+		if (!this.start(sentence, data)) {
+			return false;
+		}
+		final NmeaFieldReader reader = this.reader;
+		data.setSentenceCount(reader.intValue());
+		reader.next();
+		data.setSentenceIndex(reader.intValue());
+		reader.next();
+		data.setSatelliteCount(reader.intValue());
+
+		int remainingFields = reader.remainingFields();
+		while (remainingFields >= 4) {
+			reader.next();
+			final int satelliteId = reader.intValue();
+			reader.next();
+			final int elevation = reader.intValue();
+			reader.next();
+			final int azimuth = reader.intValue();
+			reader.next();
+			final int noise = reader.intValue();
+			if (satelliteId != NmeaFieldReader.MISSING) {
+				data.addSatellite(satelliteId, elevation, azimuth, noise);
+			}
+			remainingFields -= 4;
+		}
+		if (remainingFields == 1) {
+			reader.next();
+			data.setSignalId(parseHexDigit(reader));
+		}
+		return true;
+	}
+
+	/**
+	 * Parses an RMC sentence.
+	 *
+	 * @param sentence The RMC sentence
+	 * @param data The data holder to populate, reset before parsing
+	 * @return false if the sentence has no data fields
+	 */
+	public boolean parseRmc(CharSequence sentence, RmcData data) {
+		data.reset();
+		if (!this.start(sentence, data)) {
+			return false;
+		}
+		final NmeaFieldReader reader = this.reader;
+		data.setTimeOfDay(reader.timeOfDay());
+		reader.next();
+		data.setStatus(reader.charValue());
+		reader.next();
+		data.setLatitude(reader.coordinate('S'));
+		reader.next();
+		data.setLongitude(reader.coordinate('W'));
+		reader.next();
+		data.setSpeedOverGround(reader.doubleValue());
+		reader.next();
+		data.setCourseOverGround(reader.doubleValue());
+		reader.next();
+		data.setDate(reader.date());
+		reader.next();
+		reader.next();
+		if (reader.next()) {
+			data.setMode(reader.charValue());
+		}
+		return true;
+	}
+
+	private boolean start(CharSequence sentence, AbstractNmeaData data) {
+		if (sentence.length() < 7 || !this.reader.reset(sentence)) {
+			return false;
+		}
+		data.setTalkerId(sentence.charAt(1), sentence.charAt(2));
+		return this.reader.next();
+	}
+
+	/**
+	 * The signal id of GSV sentences is a single hexadecimal digit.
+	 */
+	private static int parseHexDigit(NmeaFieldReader reader) {
+		final char c = reader.charValue();
+		if (c >= '0' && c <= '9') {
+			return c - '0';
+		}
+		if (c >= 'A' && c <= 'F') {
+			return c - 'A' + 10;
+		}
+		return NmeaFieldReader.MISSING;
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+ * Data of an RMC (Recommended minimum specific GNSS data) sentence, populated
+ * by the {@link NmeaParser}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class RmcData extends AbstractNmeaData {
+
+	private int timeOfDay;
+	private char status;
+	private double latitude;
+	private double longitude;
+	private double speedOverGround;
+	private double courseOverGround;
+	private int date;
+	private char mode;
+
+	public RmcData() {
+		this.reset();
+	}
+
+	@Override
+	public SentenceId getSentenceId() {
+		return SentenceId.RMC;
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		this.timeOfDay = -1;
+		this.status = 0;
+		this.latitude = Double.NaN;
+		this.longitude = Double.NaN;
+		this.speedOverGround = Double.NaN;
+		this.courseOverGround = Double.NaN;
+		this.date = -1;
+		this.mode = 0;
+	}
+
+	/**
+	 * Returns the UTC time of the position.
+	 * @return The milliseconds since midnight (UTC) or -1 if not available
+	 */
+	public int getTimeOfDay() {
+		return this.timeOfDay;
+	}
+
+	/**
+	 * Returns the status, {@code A} (valid) or {@code V} (invalid).
+	 * @return The status or {@code 0} if not available
+	 */
+	public char getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * Returns whether latitude and longitude are available.
+	 * @return true if the position is available
+	 */
+	public boolean isPositionAvailable() {
+		return !Double.isNaN(this.latitude) && !Double.isNaN(this.longitude);
+	}
+
+	/**
+	 * Returns the latitude in decimal degrees, negative for the southern hemisphere.
+	 * @return The latitude or {@link Double#NaN} if not available
+	 */
+	public double getLatitude() {
+		return this.latitude;
+	}
+
+	/**
+	 * Returns the longitude in decimal degrees, negative for the western hemisphere.
+	 * @return The longitude or {@link Double#NaN} if not available
+	 */
+	public double getLongitude() {
+		return this.longitude;
+	}
+
+	/**
+	 * Returns the speed over ground in knots.
+	 * @return The speed or {@link Double#NaN} if not available
+	 */
+	public double getSpeedOverGround() {
+		return this.speedOverGround;
+	}
+
+	/**
+	 * Returns the course over ground in degrees (true).
+	 * @return The course or {@link Double#NaN} if not available
+	 */
+	public double getCourseOverGround() {
+		return this.courseOverGround;
+	}
+
+	/**
+	 * Returns the UTC date as {@code ddmmyy}.
+	 * @return The date or -1 if not available
+	 */
+	public int getDate() {
+		return this.date;
+	}
+
+	/**
+	 * Returns the mode indicator (NMEA 2.3 and later), e.g. {@code A} (autonomous)
+	 * or {@code D} (differential).
+	 * @return The mode or {@code 0} if not available
+	 */
+	public char getMode() {
+		return this.mode;
+	}
+
+	void setTimeOfDay(int timeOfDay) {
+		this.timeOfDay = timeOfDay;
+	}
+	void setStatus(char status) {
+		this.status = status;
+	}
+	void setLatitude(double latitude) {
+		this.latitude = latitude;
+	}
+	void setLongitude(double longitude) {
+		this.longitude = longitude;
+	}
+	void setSpeedOverGround(double speedOverGround) {
+		this.speedOverGround = speedOverGround;
+	}
+	void setCourseOverGround(double courseOverGround) {
+		this.courseOverGround = courseOverGround;
+	}
+	void setDate(int date) {
+		this.date = date;
+	}
+	void setMode(char mode) {
+		this.mode = mode;
+	}
+
+}
@@ -16,20 +16,19 @@
 
 package com.hillert.gnss.demo.services;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-
-import org.opengis.metadata.identification.CharacterSet;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 
+import com.hillert.gnss.demo.config.SpringIntegrationConfig.EpochGateway;
 import com.hillert.gnss.demo.config.SpringIntegrationConfig.NmeaMessageGateway;
+import com.hillert.gnss.demo.epoch.EpochAssembler;
+import com.hillert.gnss.demo.integration.DirectPipeline;
+import com.hillert.gnss.demo.journal.NmeaJournal;
+import com.hillert.gnss.demo.support.DemoSettings;
 
 /**
 * See {@link ConnectorService}.
@@ -41,65 +40,148 @@ import com.hillert.gnss.demo.config.SpringIntegrationConfig.NmeaMessageGateway;
 @ConditionalOnProperty(name = "demo.settings.type", havingValue = "BLUETOOTH")
 public abstract class AbstractConnectorService implements ConnectorService {
 
-	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractConnectorService.class);
-
 	@Autowired
 	private NmeaMessageGateway nmeaMessageGateway;
 
-	public void extractMessages(InputStream is) {
-
-//		while(!Thread.interrupted()) {
-//						try {
-////							Thread.sleep(1000);
-////							System.out.println("Running, press CTRL-C to stop..");
-//						} catch (InterruptedException e) {
-//							// TODO Auto-generated catch block
-//							e.printStackTrace();
-//						}
-//		}
-		try (
-			final BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(is, CharacterSet.ISO_8859_1.toCharset()))
-			) {
-			while(!Thread.interrupted()) {
-				try {
-					if(!bufferedReader.ready()) {
-						try {
-							Thread.sleep(300);
-							continue;
-						}
-						catch (InterruptedException e) {
-							Thread.currentThread().interrupt();
-						}
-					}
-				}
-				catch (IOException e) {
-					throw new IllegalStateException(e);
-				}
-
-				try {
-					final String lineRead = bufferedReader.readLine();
-//					if (lineRead.matches("^...GSV.*")) {
-//						System.out.println(lineRead);
-//					}
-					if (StringUtils.hasText(lineRead) && lineRead.startsWith("$")) {
-						this.nmeaMessageGateway.send(lineRead);
-					}
-				}
-				catch (IOException e) {
-					throw new IllegalStateException(e);
-				}
-
-				try {
-					Thread.sleep(28);
-				}
-				catch (InterruptedException e) {
-					Thread.currentThread().interrupt();
-				}
+	@Autowired
+	private EpochGateway epochGateway;
+
+	@Autowired
+	private DirectPipeline directPipeline;
+
+	@Autowired
+	private DemoSettings demoSettings;
+
+	private NmeaDispatcher nmeaDispatcher;
+
+	private NmeaJournal nmeaJournal;
+
+	private NmeaReader nmeaReader;
+
+	private String deviceId;
+
+	/**
+	 * Returns the {@link NmeaReader} of this connector, which frames the received
+	 * bytes and hands the NMEA sentences passing the {@link SentenceTypeFilter}
+	 * over to the {@link NmeaMessageGateway} via a {@link NmeaDispatcher}. The dispatcher thread (and the {@link NmeaJournal}
+	 * writer thread, if enabled) is started on first access.
+	 *
+	 * @return The reader, never null
+	 */
+	protected synchronized NmeaReader getNmeaReader() {
+		if (this.nmeaReader == null) {
+			this.nmeaDispatcher = new NmeaDispatcher(this.createSentenceHandler(), this.getType(), this.getDeviceId(),
+					this.demoSettings.getDispatch(), this.getDropPolicy());
+			this.nmeaDispatcher.start();
+			this.nmeaReader = new NmeaReader(this.nmeaDispatcher, this.getType(), this.getDeviceId());
+			this.nmeaReader.setSentenceTypeFilter(
+					new SentenceTypeFilter(this.getType(), this.getDeviceId(), this.getFilterSettings()));
+			if (this.isJournalEnabled()) {
+				this.nmeaJournal = new NmeaJournal(this.getType(), this.getDeviceId(), this.demoSettings.getJournal());
+				this.nmeaJournal.start();
+				this.nmeaReader.setNmeaJournal(this.nmeaJournal);
 			}
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
 		}
+		return this.nmeaReader;
+	}
+
+	/**
+	 * Creates the {@link SentenceHandler} the dispatcher hands the sentences over to,
+	 * depending on the configured {@link DemoSettings.Pipeline#getMode()}.
+	 *
+	 * @return The sentence handler
+	 */
+	protected SentenceHandler createSentenceHandler() {
+		switch (this.demoSettings.getPipeline().getMode()) {
+			case EPOCH:
+				return new EpochAssembler(this.nmeaMessageGateway, this.epochGateway, this.getType(), this.getDeviceId(),
+						this.demoSettings.getPipeline());
+			case DIRECT:
+				return this.directPipeline.createSentenceHandler(this.getDeviceId());
+			default:
+				final String deviceId = this.getDeviceId();
+				return sentence -> this.nmeaMessageGateway.send(sentence, deviceId);
+		}
+	}
+
+	/**
+	 * Returns the configured {@link DemoSettings.Filter}. In the
+	 * {@link DemoSettings.Pipeline.Mode#EPOCH} mode RMC sentences are allowed in
+	 * addition, as their time detects the epoch boundaries of receivers not
+	 * emitting GGA sentences.
+	 */
+	private DemoSettings.Filter getFilterSettings() {
+		final DemoSettings.Filter filter = this.demoSettings.getFilter();
+		if (!DemoSettings.Pipeline.Mode.EPOCH.equals(this.demoSettings.getPipeline().getMode())
+				|| filter.getSentenceTypes().contains("RMC")) {
+			return filter;
+		}
+		final List<String> sentenceTypes = new ArrayList<>(filter.getSentenceTypes());
+		sentenceTypes.add("RMC");
+		final DemoSettings.Filter epochFilter = new DemoSettings.Filter();
+		epochFilter.setEnabled(filter.isEnabled());
+		epochFilter.setSentenceTypes(sentenceTypes);
+		return epochFilter;
+	}
+
+	/**
+	 * Stops the dispatcher and journal threads started by {@link #getNmeaReader()},
+	 * if any, and removes the metrics bound to them, as a new reader is created
+	 * when the connector subscribes again. Connectors must invoke this method
+	 * when being disconnected.
+	 */
+	protected synchronized void stopDispatching() {
+		if (this.nmeaJournal != null) {
+			this.nmeaJournal.stop();
+			this.nmeaJournal = null;
+		}
+		if (this.nmeaDispatcher != null) {
+			this.nmeaDispatcher.stop();
+			this.nmeaDispatcher = null;
+			this.nmeaReader.close();
+			this.nmeaReader = null;
+		}
+	}
+
+	/**
+	 * Returns the policy applied if sentences are read faster than they can be
+	 * dispatched. Defaults to the configured {@link DemoSettings.Dispatch#getDropPolicy()}.
+	 *
+	 * @return The drop policy
+	 */
+	protected SentenceRingBuffer.DropPolicy getDropPolicy() {
+		return this.demoSettings.getDispatch().getDropPolicy();
+	}
+
+	/**
+	 * Returns whether the received sentences are journaled. Defaults to the
+	 * configured {@link DemoSettings.Journal#isEnabled()}.
+	 *
+	 * @return true if the sentences are journaled
+	 */
+	protected boolean isJournalEnabled() {
+		return this.demoSettings.getJournal().isEnabled();
+	}
+
+	/**
+	 * Returns the settings of the demo application.
+	 * @return The settings
+	 */
+	protected DemoSettings getDemoSettings() {
+		return this.demoSettings;
+	}
+
+	@Override
+	public String getDeviceId() {
+		if (this.deviceId == null) {
+			return this.getType().name().toLowerCase();
+		}
+		return this.deviceId;
+	}
+
+	@Override
+	public void setDeviceId(String deviceId) {
+		this.deviceId = deviceId;
 	}
 
 }
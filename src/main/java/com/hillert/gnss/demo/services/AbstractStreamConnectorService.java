@@ -0,0 +1,164 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+* Base class for {@link ConnectorService}s that read from an {@link InputStream},
+* such as Bluetooth and serial connections. The connection is supervised: if it
+* cannot be opened or gets lost, it is re-established using an exponential
+* backoff with jitter (see {@link DemoSettings.Reconnect}). As the connector keeps
+* running, the processing pipeline and the stores stay warm during an outage.
+*
+* The following metrics are exported:
+*
+* <ul>
+*   <li>nmea.connector.reconnects - Number of times a lost connection was re-established
+*   <li>nmea.connector.outage - Time from losing the connection until it was re-established
+*   <li>nmea.reader.first.sentence - Time from (re-)connecting until the first sentence was read
+*</ul>
+*
+* @author Gunnar Hillert
+*
+*/
+public abstract class AbstractStreamConnectorService extends AbstractConnectorService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractStreamConnectorService.class);
+
+	private volatile boolean running = false;
+
+	/**
+	 * Opens the connection to the device.
+	 *
+	 * @param id The connection id of the device
+	 * @return The stream to read the NMEA data from
+	 * @throws IOException if the connection cannot be opened
+	 */
+	protected abstract InputStream openConnection(String id) throws IOException;
+
+	/**
+	 * Closes the connection opened by {@link #openConnection(String)}, if any.
+	 * May be invoked from a different thread in order to stop a blocking read.
+	 */
+	protected abstract void closeConnection();
+
+	/**
+	 * Connects to the device and reads its NMEA data until {@link #disconnect()}
+	 * is invoked or the current thread is interrupted. Lost connections are
+	 * re-established automatically.
+	 */
+	@Override
+	public void subscribeToData(String id) {
+		final Tags tags = Tags.of("connection_type", this.getType().name(), "device", this.getDeviceId());
+		final Counter reconnectCounter = Counter.builder("nmea.connector.reconnects")
+				.description("Number of times a lost connection to the GNSS device was re-established.")
+				.tags(tags)
+				.register(Metrics.globalRegistry);
+		final Timer outageTimer = Timer.builder("nmea.connector.outage")
+				.description("Time from losing the connection to the GNSS device until it was re-established.")
+				.tags(tags)
+				.register(Metrics.globalRegistry);
+		final DemoSettings.Reconnect reconnectSettings = this.getDemoSettings().getReconnect();
+
+		this.running = true;
+		boolean connectedBefore = false;
+		long outageStart = -1;
+		int attempt = 0;
+
+		while (this.running && !Thread.currentThread().isInterrupted()) {
+			final InputStream inputStream;
+			try {
+				inputStream = this.openConnection(id);
+			}
+			catch (IOException | RuntimeException e) {
+				this.closeConnection();
+				if (!this.running) {
+					break;
+				}
+				final long delay = reconnectSettings.getDelayInMillis(attempt++);
+				LOGGER.warn("Unable to connect to {} device '{}' ({}). Retrying in {} ms.",
+						this.getType(), this.getDeviceId(), e.getMessage(), delay);
+				this.sleep(delay);
+				continue;
+			}
+
+			if (connectedBefore) {
+				reconnectCounter.increment();
+				outageTimer.record(System.nanoTime() - outageStart, TimeUnit.NANOSECONDS);
+				LOGGER.info("Reconnected to {} device '{}' after {} attempt(s).", this.getType(), this.getDeviceId(), attempt + 1);
+			}
+			else {
+				LOGGER.info("Connected to {} device '{}'.", this.getType(), this.getDeviceId());
+			}
+			connectedBefore = true;
+			attempt = 0;
+
+			try {
+				this.getNmeaReader().markConnected();
+				this.getNmeaReader().read(inputStream);
+				LOGGER.warn("The connection to {} device '{}' was closed.", this.getType(), this.getDeviceId());
+			}
+			catch (IOException | RuntimeException e) {
+				if (this.running) {
+					LOGGER.warn(String.format("The connection to %s device '%s' got lost.", this.getType(), this.getDeviceId()), e);
+				}
+			}
+			finally {
+				outageStart = System.nanoTime();
+				try {
+					inputStream.close();
+				}
+				catch (IOException e) {
+					LOGGER.debug("Unable to close the input stream.", e);
+				}
+				this.closeConnection();
+			}
+		}
+
+		LOGGER.info("Stopped reading from {} device '{}'.", this.getType(), this.getDeviceId());
+	}
+
+	private void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void disconnect() {
+		this.running = false;
+		this.closeConnection();
+		this.stopDispatching();
+	}
+
+}
@@ -35,7 +35,12 @@ public enum ConnectionType {
 	BLUETOOTH,
 
 	/**
-	 * Identifies Bluetooth connections.
+	 * Identifies TCP or UDP network connections.
+	 */
+	NETWORK,
+
+	/**
+	 * Identifies the replay of recorded NMEA log files.
 	 */
-	DUMMY;
+	REPLAY;
 }
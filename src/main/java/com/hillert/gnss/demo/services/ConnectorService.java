@@ -33,9 +33,29 @@ public interface ConnectorService {
 
 	List<RemoteGnssDevice> discoverAndGetDevices();
 
+	/**
+	 * Connects to the device identified by the provided id and dispatches the
+	 * received NMEA sentences. Blocks until the connection is closed.
+	 *
+	 * @param id The connection id of the device, e.g. a Bluetooth connection url
+	 */
 	void subscribeToData(String id);
 
 	void disconnect();
 
 	ConnectionType getType();
+
+	/**
+	 * Returns the id used to tag all messages received by this connector.
+	 *
+	 * @return The device id
+	 */
+	String getDeviceId();
+
+	/**
+	 * Sets the id used to tag all messages received by this connector.
+	 *
+	 * @param deviceId The device id
+	 */
+	void setDeviceId(String deviceId);
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+
+/**
+* Creates a new {@link ConnectorService} instance for each GNSS device, so that
+* multiple devices can be connected to at the same time. All {@link ConnectorService}
+* implementations are therefore prototype-scoped beans registered under the
+* bean names defined by this class.
+*
+* @author Gunnar Hillert
+*
+*/
+@Component
+public class ConnectorServiceFactory {
+
+	/**
+	 * Bean name of the {@link ConnectorService} for {@link ConnectionType#BLUETOOTH}.
+	 */
+	public static final String BLUETOOTH_CONNECTOR_SERVICE = "bluetoothConnectorService";
+
+	/**
+	 * Bean name of the {@link ConnectorService} for {@link ConnectionType#SERIAL}.
+	 */
+	public static final String SERIAL_CONNECTOR_SERVICE = "serialConnectorService";
+
+	/**
+	 * Bean name of the {@link ConnectorService} for {@link ConnectionType#NETWORK}.
+	 */
+	public static final String NETWORK_CONNECTOR_SERVICE = "networkConnectorService";
+
+	/**
+	 * Bean name of the {@link ConnectorService} for {@link ConnectionType#REPLAY}.
+	 */
+	public static final String REPLAY_CONNECTOR_SERVICE = "replayConnectorService";
+
+	private final BeanFactory beanFactory;
+
+	public ConnectorServiceFactory(BeanFactory beanFactory) {
+		super();
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Creates a new {@link ConnectorService} for the provided {@link ConnectionType}.
+	 *
+	 * @param connectionType The type of the connection, must not be null
+	 * @param deviceId The id used to tag all messages received from the device
+	 * @return A new {@link ConnectorService} instance
+	 */
+	public ConnectorService create(ConnectionType connectionType, String deviceId) {
+		Assert.notNull(connectionType, "connectionType must not be null.");
+		Assert.hasText(deviceId, "deviceId must not be null or empty.");
+
+		final String beanName;
+		switch (connectionType) {
+			case BLUETOOTH:
+				beanName = BLUETOOTH_CONNECTOR_SERVICE;
+				break;
+			case SERIAL:
+				beanName = SERIAL_CONNECTOR_SERVICE;
+				break;
+			case NETWORK:
+				beanName = NETWORK_CONNECTOR_SERVICE;
+				break;
+			case REPLAY:
+				beanName = REPLAY_CONNECTOR_SERVICE;
+				break;
+			default:
+				throw new IllegalArgumentException(String.format("ConnectionType %s is not supported.", connectionType));
+		}
+
+		final ConnectorService connectorService = this.beanFactory.getBean(beanName, ConnectorService.class);
+		connectorService.setDeviceId(deviceId);
+		return connectorService;
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.config.SpringIntegrationConfig.NmeaMessageGateway;
+import com.hillert.gnss.demo.nmea.NmeaBytes;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Decouples reading from a GNSS device from dispatching the NMEA sentences, e.g.
+ * via the {@link NmeaMessageGateway}. Sentences are buffered in a {@link SentenceRingBuffer}
+ * and handed over to the {@link SentenceHandler} by a dedicated dispatcher thread,
+ * so that slow downstream processing does not stall the reader thread and cause
+ * the device buffer to overflow.
+ *
+ * The following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea.dispatch.buffer.occupancy - Number of sentences waiting to be dispatched
+ *   <li>nmea.dispatch.buffer.high.water - Highest number of sentences waiting to be dispatched
+ *   <li>nmea.dispatch.buffer.dropped - Number of sentences dropped (tag reason: oldest, shed)
+ *</ul>
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class NmeaDispatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NmeaDispatcher.class);
+
+	private final SentenceHandler sentenceHandler;
+	private final String deviceId;
+	private final SentenceRingBuffer ringBuffer;
+	private final List<String> sheddableSentenceTypes;
+	private final List<Meter> meters;
+
+	private Thread dispatcherThread;
+
+	public NmeaDispatcher(SentenceHandler sentenceHandler, ConnectionType connectionType, String deviceId,
+			DemoSettings.Dispatch settings, SentenceRingBuffer.DropPolicy dropPolicy) {
+		Assert.notNull(sentenceHandler, "sentenceHandler must not be null.");
+		Assert.notNull(connectionType, "connectionType must not be null.");
+		Assert.hasText(deviceId, "deviceId must not be null or empty.");
+		Assert.notNull(settings, "settings must not be null.");
+		this.sentenceHandler = sentenceHandler;
+		this.deviceId = deviceId;
+		this.ringBuffer = new SentenceRingBuffer(settings.getBufferCapacity(), dropPolicy, settings.getShedThreshold());
+		this.sheddableSentenceTypes = List.copyOf(settings.getSheddableSentenceTypes());
+		this.sheddableSentenceTypes.forEach(sentenceType -> Assert.isTrue(sentenceType.length() == 3,
+				() -> String.format("Sheddable sentence type '%s' must consist of 3 characters.", sentenceType)));
+
+		final Tags tags = Tags.of("connection_type", connectionType.name(), "device", deviceId);
+		this.meters = List.of(
+				Gauge.builder("nmea.dispatch.buffer.occupancy", this.ringBuffer, SentenceRingBuffer::size)
+						.description("Number of NMEA sentences waiting to be dispatched.")
+						.tags(tags)
+						.register(Metrics.globalRegistry),
+				Gauge.builder("nmea.dispatch.buffer.high.water", this.ringBuffer, SentenceRingBuffer::getHighWaterMark)
+						.description("Highest number of NMEA sentences waiting to be dispatched.")
+						.tags(tags)
+						.register(Metrics.globalRegistry),
+				FunctionCounter.builder("nmea.dispatch.buffer.dropped", this.ringBuffer, SentenceRingBuffer::getDroppedOldest)
+						.description("Number of NMEA sentences dropped because the dispatch buffer was full.")
+						.tags(tags.and("reason", "oldest"))
+						.register(Metrics.globalRegistry),
+				FunctionCounter.builder("nmea.dispatch.buffer.dropped", this.ringBuffer, SentenceRingBuffer::getShed)
+						.description("Number of NMEA sentences dropped because the dispatch buffer was full.")
+						.tags(tags.and("reason", "shed"))
+						.register(Metrics.globalRegistry));
+	}
+
+	/**
+	 * Starts the dispatcher thread, unless already started.
+	 */
+	public synchronized void start() {
+		if (this.dispatcherThread != null) {
+			return;
+		}
+		this.dispatcherThread = new Thread(this::dispatchLoop, "nmea-dispatch-" + this.deviceId);
+		this.dispatcherThread.setDaemon(true);
+		this.dispatcherThread.start();
+	}
+
+	/**
+	 * Stops the dispatcher thread and removes the metrics of this dispatcher.
+	 * Sentences still buffered are discarded.
+	 */
+	public synchronized void stop() {
+		this.ringBuffer.close();
+		this.meters.forEach(Metrics.globalRegistry::remove);
+		if (this.dispatcherThread != null) {
+			this.dispatcherThread.interrupt();
+			this.dispatcherThread = null;
+		}
+	}
+
+	/**
+	 * Buffers a framed NMEA sentence for dispatching. Must only be invoked by
+	 * the reader thread of the device.
+	 *
+	 * @param frame The buffer holding the sentence
+	 * @param offset The offset of the sentence
+	 * @param length The length of the sentence
+	 */
+	public void dispatch(byte[] frame, int offset, int length) {
+		final boolean sheddable = this.isSheddable(frame, offset, length);
+		this.ringBuffer.offer(new String(frame, offset, length, StandardCharsets.ISO_8859_1), sheddable);
+	}
+
+	SentenceRingBuffer getRingBuffer() {
+		return this.ringBuffer;
+	}
+
+	private boolean isSheddable(byte[] frame, int offset, int length) {
+		for (int i = 0; i < this.sheddableSentenceTypes.size(); i++) {
+			if (NmeaBytes.isSentenceType(frame, offset, length, this.sheddableSentenceTypes.get(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void dispatchLoop() {
+		while (!Thread.currentThread().isInterrupted()) {
+			final String sentence;
+			try {
+				sentence = this.ringBuffer.take();
+			}
+			catch (InterruptedException e) {
+				break;
+			}
+			if (sentence == null) {
+				break;
+			}
+			try {
+				this.sentenceHandler.handle(sentence);
+			}
+			catch (RuntimeException e) {
+				LOGGER.warn(String.format("Unable to dispatch NMEA sentence of device '%s'.", this.deviceId), e);
+			}
+		}
+		LOGGER.debug("Stopped dispatching NMEA sentences of device '{}'.", this.deviceId);
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.config.SpringIntegrationConfig.NmeaMessageGateway;
+import com.hillert.gnss.demo.journal.NmeaJournal;
+import com.hillert.gnss.demo.nmea.NmeaFramer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The read path shared by all {@link ConnectorService}s. Raw bytes are framed
+ * by a {@link NmeaFramer} and only frames with a valid checksum, whose type passes
+ * the {@link SentenceTypeFilter}, are handed over to the {@link NmeaDispatcher}, which sends them via the {@link NmeaMessageGateway}
+ * on a separate thread, tagged with the id of the device they were received from.
+ *
+ * The following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea.reader.lines - Number of valid NMEA lines read (use the rate for lines/s)
+ *   <li>nmea.reader.bytes - Number of bytes read (use the rate for the throughput in bytes/s)
+ *   <li>nmea.reader.dispatch - Time from reading the bytes until the line was handed over for dispatching
+ *   <li>nmea.reader.first.sentence - Time from (re-)connecting until the first valid line was read
+ *   <li>nmea.framer.checksum.failures - Number of frames dropped due to an invalid checksum
+ *   <li>nmea.framer.resyncs - Number of times garbage had to be skipped to find the next frame
+ *</ul>
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class NmeaReader implements NmeaFramer.FrameHandler {
+
+	private static final int READ_BUFFER_SIZE = 4096;
+
+	private final NmeaDispatcher nmeaDispatcher;
+	private NmeaJournal nmeaJournal;
+	private SentenceTypeFilter sentenceTypeFilter;
+	private final NmeaFramer nmeaFramer;
+	private final byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+
+	private final Counter linesCounter;
+	private final Counter bytesCounter;
+	private final Timer dispatchTimer;
+	private final Timer firstSentenceTimer;
+	private final List<Meter> framerMeters;
+
+	private long readTime;
+	private long connectedTime = -1;
+
+	public NmeaReader(NmeaDispatcher nmeaDispatcher, ConnectionType connectionType, String deviceId) {
+		Assert.notNull(nmeaDispatcher, "nmeaDispatcher must not be null.");
+		Assert.notNull(connectionType, "connectionType must not be null.");
+		Assert.hasText(deviceId, "deviceId must not be null or empty.");
+		this.nmeaDispatcher = nmeaDispatcher;
+		this.nmeaFramer = new NmeaFramer(this);
+
+		final Tags tags = Tags.of("connection_type", connectionType.name(), "device", deviceId);
+		this.linesCounter = Counter.builder("nmea.reader.lines")
+				.description("Number of valid NMEA lines read from the GNSS device.")
+				.tags(tags)
+				.register(Metrics.globalRegistry);
+		this.bytesCounter = Counter.builder("nmea.reader.bytes")
+				.description("Number of bytes read from the GNSS device.")
+				.baseUnit("bytes")
+				.tags(tags)
+				.register(Metrics.globalRegistry);
+		this.dispatchTimer = Timer.builder("nmea.reader.dispatch")
+				.description("Time from reading an NMEA line until it was handed over for dispatching.")
+				.tags(tags)
+				.publishPercentiles(0.5, 0.99)
+				.register(Metrics.globalRegistry);
+		this.firstSentenceTimer = Timer.builder("nmea.reader.first.sentence")
+				.description("Time from (re-)connecting to the GNSS device until the first valid NMEA line was read.")
+				.tags(tags)
+				.register(Metrics.globalRegistry);
+		this.framerMeters = List.of(
+				FunctionCounter.builder("nmea.framer.checksum.failures", this.nmeaFramer, NmeaFramer::getChecksumFailures)
+						.description("Number of NMEA frames dropped due to an invalid or missing checksum.")
+						.tags(tags)
+						.register(Metrics.globalRegistry),
+				FunctionCounter.builder("nmea.framer.resyncs", this.nmeaFramer, NmeaFramer::getResyncs)
+						.description("Number of times bytes had to be skipped to find the next NMEA frame.")
+						.tags(tags)
+						.register(Metrics.globalRegistry));
+	}
+
+	/**
+	 * Removes the metrics bound to this reader and its {@link SentenceTypeFilter},
+	 * so that the reader created on the next subscription registers its own.
+	 * Must be invoked once the reader is no longer used.
+	 */
+	public void close() {
+		this.framerMeters.forEach(Metrics.globalRegistry::remove);
+		if (this.sentenceTypeFilter != null) {
+			this.sentenceTypeFilter.close();
+		}
+	}
+
+	/**
+	 * Reads from the provided {@link InputStream} until the end of the stream is
+	 * reached or the current thread is interrupted. Each read transfers as many
+	 * bytes as are available, so sentences are dispatched as soon as the device
+	 * emits them. Reads returning no data (e.g. due to a receive timeout) are
+	 * ignored.
+	 * Invoke {@link #markConnected()} before reading from a new stream.
+	 *
+	 * @param is The stream to read the NMEA sentences from
+	 * @throws IOException if reading from the stream fails
+	 */
+	public void read(InputStream is) throws IOException {
+		while (!Thread.currentThread().isInterrupted()) {
+			final int bytesRead = is.read(this.readBuffer);
+			if (bytesRead < 0) {
+				return;
+			}
+			this.onData(this.readBuffer, 0, bytesRead);
+		}
+	}
+
+	/**
+	 * Sets the journal each valid NMEA line is appended to before it is dispatched.
+	 * @param nmeaJournal The journal, may be null
+	 */
+	public void setNmeaJournal(NmeaJournal nmeaJournal) {
+		this.nmeaJournal = nmeaJournal;
+	}
+
+	/**
+	 * Sets the filter each valid NMEA line is counted by and checked against
+	 * before it is dispatched. Lines are journaled regardless of the filter.
+	 * @param sentenceTypeFilter The filter, may be null
+	 */
+	public void setSentenceTypeFilter(SentenceTypeFilter sentenceTypeFilter) {
+		this.sentenceTypeFilter = sentenceTypeFilter;
+	}
+
+	/**
+	 * Signals that the connection to the device was (re-)established. Discards
+	 * any partially received frame and starts measuring the time until the first
+	 * valid NMEA line is read.
+	 */
+	public void markConnected() {
+		this.nmeaFramer.reset();
+		this.connectedTime = System.nanoTime();
+	}
+
+	/**
+	 * Processes a chunk of received bytes. Can be used by connectors that do not
+	 * provide an {@link InputStream}.
+	 *
+	 * @param data The buffer holding the received bytes
+	 * @param offset The offset of the first received byte
+	 * @param length The number of received bytes
+	 */
+	public void onData(byte[] data, int offset, int length) {
+		if (length <= 0) {
+			return;
+		}
+		this.readTime = System.nanoTime();
+		this.bytesCounter.increment(length);
+		this.nmeaFramer.feed(data, offset, length);
+	}
+
+	/**
+	 * Returns the number of valid NMEA lines dispatched by this reader.
+	 * @return The number of dispatched lines
+	 */
+	public long getLineCount() {
+		return this.nmeaFramer.getFrameCount();
+	}
+
+	@Override
+	public void onFrame(byte[] buffer, int offset, int length) {
+		if (this.connectedTime >= 0) {
+			this.firstSentenceTimer.record(this.readTime - this.connectedTime, TimeUnit.NANOSECONDS);
+			this.connectedTime = -1;
+		}
+		this.linesCounter.increment();
+		if (this.nmeaJournal != null) {
+			this.nmeaJournal.append(System.currentTimeMillis(), buffer, offset, length);
+		}
+		if (this.sentenceTypeFilter != null && !this.sentenceTypeFilter.accept(buffer, offset, length)) {
+			return;
+		}
+		this.nmeaDispatcher.dispatch(buffer, offset, length);
+		this.dispatchTimer.record(System.nanoTime() - this.readTime, TimeUnit.NANOSECONDS);
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.services;
+
+/**
+ * Receives the NMEA sentences of a single device from the {@link NmeaDispatcher}.
+ * Implementations are only invoked by the dispatcher thread of the device.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@FunctionalInterface
+public interface SentenceHandler {
+
+	/**
+	 * Handles a single, checksum-validated NMEA sentence.
+	 * @param sentence The NMEA sentence
+	 */
+	void handle(String sentence);
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.util.Assert;
+
+/**
+ * Bounded, lock-free ring buffer handing NMEA sentences over from a single
+ * reader thread (producer) to a single dispatcher thread (consumer). When the
+ * buffer is full, the {@link DropPolicy} decides whether the oldest sentence is
+ * dropped, sentences of low-priority types are shed, or the producer blocks.
+ *
+ * As the producer may drop the oldest sentence, the head index is advanced
+ * using compare-and-set by both producer and consumer. All other state is only
+ * written by a single thread.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class SentenceRingBuffer {
+
+	private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+	/**
+	 * Defines what happens if a sentence is offered while the buffer is full.
+	 */
+	public enum DropPolicy {
+
+		/**
+		 * Drop the oldest buffered sentence to make room for the new one.
+		 */
+		DROP_OLDEST,
+
+		/**
+		 * Shed sentences of low-priority types (e.g. GSV) once the buffer reaches the
+		 * shed threshold, keeping the remaining capacity for high-priority sentences
+		 * (e.g. GGA). If the buffer is full nevertheless, the oldest sentence is dropped.
+		 */
+		DROP_BY_TYPE,
+
+		/**
+		 * Block the producer until space becomes available.
+		 */
+		BLOCK
+	}
+
+	private final AtomicReferenceArray<String> slots;
+	private final int capacity;
+	private final int mask;
+	private final DropPolicy dropPolicy;
+	private final int shedThreshold;
+
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+
+	private final AtomicLong droppedOldest = new AtomicLong();
+	private final AtomicLong shed = new AtomicLong();
+	private volatile int highWaterMark;
+
+	private volatile Thread waitingConsumer;
+
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new ring buffer.
+	 *
+	 * @param capacity The capacity, rounded up to the next power of 2
+	 * @param dropPolicy The policy applied if the buffer is full
+	 * @param shedThreshold Fraction of the capacity (0 to 1) at which low-priority
+	 * sentences are shed when using {@link DropPolicy#DROP_BY_TYPE}
+	 */
+	public SentenceRingBuffer(int capacity, DropPolicy dropPolicy, double shedThreshold) {
+		Assert.isTrue(capacity > 0 && capacity <= 1 << 30, "capacity must be between 1 and 2^30.");
+		Assert.notNull(dropPolicy, "dropPolicy must not be null.");
+		Assert.isTrue(shedThreshold > 0 && shedThreshold <= 1, "shedThreshold must be greater than 0 and not exceed 1.");
+		this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = this.capacity - 1;
+		this.slots = new AtomicReferenceArray<>(this.capacity);
+		this.dropPolicy = dropPolicy;
+		this.shedThreshold = Math.max(1, (int) (this.capacity * shedThreshold));
+	}
+
+	/**
+	 * Offers a sentence to the buffer. Must only be invoked by the producer thread.
+	 *
+	 * @param sentence The sentence to add
+	 * @param sheddable Whether the sentence is of a low-priority type that may
+	 * be shed when using {@link DropPolicy#DROP_BY_TYPE}
+	 * @return false if the sentence was shed or the producer got interrupted or the
+	 * buffer got closed while blocking, true otherwise
+	 */
+	public boolean offer(String sentence, boolean sheddable) {
+		final long currentTail = this.tail.get();
+
+		if (sheddable && this.dropPolicy == DropPolicy.DROP_BY_TYPE
+				&& currentTail - this.head.get() >= this.shedThreshold) {
+			this.shed.incrementAndGet();
+			return false;
+		}
+
+		long currentHead;
+		while (currentTail - (currentHead = this.head.get()) >= this.capacity) {
+			if (this.dropPolicy == DropPolicy.BLOCK) {
+				if (this.closed || Thread.currentThread().isInterrupted()) {
+					return false;
+				}
+				LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+			}
+			else if (this.head.compareAndSet(currentHead, currentHead + 1)) {
+				this.droppedOldest.incrementAndGet();
+			}
+		}
+
+		this.slots.set((int) currentTail & this.mask, sentence);
+		this.tail.set(currentTail + 1);
+
+		final int occupancy = (int) (currentTail + 1 - this.head.get());
+		if (occupancy > this.highWaterMark) {
+			this.highWaterMark = occupancy;
+		}
+
+		final Thread consumer = this.waitingConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the oldest sentence. Must only be invoked by the consumer thread.
+	 *
+	 * @return The oldest sentence or null if the buffer is empty
+	 */
+	public String poll() {
+		while (true) {
+			final long currentHead = this.head.get();
+			if (currentHead >= this.tail.get()) {
+				return null;
+			}
+			final int index = (int) currentHead & this.mask;
+			final String sentence = this.slots.get(index);
+			if (this.head.compareAndSet(currentHead, currentHead + 1)) {
+				// Must not pin the sentence until the slot is reused, unless the
+				// producer already did so
+				this.slots.compareAndSet(index, sentence, null);
+				return sentence;
+			}
+		}
+	}
+
+	/**
+	 * Removes the oldest sentence, waiting for one to become available if the
+	 * buffer is empty. Must only be invoked by the consumer thread.
+	 *
+	 * @return The oldest sentence or null if the buffer got closed and is empty
+	 * @throws InterruptedException if the consumer thread got interrupted while waiting
+	 */
+	public String take() throws InterruptedException {
+		String sentence;
+		while ((sentence = this.poll()) == null) {
+			if (this.closed) {
+				return null;
+			}
+			this.waitingConsumer = Thread.currentThread();
+			if (this.size() == 0 && !this.closed) {
+				LockSupport.park(this);
+			}
+			this.waitingConsumer = null;
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		return sentence;
+	}
+
+	/**
+	 * Closes the buffer, releasing a producer blocked by {@link DropPolicy#BLOCK}.
+	 * A consumer waiting in {@link #take()} is woken up and can drain the
+	 * remaining sentences.
+	 */
+	public void close() {
+		this.closed = true;
+		final Thread consumer = this.waitingConsumer;
+		if (consumer != null) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	/**
+	 * Returns the number of buffered sentences.
+	 * @return The current occupancy
+	 */
+	public int size() {
+		return (int) Math.max(0, this.tail.get() - this.head.get());
+	}
+
+	/**
+	 * Returns the capacity of the buffer.
+	 * @return The capacity, always a power of 2
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the highest occupancy observed so far.
+	 * @return The high-water mark
+	 */
+	public int getHighWaterMark() {
+		return this.highWaterMark;
+	}
+
+	/**
+	 * Returns the number of sentences dropped to make room for newer ones.
+	 * @return The number of dropped sentences
+	 */
+	public long getDroppedOldest() {
+		return this.droppedOldest.get();
+	}
+
+	/**
+	 * Returns the number of low-priority sentences that were shed.
+	 * @return The number of shed sentences
+	 */
+	public long getShed() {
+		return this.shed.get();
+	}
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Cheap prefilter applied to each framed NMEA sentence before it is dispatched
+ * and parsed. The sentence type is read directly from the bytes 3 to 5 of the
+ * frame (e.g. {@code GGA} for {@code $GNGGA}), or from the tag of proprietary
+ * u-blox sentences ({@code UBX} for {@code $PUBX}), so that sentences not on
+ * the configured allow-list are dropped without creating any objects.
+ *
+ * Every sentence is counted per type, whether it is accepted or dropped. The
+ * following metrics are exported:
+ *
+ * <ul>
+ *   <li>nmea - Number of NMEA sentences received (tag message_type, e.g. GGA or UBX)
+ *   <li>nmea.filter.dropped - Number of NMEA sentences dropped as their type is not on the allow-list
+ *</ul>
+ *
+ * Instances are not thread-safe and must only be used by the reader thread of
+ * a single device.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class SentenceTypeFilter {
+
+	/**
+	 * Upper bound of distinct sentence types counted separately, so that a
+	 * misbehaving device cannot create an unbounded number of meters.
+	 */
+	private static final int MAX_SENTENCE_TYPES = 64;
+
+	private static final String OTHER_SENTENCE_TYPE = "OTHER";
+
+	private static final int UNKNOWN_TYPE = -1;
+
+	private final boolean enabled;
+	private final int[] allowedTypes;
+	private final Tags tags;
+
+	private int[] types = new int[16];
+	private Counter[] counters = new Counter[16];
+	private int size;
+
+	private final Counter otherCounter;
+	private final Meter droppedCounter;
+
+	private volatile long dropped;
+
+	public SentenceTypeFilter(ConnectionType connectionType, String deviceId, DemoSettings.Filter settings) {
+		Assert.notNull(connectionType, "connectionType must not be null.");
+		Assert.hasText(deviceId, "deviceId must not be null or empty.");
+		Assert.notNull(settings, "settings must not be null.");
+		this.enabled = settings.isEnabled();
+		this.tags = Tags.of("connection_type", connectionType.name(), "device", deviceId);
+
+		final List<String> sentenceTypes = settings.getSentenceTypes();
+		this.allowedTypes = new int[sentenceTypes.size()];
+		for (int i = 0; i < sentenceTypes.size(); i++) {
+			final String sentenceType = sentenceTypes.get(i);
+			Assert.isTrue(sentenceType != null && sentenceType.length() == 3,
+					() -> String.format("Sentence type '%s' must consist of 3 characters.", sentenceType));
+			this.allowedTypes[i] = toType(sentenceType.charAt(0), sentenceType.charAt(1), sentenceType.charAt(2));
+			this.register(this.allowedTypes[i], sentenceType);
+		}
+
+		this.otherCounter = this.createCounter(OTHER_SENTENCE_TYPE);
+		this.droppedCounter = FunctionCounter.builder("nmea.filter.dropped", this, SentenceTypeFilter::getDropped)
+				.description("Number of NMEA sentences dropped as their type is not on the allow-list.")
+				.tags(this.tags)
+				.register(Metrics.globalRegistry);
+	}
+
+	/**
+	 * Counts the framed sentence and checks whether it shall be dispatched.
+	 *
+	 * @param frame The buffer holding the sentence
+	 * @param offset The offset of the start byte ({@code $} or {@code !})
+	 * @param length The length of the sentence
+	 * @return true if the sentence shall be dispatched, false if it shall be dropped
+	 */
+	public boolean accept(byte[] frame, int offset, int length) {
+		final int type = typeOf(frame, offset, length);
+		final int index = this.indexOf(type);
+		if (index >= 0) {
+			this.counters[index].increment();
+		}
+		else if (type != UNKNOWN_TYPE && this.size < MAX_SENTENCE_TYPES) {
+			this.counters[this.register(type, new String(frame, offset + 3, 3, StandardCharsets.ISO_8859_1))]
+					.increment();
+		}
+		else {
+			this.otherCounter.increment();
+		}
+
+		if (!this.enabled || this.isAllowed(type)) {
+			return true;
+		}
+		this.dropped++;
+		return false;
+	}
+
+	/**
+	 * Returns the number of sentences dropped by this filter.
+	 * @return The number of dropped sentences
+	 */
+	public long getDropped() {
+		return this.dropped;
+	}
+
+	/**
+	 * Removes the metrics bound to this filter. Must be invoked once the filter
+	 * is no longer used.
+	 */
+	public void close() {
+		Metrics.globalRegistry.remove(this.droppedCounter);
+	}
+
+	/**
+	 * Returns the sentence type of the frame packed into an int, or
+	 * {@link #UNKNOWN_TYPE} if the frame has no valid address field.
+	 */
+	private static int typeOf(byte[] frame, int offset, int length) {
+		if (length > 5
+				&& frame[offset + 1] == 'P'
+				&& frame[offset + 2] == 'U'
+				&& frame[offset + 3] == 'B'
+				&& frame[offset + 4] == 'X'
+				&& frame[offset + 5] == ',') {
+			return toType('U', 'B', 'X');
+		}
+		if (length > 6 && frame[offset + 6] == ',') {
+			return toType(frame[offset + 3], frame[offset + 4], frame[offset + 5]);
+		}
+		return UNKNOWN_TYPE;
+	}
+
+	private static int toType(int first, int second, int third) {
+		return (first & 0xFF) << 16 | (second & 0xFF) << 8 | (third & 0xFF);
+	}
+
+	private boolean isAllowed(int type) {
+		for (int i = 0; i < this.allowedTypes.length; i++) {
+			if (this.allowedTypes[i] == type) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int indexOf(int type) {
+		for (int i = 0; i < this.size; i++) {
+			if (this.types[i] == type) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private int register(int type, String sentenceType) {
+		final int existing = this.indexOf(type);
+		if (existing >= 0) {
+			return existing;
+		}
+		if (this.size == this.types.length) {
+			this.types = Arrays.copyOf(this.types, this.size * 2);
+			this.counters = Arrays.copyOf(this.counters, this.size * 2);
+		}
+		this.types[this.size] = type;
+		this.counters[this.size] = this.createCounter(sentenceType);
+		return this.size++;
+	}
+
+	private Counter createCounter(String sentenceType) {
+		return Counter.builder("nmea")
+				.description("Number of NMEA sentences received per sentence type.")
+				.tags(this.tags.and("message_type", sentenceType))
+				.register(Metrics.globalRegistry);
+	}
+
+}
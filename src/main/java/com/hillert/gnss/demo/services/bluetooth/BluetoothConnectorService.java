@@ -18,10 +18,17 @@ package com.hillert.gnss.demo.services.bluetooth;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.bluetooth.BluetoothStateException;
 import javax.bluetooth.DiscoveryAgent;
@@ -33,13 +40,16 @@ import javax.microedition.io.StreamConnection;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
 import com.hillert.gnss.demo.model.RemoteGnssDevice;
-import com.hillert.gnss.demo.services.AbstractConnectorService;
+import com.hillert.gnss.demo.services.AbstractStreamConnectorService;
 import com.hillert.gnss.demo.services.ConnectionType;
 import com.hillert.gnss.demo.services.ConnectorService;
+import com.hillert.gnss.demo.services.ConnectorServiceFactory;
+import com.hillert.gnss.demo.support.DemoSettings;
 
 /**
 * See {@link ConnectorService}.
@@ -47,24 +57,39 @@ import com.hillert.gnss.demo.services.ConnectorService;
 * @author Gunnar Hillert
 *
 */
-@Service
-@ConditionalOnProperty(name = "demo.settings.type", havingValue = "BLUETOOTH")
-public class BluetoothConnectorService extends AbstractConnectorService {
+@Service(ConnectorServiceFactory.BLUETOOTH_CONNECTOR_SERVICE)
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class BluetoothConnectorService extends AbstractStreamConnectorService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(BluetoothConnectorService.class);
 
 	private SortedSet<RemoteGnssDevice> discoveredRemoteDeviceServices = new ConcurrentSkipListSet<>();
 
-	private StreamConnection streamConnection;
+	private volatile StreamConnection streamConnection;
 
 	/**
 	 * Starts the Bluetooth devices discovery. Close-by devices are printed in
-	 * console.
+	 * console. If enabled, the cached devices of a previous discovery are probed
+	 * first and a full inquiry is only performed if none of them is reachable.
+	 * The service searches of the discovered devices are executed concurrently,
+	 * limited by the maximum number of service search transactions supported by
+	 * the Bluetooth stack.
 	 *
 	 */
 	@Override
 	public List<RemoteGnssDevice> discoverAndGetDevices() {
 
+		final DemoSettings.Bluetooth settings = this.getDemoSettings().getBluetooth();
+		final BluetoothDeviceCache deviceCache = new BluetoothDeviceCache(settings.getDeviceCacheFile());
+
+		if (settings.isUseDeviceCache()) {
+			final List<RemoteGnssDevice> cachedDevices = this.getReachableCachedDevices(deviceCache);
+			if (!cachedDevices.isEmpty()) {
+				LOGGER.info("Using {} cached device(s), skipping the device discovery.", cachedDevices.size());
+				return cachedDevices;
+			}
+		}
+
 		final LocalDevice localDevice = this.getLocalDeviceInformation();
 
 		final DiscoveryAgent agent = localDevice.getDiscoveryAgent();
@@ -92,79 +117,115 @@ public class BluetoothConnectorService extends AbstractConnectorService {
 		final UUID[] bluetoothServiceClassuUuids = new UUID[1];
 		bluetoothServiceClassuUuids[0] = new UUID(BluetoothServiceClass.SERIAL_PORT.getId());
 
-		for (RemoteDevice device : listener.getDiscoveredBluetoothDevices()) {
+		final int maxServiceSearches = getMaxServiceSearches();
+		final ExecutorService executorService = Executors.newFixedThreadPool(maxServiceSearches);
+		final List<Future<Set<RemoteGnssDevice>>> serviceSearches = new ArrayList<>();
 
-			final String deviceName;
-			try {
-				deviceName = device.getFriendlyName(false);
-			}
-			catch (IOException e) {
-				throw new IllegalStateException("Remote device can not be contacted or the remote " +
-						"device could not provide its name.", e);
-			}
-			try {
-				LOGGER.info("Trying to discover the following service(s): '{}' for device '{}'.", bluetoothServiceClassuUuids, deviceName);
-				listener.resetCountDownLatch();
-				agent.searchServices(null, bluetoothServiceClassuUuids, device, listener);
-			}
-			catch (BluetoothStateException e) {
-				throw new IllegalStateException("The Bluetooth services search failed.", e);
-			}
+		LOGGER.info("Searching services of {} device(s), {} at a time.", listener.getDiscoveredBluetoothDevices().size(), maxServiceSearches);
 
-			try {
-				listener.getCountDownLatch().await();
-			}
-			catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				LOGGER.warn("The discovery of Bluetooth services got interrupted.");
+		try {
+			for (RemoteDevice device : listener.getDiscoveredBluetoothDevices()) {
+				serviceSearches.add(executorService.submit(
+						() -> this.searchServices(agent, device, bluetoothServiceClassuUuids, settings.getServiceSearchTimeout())));
 			}
 
-			LOGGER.info("The search for Bluetooth services for device {} finished.", deviceName);
+			for (Future<Set<RemoteGnssDevice>> serviceSearch : serviceSearches) {
+				try {
+					this.discoveredRemoteDeviceServices.addAll(serviceSearch.get());
+				}
+				catch (ExecutionException e) {
+					LOGGER.warn("The Bluetooth services search failed.", e.getCause());
+				}
+			}
 		}
-
-		for (RemoteGnssDevice remoteDeviceService : listener.getRemoteDeviceServices()) {
-			this.discoveredRemoteDeviceServices.add(remoteDeviceService);
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.warn("The discovery of Bluetooth services got interrupted.");
+		}
+		finally {
+			executorService.shutdownNow();
 		}
 
 		LOGGER.info("Finished device discovery.");
 
+		if (!this.discoveredRemoteDeviceServices.isEmpty()) {
+			deviceCache.save(this.discoveredRemoteDeviceServices);
+		}
+
 		return new ArrayList<RemoteGnssDevice>(this.discoveredRemoteDeviceServices);
 	}
 
-	@Override
-	public void subscribeToData(String address) {
+	/**
+	 * Searches the services of a single device using a dedicated listener. If
+	 * the search does not complete within the provided timeout, it is cancelled
+	 * and the services found so far are returned.
+	 */
+	private Set<RemoteGnssDevice> searchServices(DiscoveryAgent agent, RemoteDevice device, UUID[] uuids, Duration timeout)
+			throws BluetoothStateException, InterruptedException {
 
-		try {
-			this.streamConnection = (StreamConnection) Connector.open(address);
+		final String deviceName = BluetoothDiscoveryListener.getFriendlyName(device);
+		final BluetoothDiscoveryListener listener = new BluetoothDiscoveryListener();
 
-			try (
-				final InputStream is = streamConnection.openInputStream();
-				) {
-				super.extractMessages(is);
-			}
+		LOGGER.info("Trying to discover the following service(s): '{}' for device '{}'.", uuids, deviceName);
+		final int transactionId = agent.searchServices(null, uuids, device, listener);
+
+		if (!listener.getCountDownLatch().await(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+			LOGGER.warn("The search for Bluetooth services for device {} timed out after {}.", deviceName, timeout);
+			agent.cancelServiceSearch(transactionId);
 		}
-		catch (IOException e) {
-			throw new IllegalStateException("Unable to open Bluetooth coonnection to address:" + address, e);
+		else {
+			LOGGER.info("The search for Bluetooth services for device {} finished.", deviceName);
 		}
-		finally {
-			if (this.streamConnection != null) {
-				try {
-					this.streamConnection.close();
-				}
-				catch (IOException e) {
-					throw new IllegalStateException(e);
-				}
+		return listener.getRemoteDeviceServices();
+	}
+
+	/**
+	 * Probes the devices of the device cache by briefly opening a connection to
+	 * each of them.
+	 */
+	private List<RemoteGnssDevice> getReachableCachedDevices(BluetoothDeviceCache deviceCache) {
+		final List<RemoteGnssDevice> reachableDevices = new ArrayList<>();
+		for (RemoteGnssDevice cachedDevice : deviceCache.load()) {
+			try {
+				Connector.open(cachedDevice.getConnectionId()).close();
+				LOGGER.info("Cached device {} is reachable.", cachedDevice.getRemoteDeviceLabel());
+				reachableDevices.add(cachedDevice);
+			}
+			catch (IOException e) {
+				LOGGER.info("Cached device {} is not reachable: {}", cachedDevice.getRemoteDeviceLabel(), e.getMessage());
 			}
 		}
+		return reachableDevices;
+	}
+
+	private static int getMaxServiceSearches() {
+		final String maxTransactions = LocalDevice.getProperty("bluetooth.sd.trans.max");
+		try {
+			return maxTransactions != null ? Math.max(1, Integer.parseInt(maxTransactions.trim())) : 1;
+		}
+		catch (NumberFormatException e) {
+			LOGGER.warn("Unable to parse bluetooth.sd.trans.max value '{}'.", maxTransactions);
+			return 1;
+		}
+	}
+
+	@Override
+	protected InputStream openConnection(String address) throws IOException {
+		final StreamConnection connection = (StreamConnection) Connector.open(address);
+		this.streamConnection = connection;
+		return connection.openInputStream();
 	}
 
 	@Override
-	public void disconnect() {
-		if (this.streamConnection != null) {
+	protected void closeConnection() {
+		final StreamConnection connection = this.streamConnection;
+		this.streamConnection = null;
+		if (connection != null) {
 			try {
-				this.streamConnection.close();
-			} catch (IOException e) {
-				throw new IllegalStateException(e);
+				connection.close();
+			}
+			catch (IOException e) {
+				LOGGER.warn("Unable to close the Bluetooth connection.", e);
 			}
 		}
 	}
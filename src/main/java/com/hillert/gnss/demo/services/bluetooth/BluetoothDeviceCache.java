@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services.bluetooth;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.model.RemoteGnssDevice;
+
+/**
+* Persists the last known good {@link RemoteGnssDevice}s, so that subsequent
+* application starts can try the cached connection urls before performing a
+* full (and slow) Bluetooth inquiry. The cache is stored as a properties file
+* mapping connection urls to device labels.
+*
+* @author Gunnar Hillert
+*
+*/
+public class BluetoothDeviceCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BluetoothDeviceCache.class);
+
+	private final Path cacheFile;
+
+	public BluetoothDeviceCache(Path cacheFile) {
+		Assert.notNull(cacheFile, "cacheFile must not be null.");
+		this.cacheFile = cacheFile;
+	}
+
+	/**
+	 * Loads the cached devices.
+	 *
+	 * @return The cached devices, never null
+	 */
+	public synchronized List<RemoteGnssDevice> load() {
+		final List<RemoteGnssDevice> devices = new ArrayList<>();
+		if (!Files.isRegularFile(this.cacheFile)) {
+			return devices;
+		}
+
+		final Properties properties = new Properties();
+		try (InputStream inputStream = Files.newInputStream(this.cacheFile)) {
+			properties.load(inputStream);
+		}
+		catch (IOException e) {
+			LOGGER.warn("Unable to read the Bluetooth device cache {}: {}", this.cacheFile, e.getMessage());
+			return devices;
+		}
+
+		for (String connectionId : properties.stringPropertyNames()) {
+			devices.add(new RemoteGnssDevice(properties.getProperty(connectionId), connectionId));
+		}
+		return devices;
+	}
+
+	/**
+	 * Replaces the cached devices with the provided ones. Failures are logged
+	 * but otherwise ignored as the cache is an optimization only.
+	 *
+	 * @param devices The devices to cache
+	 */
+	public synchronized void save(Collection<RemoteGnssDevice> devices) {
+		final Properties properties = new Properties();
+		for (RemoteGnssDevice device : devices) {
+			properties.setProperty(device.getConnectionId(), device.getRemoteDeviceLabel());
+		}
+
+		try {
+			if (this.cacheFile.getParent() != null) {
+				Files.createDirectories(this.cacheFile.getParent());
+			}
+			try (OutputStream outputStream = Files.newOutputStream(this.cacheFile)) {
+				properties.store(outputStream, "Last known good Bluetooth GNSS devices");
+			}
+		}
+		catch (IOException e) {
+			LOGGER.warn("Unable to write the Bluetooth device cache {}: {}", this.cacheFile, e.getMessage());
+		}
+	}
+}
@@ -33,7 +33,8 @@ import org.slf4j.LoggerFactory;
 
 /**
 * {@link DiscoveryListener} implementation that handles device discovery and
-* service discovery events.
+* service discovery events. As each instance has its own {@link CountDownLatch},
+* a separate instance is used for each concurrent service search.
 *
 * @author Gunnar Hillert
 *
@@ -42,7 +43,7 @@ public class BluetoothDiscoveryListener implements DiscoveryListener {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(BluetoothDiscoveryListener.class);
 
-	private CountDownLatch countDownLatch = new CountDownLatch(1);
+	private final CountDownLatch countDownLatch = new CountDownLatch(1);
 
 	private final Set<RemoteDevice> discoveredBluetoothDevices = ConcurrentHashMap.newKeySet();
 	private final Set<RemoteGnssDevice> remoteDeviceServices = ConcurrentHashMap.newKeySet();
@@ -52,15 +53,7 @@ public class BluetoothDiscoveryListener implements DiscoveryListener {
 
 	@Override
 	public void deviceDiscovered(RemoteDevice remoteDevice, DeviceClass deviceClass) {
-		final String address = remoteDevice.getBluetoothAddress();
-		try {
-			final String name = remoteDevice.getFriendlyName(false);
-			LOGGER.info("New device discovered: [{}  - {}].", name, address);
-		}
-		catch (IOException e) {
-			throw new IllegalStateException(String.format("The remote device (address: %s) can not be contacted "
-					+ "or the remote device could not provide its name.", address), e);
-		}
+		LOGGER.info("New device discovered: [{}  - {}].", getFriendlyName(remoteDevice), remoteDevice.getBluetoothAddress());
 		this.discoveredBluetoothDevices.add(remoteDevice);
 	}
 
@@ -102,13 +95,7 @@ public class BluetoothDiscoveryListener implements DiscoveryListener {
 			else {
 				LOGGER.info("service found with connectionUrl {}.", connectionUrl);
 			}
-			try {
-				this.remoteDeviceServices.add(new RemoteGnssDevice(services[i].getHostDevice().getFriendlyName(false), connectionUrl));
-			}
-			catch (IOException e) {
-				throw new IllegalStateException("The remote device can not be "
-						+ "contacted or the remote device could not provide its name.", e);
-			}
+			this.remoteDeviceServices.add(new RemoteGnssDevice(getFriendlyName(services[i].getHostDevice()), connectionUrl));
 		}
 	}
 
@@ -140,12 +127,28 @@ public class BluetoothDiscoveryListener implements DiscoveryListener {
 		this.countDownLatch.countDown();
 	}
 
-	public CountDownLatch getCountDownLatch() {
-		return this.countDownLatch;
+	/**
+	 * Returns the friendly name of the remote device. As a single unresponsive
+	 * device must not abort the discovery of all other devices, the Bluetooth
+	 * address is returned if the name cannot be retrieved.
+	 *
+	 * @param remoteDevice The remote device
+	 * @return The friendly name or the Bluetooth address of the device
+	 */
+	static String getFriendlyName(RemoteDevice remoteDevice) {
+		final String address = remoteDevice.getBluetoothAddress();
+		try {
+			final String name = remoteDevice.getFriendlyName(false);
+			return name != null ? name : address;
+		}
+		catch (IOException e) {
+			LOGGER.warn("The remote device (address: {}) could not provide its name: {}", address, e.getMessage());
+			return address;
+		}
 	}
 
-	public void resetCountDownLatch() {
-		this.countDownLatch = new CountDownLatch(1);
+	public CountDownLatch getCountDownLatch() {
+		return this.countDownLatch;
 	}
 
 	public Set<RemoteDevice> getDiscoveredBluetoothDevices() {
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services.network;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import com.hillert.gnss.demo.model.RemoteGnssDevice;
+import com.hillert.gnss.demo.services.AbstractConnectorService;
+import com.hillert.gnss.demo.services.ConnectionType;
+import com.hillert.gnss.demo.services.ConnectorService;
+import com.hillert.gnss.demo.services.ConnectorServiceFactory;
+
+/**
+* Implementation of the {@link ConnectorService} for receivers streaming NMEA
+* over the network, e.g. via a serial-to-Ethernet bridge. Supported connection
+* ids are {@code tcp://host:port}, connecting to a TCP server, and
+* {@code udp://host:port}, listening for UDP datagrams on the given local address.
+*
+* All network connections are serviced by the shared {@link NetworkSelectorLoop}.
+* Therefore, unlike other {@link ConnectorService}s, {@link #subscribeToData(String)}
+* does not block.
+*
+* @author Gunnar Hillert
+*
+*/
+@Service(ConnectorServiceFactory.NETWORK_CONNECTOR_SERVICE)
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class NetworkConnectorService extends AbstractConnectorService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NetworkConnectorService.class);
+
+	@Autowired
+	private NetworkSelectorLoop networkSelectorLoop;
+
+	private NetworkEndpoint networkEndpoint;
+
+	/**
+	 * Network receivers cannot be discovered, please provide the connection id.
+	 */
+	@Override
+	public List<RemoteGnssDevice> discoverAndGetDevices() {
+		LOGGER.info("Network receivers cannot be discovered. Please provide a tcp:// or udp:// connection id.");
+		return Collections.emptyList();
+	}
+
+	@Override
+	public synchronized void subscribeToData(String connectionId) {
+		if (this.networkEndpoint != null) {
+			throw new IllegalStateException("Already subscribed to " + this.networkEndpoint);
+		}
+		this.networkEndpoint = new NetworkEndpoint(connectionId, this.getNmeaReader());
+		this.networkSelectorLoop.register(this.networkEndpoint);
+	}
+
+	@Override
+	public synchronized void disconnect() {
+		if (this.networkEndpoint != null) {
+			this.networkSelectorLoop.unregister(this.networkEndpoint);
+			this.networkEndpoint = null;
+		}
+		this.stopDispatching();
+	}
+
+	@Override
+	public ConnectionType getType() {
+		return ConnectionType.NETWORK;
+	}
+
+}
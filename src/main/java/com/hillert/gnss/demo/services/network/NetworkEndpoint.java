@@ -0,0 +1,189 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Locale;
+
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.services.NmeaReader;
+
+/**
+ * A single TCP or UDP NMEA source serviced by the {@link NetworkSelectorLoop}.
+ * All methods except {@link #deactivate()} must only be called by the selector
+ * thread.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+class NetworkEndpoint {
+
+	private static final int READ_BUFFER_SIZE = 8192;
+
+	private final URI uri;
+	private final boolean udp;
+	private final InetSocketAddress address;
+	private final NmeaReader nmeaReader;
+	private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+	private volatile boolean active = true;
+
+	private SelectableChannel channel;
+	private long nextConnectAttempt = 0;
+
+	/**
+	 * Creates an endpoint for a connection id such as {@code tcp://192.168.1.10:2101}
+	 * (connects to a TCP server) or {@code udp://0.0.0.0:10110} (listens for UDP datagrams).
+	 *
+	 * @param connectionId The connection id of the endpoint
+	 * @param nmeaReader The reader that received data is handed to
+	 */
+	NetworkEndpoint(String connectionId, NmeaReader nmeaReader) {
+		Assert.hasText(connectionId, "connectionId must not be null or empty.");
+		Assert.notNull(nmeaReader, "nmeaReader must not be null.");
+
+		this.uri = URI.create(connectionId);
+		final String scheme = this.uri.getScheme() == null ? "" : this.uri.getScheme().toLowerCase(Locale.ROOT);
+		if (!"tcp".equals(scheme) && !"udp".equals(scheme)) {
+			throw new IllegalArgumentException(String.format("Unsupported connection id '%s'. Expected "
+					+ "tcp://host:port or udp://host:port.", connectionId));
+		}
+		if (this.uri.getHost() == null || this.uri.getPort() < 0) {
+			throw new IllegalArgumentException(String.format("Connection id '%s' requires a host and a port.", connectionId));
+		}
+
+		this.udp = "udp".equals(scheme);
+		this.address = new InetSocketAddress(this.uri.getHost(), this.uri.getPort());
+		this.nmeaReader = nmeaReader;
+	}
+
+	/**
+	 * Opens the underlying channel and registers it with the provided {@link Selector}.
+	 *
+	 * @param selector The selector to register the channel with
+	 * @throws IOException if the channel cannot be opened
+	 */
+	void open(Selector selector) throws IOException {
+		this.readBuffer.clear();
+		if (this.udp) {
+			final DatagramChannel datagramChannel = DatagramChannel.open();
+			this.channel = datagramChannel;
+			datagramChannel.configureBlocking(false);
+			datagramChannel.bind(this.address);
+			datagramChannel.register(selector, SelectionKey.OP_READ, this);
+			this.nmeaReader.markConnected();
+		}
+		else {
+			final SocketChannel socketChannel = SocketChannel.open();
+			this.channel = socketChannel;
+			socketChannel.configureBlocking(false);
+			if (socketChannel.connect(this.address)) {
+				socketChannel.register(selector, SelectionKey.OP_READ, this);
+				this.nmeaReader.markConnected();
+			}
+			else {
+				socketChannel.register(selector, SelectionKey.OP_CONNECT, this);
+			}
+		}
+	}
+
+	/**
+	 * Completes a pending TCP connection.
+	 *
+	 * @param key The selection key of this endpoint
+	 * @throws IOException if the connection cannot be established
+	 */
+	void finishConnect(SelectionKey key) throws IOException {
+		if (((SocketChannel) this.channel).finishConnect()) {
+			key.interestOps(SelectionKey.OP_READ);
+			this.nmeaReader.markConnected();
+		}
+	}
+
+	/**
+	 * Reads the available data and hands it to the {@link NmeaReader}.
+	 *
+	 * @return false if the remote end closed the connection
+	 * @throws IOException if reading from the channel fails
+	 */
+	boolean read() throws IOException {
+		if (this.udp) {
+			while (true) {
+				this.readBuffer.clear();
+				if (((DatagramChannel) this.channel).receive(this.readBuffer) == null) {
+					return true;
+				}
+				this.nmeaReader.onData(this.readBuffer.array(), 0, this.readBuffer.position());
+			}
+		}
+
+		final SocketChannel socketChannel = (SocketChannel) this.channel;
+		while (true) {
+			this.readBuffer.clear();
+			final int bytesRead = socketChannel.read(this.readBuffer);
+			if (bytesRead < 0) {
+				return false;
+			}
+			if (bytesRead == 0) {
+				return true;
+			}
+			this.nmeaReader.onData(this.readBuffer.array(), 0, bytesRead);
+		}
+	}
+
+	void close() {
+		if (this.channel != null) {
+			try {
+				this.channel.close();
+			}
+			catch (IOException e) {
+				// Nothing left to do, the channel is discarded anyway
+			}
+			this.channel = null;
+		}
+	}
+
+	void deactivate() {
+		this.active = false;
+	}
+
+	boolean isActive() {
+		return this.active;
+	}
+
+	long getNextConnectAttempt() {
+		return this.nextConnectAttempt;
+	}
+
+	void setNextConnectAttempt(long nextConnectAttempt) {
+		this.nextConnectAttempt = nextConnectAttempt;
+	}
+
+	@Override
+	public String toString() {
+		return this.uri.toString();
+	}
+}
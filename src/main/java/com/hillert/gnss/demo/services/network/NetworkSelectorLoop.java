@@ -0,0 +1,220 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services.network;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Services all {@link NetworkEndpoint}s using a single thread and a non-blocking
+ * {@link Selector}, so that dozens of network receivers do not require a thread
+ * per socket. Endpoints whose connection fails or is closed by the remote end are
+ * re-opened after {@link #RECONNECT_DELAY_MILLIS}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@Component
+public class NetworkSelectorLoop implements DisposableBean {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NetworkSelectorLoop.class);
+
+	/**
+	 * Time to wait before re-opening a failed endpoint.
+	 */
+	static final long RECONNECT_DELAY_MILLIS = 1000;
+
+	private final Queue<NetworkEndpoint> pendingEndpoints = new ConcurrentLinkedQueue<>();
+	private final List<NetworkEndpoint> waitingEndpoints = new ArrayList<>();
+
+	private Selector selector;
+	private Thread selectorThread;
+	private volatile boolean running = false;
+
+	/**
+	 * Opens the provided endpoint on the selector thread. The selector thread is
+	 * started on the first invocation.
+	 *
+	 * @param endpoint The endpoint to service
+	 */
+	synchronized void register(NetworkEndpoint endpoint) {
+		if (this.selectorThread == null) {
+			try {
+				this.selector = Selector.open();
+			}
+			catch (IOException e) {
+				throw new IllegalStateException("Unable to open the network selector.", e);
+			}
+			this.running = true;
+			this.selectorThread = new Thread(this::run, "nmea-network-selector");
+			this.selectorThread.start();
+		}
+		this.pendingEndpoints.add(endpoint);
+		this.selector.wakeup();
+	}
+
+	/**
+	 * Closes the provided endpoint. The endpoint will not be re-opened.
+	 *
+	 * @param endpoint The endpoint to close
+	 */
+	synchronized void unregister(NetworkEndpoint endpoint) {
+		endpoint.deactivate();
+		if (this.selector != null) {
+			this.selector.wakeup();
+		}
+	}
+
+	private void run() {
+		while (this.running) {
+			try {
+				this.openPendingEndpoints();
+				this.selector.select(this.getSelectTimeout());
+				this.processSelectedKeys();
+				this.closeInactiveEndpoints();
+			}
+			catch (IOException e) {
+				LOGGER.error("The network selector failed.", e);
+				this.running = false;
+			}
+		}
+		this.closeAll();
+	}
+
+	private void openPendingEndpoints() {
+		NetworkEndpoint endpoint;
+		while ((endpoint = this.pendingEndpoints.poll()) != null) {
+			this.waitingEndpoints.add(endpoint);
+		}
+
+		final long now = System.currentTimeMillis();
+		for (Iterator<NetworkEndpoint> iterator = this.waitingEndpoints.iterator(); iterator.hasNext();) {
+			endpoint = iterator.next();
+			if (!endpoint.isActive()) {
+				iterator.remove();
+			}
+			else if (endpoint.getNextConnectAttempt() <= now) {
+				iterator.remove();
+				try {
+					endpoint.open(this.selector);
+					LOGGER.info("Opened network endpoint {}.", endpoint);
+				}
+				catch (IOException e) {
+					LOGGER.warn("Unable to open network endpoint {}: {}", endpoint, e.getMessage());
+					this.scheduleReconnect(endpoint);
+				}
+			}
+		}
+	}
+
+	private long getSelectTimeout() {
+		if (this.waitingEndpoints.isEmpty()) {
+			return 0;
+		}
+		long nextConnectAttempt = Long.MAX_VALUE;
+		for (NetworkEndpoint endpoint : this.waitingEndpoints) {
+			nextConnectAttempt = Math.min(nextConnectAttempt, endpoint.getNextConnectAttempt());
+		}
+		return Math.max(1, nextConnectAttempt - System.currentTimeMillis());
+	}
+
+	private void processSelectedKeys() {
+		final Iterator<SelectionKey> iterator = this.selector.selectedKeys().iterator();
+		while (iterator.hasNext()) {
+			final SelectionKey key = iterator.next();
+			iterator.remove();
+
+			final NetworkEndpoint endpoint = (NetworkEndpoint) key.attachment();
+			try {
+				if (key.isConnectable()) {
+					endpoint.finishConnect(key);
+				}
+				else if (key.isReadable() && !endpoint.read()) {
+					LOGGER.warn("Network endpoint {} closed the connection.", endpoint);
+					this.scheduleReconnect(endpoint);
+				}
+			}
+			catch (IOException | CancelledKeyException e) {
+				LOGGER.warn("Network endpoint {} failed: {}", endpoint, e.getMessage());
+				this.scheduleReconnect(endpoint);
+			}
+			catch (RuntimeException e) {
+				// Must not end the loop and thereby stop all other endpoints
+				LOGGER.error("Processing network endpoint {} failed.", endpoint, e);
+				this.scheduleReconnect(endpoint);
+			}
+		}
+	}
+
+	private void closeInactiveEndpoints() {
+		for (SelectionKey key : this.selector.keys()) {
+			final NetworkEndpoint endpoint = (NetworkEndpoint) key.attachment();
+			if (!endpoint.isActive()) {
+				endpoint.close();
+				LOGGER.info("Closed network endpoint {}.", endpoint);
+			}
+		}
+	}
+
+	private void scheduleReconnect(NetworkEndpoint endpoint) {
+		endpoint.close();
+		if (endpoint.isActive()) {
+			endpoint.setNextConnectAttempt(System.currentTimeMillis() + RECONNECT_DELAY_MILLIS);
+			this.waitingEndpoints.add(endpoint);
+		}
+	}
+
+	private void closeAll() {
+		for (SelectionKey key : this.selector.keys()) {
+			((NetworkEndpoint) key.attachment()).close();
+		}
+		try {
+			this.selector.close();
+		}
+		catch (IOException e) {
+			LOGGER.warn("Unable to close the network selector.", e);
+		}
+	}
+
+	@Override
+	public void destroy() throws InterruptedException {
+		final Thread thread;
+		synchronized (this) {
+			this.running = false;
+			thread = this.selectorThread;
+			if (this.selector != null) {
+				this.selector.wakeup();
+			}
+		}
+		if (thread != null) {
+			thread.join(TimeUnit.SECONDS.toMillis(5));
+		}
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services.replay;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Service;
+
+import com.google.common.util.concurrent.AtomicDouble;
+import com.hillert.gnss.demo.journal.NmeaJournal;
+import com.hillert.gnss.demo.model.RemoteGnssDevice;
+import com.hillert.gnss.demo.nmea.NmeaBytes;
+import com.hillert.gnss.demo.nmea.NmeaFramer;
+import com.hillert.gnss.demo.services.AbstractConnectorService;
+import com.hillert.gnss.demo.services.ConnectionType;
+import com.hillert.gnss.demo.services.ConnectorService;
+import com.hillert.gnss.demo.services.ConnectorServiceFactory;
+import com.hillert.gnss.demo.services.SentenceRingBuffer;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+
+/**
+* Implementation of the {@link ConnectorService} that replays a recorded NMEA
+* log file. The file is memory-mapped and its lines are pushed through the same
+* read path as live data, either at the recorded pace, at a multiple of it or
+* as fast as possible (see {@link DemoSettings.Replay}). GZIP compressed files
+* ({@code .gz}) are streamed instead, and for a directory all {@link NmeaJournal}
+* segments in it are replayed in order.
+*
+* The recorded pace is derived from the ingest time of {@link NmeaJournal} lines
+* or, for plain NMEA logs, from the UTC time of the GGA and RMC sentences.
+* The achieved throughput is logged and exported as the
+* {@code nmea.replay.sentences.per.second} gauge.
+*
+* @author Gunnar Hillert
+*
+*/
+@Service(ConnectorServiceFactory.REPLAY_CONNECTOR_SERVICE)
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class ReplayConnectorService extends AbstractConnectorService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReplayConnectorService.class);
+
+	private static final long MAX_MAPPING_SIZE = 256L * 1024 * 1024;
+
+	private static final int MAX_READ_SIZE = 64 * 1024;
+
+	private static final int MILLIS_PER_DAY = 24 * 60 * 60 * 1000;
+
+	private final byte[] lineBuffer = new byte[NmeaFramer.DEFAULT_MAX_FRAME_LENGTH];
+
+	private volatile boolean running = false;
+
+	private AtomicDouble sentencesPerSecondGauge;
+
+	private double speed;
+	private long replayStartNanos;
+	private int firstTimeOfDay;
+	private int lastTimeOfDay;
+	private long dayOffset;
+	private long firstIngestTime;
+
+	/**
+	 * Recorded logs cannot be discovered, please provide the path of the log
+	 * file as the device id.
+	 */
+	@Override
+	public List<RemoteGnssDevice> discoverAndGetDevices() {
+		LOGGER.info("Recorded NMEA logs cannot be discovered. Please provide the path to the log file.");
+		return Collections.emptyList();
+	}
+
+	@Override
+	public void subscribeToData(String logFile) {
+		final Path path = Paths.get(logFile);
+
+		this.speed = this.getDemoSettings().getReplay().getSpeed();
+		if (this.sentencesPerSecondGauge == null) {
+			this.sentencesPerSecondGauge = Metrics.gauge("nmea.replay.sentences.per.second",
+					Tags.of("device", this.getDeviceId()), new AtomicDouble(0));
+		}
+		this.running = true;
+
+		LOGGER.info("Replaying NMEA log {} at {}.", path, this.speed > 0 ? this.speed + "x real time" : "maximum speed");
+
+		do {
+			final long linesBefore = this.getNmeaReader().getLineCount();
+			final long start = System.nanoTime();
+
+			this.replayStartNanos = -1;
+			this.dayOffset = 0;
+			if (Files.isDirectory(path)) {
+				for (Path segment : NmeaJournal.listSegments(path)) {
+					if (!this.running) {
+						break;
+					}
+					this.replay(segment);
+				}
+			}
+			else {
+				this.replay(path);
+			}
+
+			final double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+			final long lines = this.getNmeaReader().getLineCount() - linesBefore;
+			final double sentencesPerSecond = seconds > 0 ? lines / seconds : 0;
+			this.sentencesPerSecondGauge.set(sentencesPerSecond);
+
+			LOGGER.info("Replayed {} sentences from {} in {} s ({} sentences/s).",
+					lines, path, String.format("%.3f", seconds), String.format("%.0f", sentencesPerSecond));
+		}
+		while (this.running && this.getDemoSettings().getReplay().isLoop() && !Thread.currentThread().isInterrupted());
+
+		this.running = false;
+	}
+
+	private void replay(Path path) {
+		if (path.getFileName().toString().endsWith(".gz")) {
+			this.replayCompressed(path);
+			return;
+		}
+
+		try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final long size = fileChannel.size();
+			int lineLength = 0;
+
+			for (long position = 0; position < size && this.running; position += MAX_MAPPING_SIZE) {
+				final MappedByteBuffer mappedByteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY,
+						position, Math.min(MAX_MAPPING_SIZE, size - position));
+
+				while (mappedByteBuffer.hasRemaining()) {
+					final byte b = mappedByteBuffer.get();
+					this.lineBuffer[lineLength++] = b;
+
+					if (b == '\n' || lineLength == this.lineBuffer.length) {
+						if (!this.dispatchLine(lineLength)) {
+							return;
+						}
+						lineLength = 0;
+					}
+				}
+			}
+
+			if (lineLength > 0) {
+				this.lineBuffer[lineLength++] = '\n';
+				this.dispatchLine(lineLength);
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Unable to replay the NMEA log " + path, e);
+		}
+	}
+
+	private void replayCompressed(Path path) {
+		try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(path), MAX_READ_SIZE)) {
+			final byte[] readBuffer = new byte[MAX_READ_SIZE];
+			int lineLength = 0;
+			int bytesRead;
+
+			while ((bytesRead = inputStream.read(readBuffer)) >= 0) {
+				for (int i = 0; i < bytesRead; i++) {
+					final byte b = readBuffer[i];
+					this.lineBuffer[lineLength++] = b;
+
+					if (b == '\n' || lineLength == this.lineBuffer.length) {
+						if (!this.dispatchLine(lineLength)) {
+							return;
+						}
+						lineLength = 0;
+					}
+				}
+			}
+
+			if (lineLength > 0) {
+				this.lineBuffer[lineLength++] = '\n';
+				this.dispatchLine(lineLength);
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Unable to replay the NMEA log " + path, e);
+		}
+	}
+
+	private boolean dispatchLine(int length) {
+		if (!this.running || Thread.currentThread().isInterrupted()) {
+			return false;
+		}
+		final int start = Math.max(0, indexOfStartByte(this.lineBuffer, length));
+		if (this.speed > 0) {
+			this.pace(start, length);
+		}
+		this.getNmeaReader().onData(this.lineBuffer, start, length - start);
+		return true;
+	}
+
+	/**
+	 * Delays the current line until its recorded time (relative to the first
+	 * recorded time), scaled by the replay speed, has been reached.
+	 */
+	private void pace(int start, int length) {
+		final long recordedMillis;
+
+		final long ingestTime = parseIngestTime(this.lineBuffer, start);
+		if (ingestTime >= 0) {
+			if (this.replayStartNanos < 0) {
+				this.replayStartNanos = System.nanoTime();
+				this.firstIngestTime = ingestTime;
+				return;
+			}
+			recordedMillis = ingestTime - this.firstIngestTime;
+		}
+		else {
+			if (!(NmeaBytes.isSentenceType(this.lineBuffer, start, length - start, "GGA")
+					|| NmeaBytes.isSentenceType(this.lineBuffer, start, length - start, "RMC"))) {
+				return;
+			}
+
+			final int timeOfDay = NmeaBytes.parseTimeOfDay(this.lineBuffer, start + 7, length);
+			if (timeOfDay < 0) {
+				return;
+			}
+
+			if (this.replayStartNanos < 0) {
+				this.replayStartNanos = System.nanoTime();
+				this.firstTimeOfDay = timeOfDay;
+				this.lastTimeOfDay = timeOfDay;
+				return;
+			}
+
+			if (timeOfDay < this.lastTimeOfDay - MILLIS_PER_DAY / 2) {
+				// The recording passed midnight (UTC)
+				this.dayOffset += MILLIS_PER_DAY;
+			}
+			this.lastTimeOfDay = timeOfDay;
+
+			recordedMillis = this.dayOffset + timeOfDay - this.firstTimeOfDay;
+		}
+
+		final long targetNanos = this.replayStartNanos + (long) (TimeUnit.MILLISECONDS.toNanos(recordedMillis) / this.speed);
+		final long delayNanos = targetNanos - System.nanoTime();
+
+		if (delayNanos > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(delayNanos);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Parses the ingest time prefix of a {@link NmeaJournal} line, i.e. the
+	 * digits followed by a space in front of the start byte.
+	 *
+	 * @return The ingest time in milliseconds since the epoch or -1 if the line
+	 * has no ingest time prefix
+	 */
+	static long parseIngestTime(byte[] line, int start) {
+		if (start < 2 || line[start - 1] != ' ') {
+			return -1;
+		}
+		long ingestTime = 0;
+		for (int i = 0; i < start - 1; i++) {
+			if (!NmeaBytes.isDigit(line[i])) {
+				return -1;
+			}
+			ingestTime = ingestTime * 10 + (line[i] - '0');
+		}
+		return ingestTime;
+	}
+
+	private static int indexOfStartByte(byte[] line, int length) {
+		for (int i = 0; i < length; i++) {
+			if (line[i] == '$' || line[i] == '!') {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void disconnect() {
+		this.running = false;
+		this.stopDispatching();
+	}
+
+	/**
+	 * Replayed sentences are already recorded, so they are never journaled again.
+	 */
+	@Override
+	protected boolean isJournalEnabled() {
+		return false;
+	}
+
+	/**
+	 * Recordings are replayed without losing sentences, so the replay waits for
+	 * the dispatcher instead of dropping sentences.
+	 */
+	@Override
+	protected SentenceRingBuffer.DropPolicy getDropPolicy() {
+		return SentenceRingBuffer.DropPolicy.BLOCK;
+	}
+
+	@Override
+	public ConnectionType getType() {
+		return ConnectionType.REPLAY;
+	}
+
+}
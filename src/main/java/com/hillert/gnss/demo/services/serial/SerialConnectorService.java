@@ -25,32 +25,41 @@ import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
 import com.hillert.gnss.demo.model.RemoteGnssDevice;
-import com.hillert.gnss.demo.services.AbstractConnectorService;
+import com.hillert.gnss.demo.services.AbstractStreamConnectorService;
 import com.hillert.gnss.demo.services.ConnectionType;
 import com.hillert.gnss.demo.services.ConnectorService;
+import com.hillert.gnss.demo.services.ConnectorServiceFactory;
+import com.hillert.gnss.demo.support.DemoSettings;
 
 import gnu.io.CommPort;
 import gnu.io.CommPortIdentifier;
 import gnu.io.NoSuchPortException;
 import gnu.io.PortInUseException;
+import gnu.io.SerialPort;
 import gnu.io.UnsupportedCommOperationException;
 
 /**
 * Implementation of the {@link ConnectorService} for serial connections (e.g. via USB).
+* The port is configured using {@link DemoSettings.Serial}. The receive threshold
+* and timeout allow for bulk reads, so that the reader thread is not woken up
+* for every single byte.
 *
 * @author Gunnar Hillert
 *
 */
-@Service
-@ConditionalOnProperty(name = "demo.settings.type", havingValue = "SERIAL")
-public class SerialConnectorService extends AbstractConnectorService {
+@Service(ConnectorServiceFactory.SERIAL_CONNECTOR_SERVICE)
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class SerialConnectorService extends AbstractStreamConnectorService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(SerialConnectorService.class);
 
+	private volatile CommPort commPort;
+
 	/**
 	 * Starts the discovery for available serial devices.
 	 *
@@ -71,43 +80,63 @@ public class SerialConnectorService extends AbstractConnectorService {
 	}
 
 	@Override
-	public void subscribeToData(String serialPortId) {
+	protected InputStream openConnection(String serialPortId) throws IOException {
 
 		final CommPortIdentifier id;
 		try {
 			id = CommPortIdentifier.getPortIdentifier(serialPortId);
 		}
 		catch (NoSuchPortException e) {
-			throw new IllegalStateException("The requested Port does not exist.", e);
+			throw new IOException("The requested Port does not exist.", e);
 		}
-		final CommPort commPort;
+		final CommPort port;
 		try {
-			commPort = id.open(SerialConnectorService.class.getSimpleName(), 5000);
+			port = id.open(SerialConnectorService.class.getSimpleName(), 5000);
 		}
 		catch (PortInUseException e) {
-			throw new IllegalStateException("The port requested is currently in use.", e);
+			throw new IOException("The port requested is currently in use.", e);
 		}
-		commPort.disableReceiveTimeout();
+		this.commPort = port;
+
+		final DemoSettings.Serial settings = this.getDemoSettings().getSerial();
 		try {
-			commPort.enableReceiveThreshold(1);
+			if (port instanceof SerialPort) {
+				final SerialPort serialPort = (SerialPort) port;
+				serialPort.setSerialPortParams(settings.getBaudRate(), settings.getDataBits(),
+						toStopBits(settings.getStopBits()), toParity(settings.getParity()));
+				serialPort.setFlowControlMode(toFlowControlMode(settings.getFlowControl()));
+			}
+			if (settings.getInputBufferSize() > 0) {
+				port.setInputBufferSize(settings.getInputBufferSize());
+			}
+			port.enableReceiveThreshold(Math.max(1, settings.getReceiveThreshold()));
+			if (settings.getReceiveTimeout().isZero()) {
+				port.disableReceiveTimeout();
+			}
+			else {
+				port.enableReceiveTimeout((int) settings.getReceiveTimeout().toMillis());
+			}
 		}
 		catch (UnsupportedCommOperationException e) {
-			throw new IllegalStateException("Unable to set receive threshold.", e);
+			port.close();
+			this.commPort = null;
+			throw new IOException("Unable to configure serial port " + serialPortId + ".", e);
 		}
 
-		LOGGER.info("Opened serial port: " + serialPortId);
+		LOGGER.info("Opened serial port {} ({} baud, {} data bits, {} stop bits, parity {}, flow control {}).",
+				serialPortId, settings.getBaudRate(), settings.getDataBits(), settings.getStopBits(),
+				settings.getParity(), settings.getFlowControl());
 
-		try (final InputStream is = commPort.getInputStream()) {
-			super.extractMessages(is);
-		}
-		catch (IOException e) {
-			throw new IllegalStateException("Unable to get the input stream from the serial port.", e);
-		}
+		return port.getInputStream();
 	}
 
 	@Override
-	public void disconnect() {
-		// TODO Auto-generated method stub
+	protected void closeConnection() {
+		final CommPort port = this.commPort;
+		this.commPort = null;
+		if (port != null) {
+			port.close();
+		}
 	}
 
 	@Override
@@ -115,6 +144,49 @@ public class SerialConnectorService extends AbstractConnectorService {
 		return ConnectionType.SERIAL;
 	}
 
+	private static int toStopBits(DemoSettings.Serial.StopBits stopBits) {
+		switch (stopBits) {
+			case ONE:
+				return SerialPort.STOPBITS_1;
+			case ONE_POINT_FIVE:
+				return SerialPort.STOPBITS_1_5;
+			case TWO:
+				return SerialPort.STOPBITS_2;
+			default:
+				throw new IllegalStateException(String.format("Stop bits %s are not supported.", stopBits));
+		}
+	}
+
+	private static int toParity(DemoSettings.Serial.Parity parity) {
+		switch (parity) {
+			case NONE:
+				return SerialPort.PARITY_NONE;
+			case ODD:
+				return SerialPort.PARITY_ODD;
+			case EVEN:
+				return SerialPort.PARITY_EVEN;
+			case MARK:
+				return SerialPort.PARITY_MARK;
+			case SPACE:
+				return SerialPort.PARITY_SPACE;
+			default:
+				throw new IllegalStateException(String.format("Parity %s is not supported.", parity));
+		}
+	}
+
+	private static int toFlowControlMode(DemoSettings.Serial.FlowControl flowControl) {
+		switch (flowControl) {
+			case NONE:
+				return SerialPort.FLOWCONTROL_NONE;
+			case RTS_CTS:
+				return SerialPort.FLOWCONTROL_RTSCTS_IN | SerialPort.FLOWCONTROL_RTSCTS_OUT;
+			case XON_XOFF:
+				return SerialPort.FLOWCONTROL_XONXOFF_IN | SerialPort.FLOWCONTROL_XONXOFF_OUT;
+			default:
+				throw new IllegalStateException(String.format("Flow control %s is not supported.", flowControl));
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private static List<CommPortIdentifier> getSerialPortIdentifiers() {
 		final Enumeration<CommPortIdentifier> ids = CommPortIdentifier.getPortIdentifiers();
@@ -1,21 +1,42 @@
 package com.hillert.gnss.demo.store;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 import org.springframework.stereotype.Component;
 
 import com.hillert.gnss.demo.model.GnssStatus;
-import com.hillert.gnss.demo.model.Satellite;
 
+/**
+ * Holds the current {@link GnssStatus} snapshot. Readers get a consistent
+ * snapshot with a single volatile read, writers publish a new snapshot derived
+ * from the current one, retrying if another writer published in the meantime.
+ *
+ * @author Gunnar Hillert
+ *
+ */
 @Component
 public class GnssStatusStore {
 
-	private final GnssStatus gnssStatus = new GnssStatus();
+	private final AtomicReference<GnssStatus> gnssStatus = new AtomicReference<>(GnssStatus.EMPTY);
 
+	/**
+	 * @return The current snapshot, never null
+	 */
 	public GnssStatus getGnssStatus() {
-		return gnssStatus;
+		return this.gnssStatus.get();
+	}
+
+	/**
+	 * Publishes a new snapshot derived from the current one. The update function
+	 * may be invoked more than once if snapshots are published concurrently, so
+	 * it must not have side effects.
+	 *
+	 * @param update Creates the new snapshot from the current one
+	 * @return The published snapshot
+	 */
+	public GnssStatus update(UnaryOperator<GnssStatus> update) {
+		return this.gnssStatus.updateAndGet(update);
 	}
 
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hillert.gnss.demo.store;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.springframework.util.Assert;
+
+/**
+ * Fixed-capacity ring buffer of the received positions, overwriting the oldest
+ * positions once full. The positions are stored column by column in direct
+ * (off-heap) {@link ByteBuffer}s, so even millions of positions neither
+ * allocate nor add to the heap the garbage collector has to trace.
+ * <p>
+ * Positions are appended in time order, so ranges are looked up using binary
+ * search on the time column. Appending is synchronized, reading is lock-free:
+ * positions overwritten while being read are skipped.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public class PositionHistory {
+
+	/**
+	 * Maximum capacity, limited by the size of a {@link ByteBuffer} holding a column of 8 byte values.
+	 */
+	public static final int MAX_CAPACITY = Integer.MAX_VALUE / Long.BYTES;
+
+	private final int capacity;
+
+	private final ByteBuffer times;
+	private final ByteBuffer latitudes;
+	private final ByteBuffer longitudes;
+	private final ByteBuffer altitudes;
+	private final ByteBuffer fixQualities;
+	private final ByteBuffer satellitesInUse;
+	private final ByteBuffer horizontalDilutions;
+
+	/**
+	 * Number of positions appended so far, the sequence of the next position.
+	 */
+	private volatile long appended = 0;
+
+	private long lastTime = Long.MIN_VALUE;
+
+	public PositionHistory(int capacity) {
+		Assert.isTrue(capacity > 0 && capacity <= MAX_CAPACITY,
+				"capacity must be between 1 and " + MAX_CAPACITY + ".");
+		this.capacity = capacity;
+		this.times = allocate(capacity, Long.BYTES);
+		this.latitudes = allocate(capacity, Double.BYTES);
+		this.longitudes = allocate(capacity, Double.BYTES);
+		this.altitudes = allocate(capacity, Float.BYTES);
+		this.fixQualities = allocate(capacity, Byte.BYTES);
+		this.satellitesInUse = allocate(capacity, Byte.BYTES);
+		this.horizontalDilutions = allocate(capacity, Float.BYTES);
+	}
+
+	/**
+	 * Appends a position. Times earlier than the one of the previous position,
+	 * e.g. as the system clock was adjusted, are replaced by the previous time
+	 * to keep the positions sorted.
+	 *
+	 * @param time The time in milliseconds since the epoch
+	 * @param latitude The latitude in decimal degrees
+	 * @param longitude The longitude in decimal degrees
+	 * @param altitude The altitude in meters or {@link Double#NaN} if not available
+	 * @param fixQuality The fix quality indicator or -1 if not available
+	 * @param satellitesInUse The number of satellites used or -1 if not available
+	 * @param horizontalDilution The HDOP or {@link Double#NaN} if not available
+	 */
+	public synchronized void add(long time, double latitude, double longitude, double altitude,
+			int fixQuality, int satellitesInUse, double horizontalDilution) {
+		final long sequence = this.appended;
+		final int index = (int) (sequence % this.capacity);
+		this.lastTime = Math.max(time, this.lastTime);
+
+		// Orders the publication of the previous position before overwriting the oldest one
+		VarHandle.releaseFence();
+		this.times.putLong(index * Long.BYTES, this.lastTime);
+		this.latitudes.putDouble(index * Double.BYTES, latitude);
+		this.longitudes.putDouble(index * Double.BYTES, longitude);
+		this.altitudes.putFloat(index * Float.BYTES, (float) altitude);
+		this.fixQualities.put(index, (byte) Math.max(fixQuality, -1));
+		this.satellitesInUse.put(index, (byte) Math.min(Math.max(satellitesInUse, -1), Byte.MAX_VALUE));
+		this.horizontalDilutions.putFloat(index * Float.BYTES, (float) horizontalDilution);
+		this.appended = sequence + 1;
+	}
+
+	/**
+	 * Visits the positions within the given time range, in time order.
+	 *
+	 * @param from The start of the range (inclusive) in milliseconds since the epoch
+	 * @param to The end of the range (exclusive) in milliseconds since the epoch
+	 * @param step The minimum time between the visited positions in milliseconds, 0 for all positions
+	 * @param visitor Visits the positions
+	 * @return The number of visited positions
+	 */
+	public int forEach(long from, long to, long step, Visitor visitor) {
+		Assert.isTrue(step >= 0, "step must not be negative.");
+		Assert.notNull(visitor, "visitor must not be null.");
+
+		final long end = this.appended;
+		long target = from;
+		long sequence = this.search(this.getOldestSequence(end), end, target);
+		int visited = 0;
+
+		while (sequence < end) {
+			final int index = (int) (sequence % this.capacity);
+			final long time = this.times.getLong(index * Long.BYTES);
+			final double latitude = this.latitudes.getDouble(index * Double.BYTES);
+			final double longitude = this.longitudes.getDouble(index * Double.BYTES);
+			final float altitude = this.altitudes.getFloat(index * Float.BYTES);
+			final byte fixQuality = this.fixQualities.get(index);
+			final byte satellitesInUse = this.satellitesInUse.get(index);
+			final float horizontalDilution = this.horizontalDilutions.getFloat(index * Float.BYTES);
+
+			VarHandle.acquireFence();
+			final long oldestSequence = this.getOldestSequence(this.appended);
+			if (sequence < oldestSequence) {
+				// Overwritten while reading, continue with the oldest position still available
+				sequence = this.search(oldestSequence, end, target);
+				continue;
+			}
+			if (time >= to) {
+				break;
+			}
+
+			visitor.visit(time, latitude, longitude, altitude, fixQuality, satellitesInUse, horizontalDilution);
+			visited++;
+			if (step == 0) {
+				sequence++;
+			}
+			else if (time < Long.MAX_VALUE - step) {
+				target = time + step;
+				sequence = this.search(sequence + 1, end, target);
+			}
+			else {
+				break;
+			}
+		}
+		return visited;
+	}
+
+	/**
+	 * @return The number of positions currently held
+	 */
+	public int getSize() {
+		return (int) Math.min(this.appended, this.capacity);
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the sequence of the first position at or after the given time,
+	 * using binary search between the given sequences.
+	 */
+	private long search(long low, long high, long time) {
+		while (low < high) {
+			final long middle = (low + high) >>> 1;
+			if (this.times.getLong((int) (middle % this.capacity) * Long.BYTES) < time) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Returns the sequence of the oldest position that is not overwritten,
+	 * keeping in mind that the next position may be written at the moment.
+	 */
+	private long getOldestSequence(long appended) {
+		return Math.max(0, appended - this.capacity + 1);
+	}
+
+	private static ByteBuffer allocate(int capacity, int bytes) {
+		return ByteBuffer.allocateDirect(capacity * bytes).order(ByteOrder.nativeOrder());
+	}
+
+	/**
+	 * Visits the values of a position, see {@link PositionHistory#add}. Altitude
+	 * and HDOP are stored with single precision.
+	 */
+	@FunctionalInterface
+	public interface Visitor {
+
+		void visit(long time, double latitude, double longitude, float altitude,
+				int fixQuality, int satellitesInUse, float horizontalDilution);
+
+	}
+
+}
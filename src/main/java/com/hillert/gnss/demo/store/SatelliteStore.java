@@ -1,25 +1,118 @@
 package com.hillert.gnss.demo.store;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
 
 import com.hillert.gnss.demo.model.GnssProvider;
 import com.hillert.gnss.demo.model.Satellite;
+import com.hillert.gnss.demo.model.SignalId;
 
+/**
+ * Holds the satellites in view in a {@link SatelliteTable}. Updates are applied
+ * per GNSS provider and signal and do not allocate. The merged {@link Satellite}s,
+ * one per satellite with the signal-to-noise ratio of each signal it is received
+ * on, are only materialized when requested and changed since. Readers get an
+ * immutable snapshot with a single volatile read, unless it has to be
+ * materialized first.
+ *
+ * @author Gunnar Hillert
+ *
+ */
 @Component
 public class SatelliteStore {
 
-	private final Map<GnssProvider, Set<Satellite>> satellites = new ConcurrentHashMap<>(0);
+	private static final Logger LOGGER = LoggerFactory.getLogger(SatelliteStore.class);
+
+	private static final String[] SATELLITE_IDS = new String[SatelliteTable.SATELLITE_IDS];
+
+	static {
+		for (int i = 0; i < SATELLITE_IDS.length; i++) {
+			SATELLITE_IDS[i] = i < 10 ? "0" + i : String.valueOf(i);
+		}
+	}
+
+	private final SatelliteTable satelliteTable = new SatelliteTable();
+
+	private volatile long version = 0;
+
+	private volatile Snapshot snapshot = new Snapshot(0, Collections.emptyMap());
 
 	private volatile boolean processed = false;
 
 	private volatile Set<GnssProvider> processedGnssProviders = ConcurrentHashMap.newKeySet();
 
-	public Map<GnssProvider, Set<Satellite>> getSatellites() {
-		return satellites;
+	/**
+	 * @return The current snapshot of the satellites per GNSS provider, sorted by satellite id
+	 */
+	public Map<GnssProvider, Collection<Satellite>> getSatellites() {
+		Snapshot snapshot = this.snapshot;
+		if (snapshot.version != this.version) {
+			snapshot = this.materialize();
+		}
+		return snapshot.satellites;
+	}
+
+	/**
+	 * @param gnssProvider The GNSS provider
+	 * @return The current snapshot of the satellites of the GNSS provider, null if there are none
+	 */
+	public Collection<Satellite> getSatellites(GnssProvider gnssProvider) {
+		return this.getSatellites().get(gnssProvider);
+	}
+
+	/**
+	 * Replaces the satellites received on the given signal with the ones the
+	 * {@link Writer} puts into the {@link SatelliteTable}. Satellites no longer
+	 * received on the signal drop out.
+	 *
+	 * @param <T> The type of the source
+	 * @param gnssProvider The GNSS provider
+	 * @param signalId The NMEA signal id or -1 if not available
+	 * @param source The source of the satellites, e.g. a group of GSV sentences
+	 * @param writer Puts the satellites of the source, should be stateless to not allocate
+	 * @return The number of distinct satellites of the GNSS provider in view
+	 * after the update, across all of its signals
+	 */
+	public <T> int update(GnssProvider gnssProvider, int signalId, T source, Writer<T> writer) {
+		Assert.notNull(gnssProvider, "gnssProvider must not be null.");
+		synchronized (this.satelliteTable) {
+			this.satelliteTable.begin(gnssProvider, signalId);
+			writer.write(source, this.satelliteTable);
+			this.version++;
+			return this.satelliteTable.getSatellitesInView(gnssProvider);
+		}
+	}
+
+	/**
+	 * Replaces the satellites received on the signal of the {@link SatelliteKey}.
+	 *
+	 * @param satelliteKey The GNSS provider and the signal, the signal may be null if unknown
+	 * @param satellites All satellites currently received on the signal
+	 * @return The number of distinct satellites of the GNSS provider in view
+	 * after the update, across all of its signals
+	 */
+	public int update(SatelliteKey satelliteKey, Collection<Satellite> satellites) {
+		Assert.notNull(satelliteKey, "satelliteKey must not be null.");
+		final SignalId signalId = satelliteKey.getSignalId();
+		return this.update(satelliteKey.getGnssProvider(),
+				signalId != null && signalId.getSignalId() != null ? signalId.getSignalId() : -1,
+				satellites, (source, satelliteTable) -> {
+					for (Satellite satellite : source) {
+						satelliteTable.put(Integer.parseInt(satellite.getId()), satellite.getElevation(),
+								satellite.getAzimuth(), satellite.getNoise());
+					}
+				});
 	}
 
 	public boolean isProcessed() {
@@ -42,15 +135,87 @@ public class SatelliteStore {
 		if (processed) {
 			return;
 		}
-		satellites.entrySet().removeIf(entry -> {
-			boolean remove = !processedGnssProviders.contains(entry.getKey());
-			if (remove) {
-				System.out.println("remove " + entry.getKey());
+		synchronized (this.satelliteTable) {
+			for (GnssProvider gnssProvider : GnssProvider.values()) {
+				if (!processedGnssProviders.contains(gnssProvider)) {
+					LOGGER.trace("Removing the satellites of {}.", gnssProvider);
+					this.satelliteTable.clear(gnssProvider);
+				}
 			}
-			return remove;
-		});
+			this.version++;
+		}
 		processedGnssProviders.clear();
 		processed = true;
 	}
 
+	private Snapshot materialize() {
+		synchronized (this.satelliteTable) {
+			if (this.snapshot.version == this.version) {
+				return this.snapshot;
+			}
+			final Map<GnssProvider, Collection<Satellite>> satellites = new EnumMap<>(GnssProvider.class);
+			for (GnssProvider gnssProvider : GnssProvider.values()) {
+				final List<Satellite> providerSatellites = this.materialize(gnssProvider);
+				if (!providerSatellites.isEmpty()) {
+					satellites.put(gnssProvider, Collections.unmodifiableList(providerSatellites));
+				}
+			}
+			final Snapshot snapshot = new Snapshot(this.version, Collections.unmodifiableMap(satellites));
+			this.snapshot = snapshot;
+			return snapshot;
+		}
+	}
+
+	private List<Satellite> materialize(GnssProvider gnssProvider) {
+		final List<Satellite> satellites = new ArrayList<>();
+		for (int satelliteId = 0; satelliteId < SatelliteTable.SATELLITE_IDS; satelliteId++) {
+			Map<SignalId, Integer> signalNoise = null;
+			int positionSignal = -1;
+			for (int signal = 0; signal < SatelliteTable.SIGNAL_IDS; signal++) {
+				if (!this.satelliteTable.isInView(gnssProvider, satelliteId, signal)) {
+					continue;
+				}
+				if (signalNoise == null) {
+					signalNoise = new EnumMap<>(SignalId.class);
+				}
+				final int noise = this.satelliteTable.getNoise(gnssProvider, satelliteId, signal);
+				signalNoise.merge(SignalId.fromKey(gnssProvider, signal), noise, Math::max);
+				if (positionSignal < 0) {
+					positionSignal = signal;
+				}
+			}
+			if (signalNoise != null) {
+				satellites.add(new Satellite(gnssProvider, SATELLITE_IDS[satelliteId],
+						this.satelliteTable.getElevation(gnssProvider, satelliteId, positionSignal),
+						this.satelliteTable.getAzimuth(gnssProvider, satelliteId, positionSignal), signalNoise));
+			}
+		}
+		return satellites;
+	}
+
+	/**
+	 * Puts the satellites of a source into the {@link SatelliteTable}, see
+	 * {@link SatelliteTable#put(int, int, int, int)}.
+	 *
+	 * @param <T> The type of the source
+	 */
+	@FunctionalInterface
+	public interface Writer<T> {
+
+		void write(T source, SatelliteTable satelliteTable);
+
+	}
+
+	private static final class Snapshot {
+
+		private final long version;
+		private final Map<GnssProvider, Collection<Satellite>> satellites;
+
+		private Snapshot(long version, Map<GnssProvider, Collection<Satellite>> satellites) {
+			this.version = version;
+			this.satellites = satellites;
+		}
+
+	}
+
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hillert.gnss.demo.store;
+
+import java.util.Arrays;
+
+import org.springframework.util.Assert;
+
+import com.hillert.gnss.demo.model.GnssProvider;
+
+/**
+ * Preallocated table of the satellites in view, indexed by GNSS provider,
+ * satellite id (PRN) and NMEA signal id. Elevation, azimuth, signal-to-noise
+ * ratio and the epoch a slot was last written in are held in parallel primitive
+ * arrays, so updating the table does not allocate.
+ * <p>
+ * Each update of a provider and signal starts a new epoch for that signal, and
+ * only the slots written in the current epoch of their signal are in view. This
+ * way satellites no longer received drop out without clearing any slots.
+ * <p>
+ * Not thread-safe, see {@link SatelliteStore}.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+public final class SatelliteTable {
+
+	/**
+	 * Number of satellite ids per GNSS provider, covering the NMEA 4.11 ranges.
+	 */
+	public static final int SATELLITE_IDS = 256;
+
+	/**
+	 * Number of NMEA signal ids per GNSS provider (a single hex digit). Index
+	 * {@code 0} holds the satellites of sentences without signal id.
+	 */
+	public static final int SIGNAL_IDS = 16;
+
+	private static final int PROVIDERS = GnssProvider.values().length;
+
+	private final short[] elevations = new short[PROVIDERS * SATELLITE_IDS * SIGNAL_IDS];
+	private final short[] azimuths = new short[PROVIDERS * SATELLITE_IDS * SIGNAL_IDS];
+	private final short[] noises = new short[PROVIDERS * SATELLITE_IDS * SIGNAL_IDS];
+	private final int[] lastSeenEpochs = new int[PROVIDERS * SATELLITE_IDS * SIGNAL_IDS];
+
+	private final int[] epochs = new int[PROVIDERS * SIGNAL_IDS];
+
+	private int provider = -1;
+	private int signal = -1;
+
+	public SatelliteTable() {
+		Arrays.fill(this.epochs, 1);
+	}
+
+	/**
+	 * Starts a new epoch for the given provider and signal. Subsequent calls of
+	 * {@link #put(int, int, int, int)} write to it.
+	 *
+	 * @param gnssProvider The GNSS provider
+	 * @param signalId The NMEA signal id, -1 or 0 if not available
+	 */
+	public void begin(GnssProvider gnssProvider, int signalId) {
+		Assert.notNull(gnssProvider, "gnssProvider must not be null.");
+		this.provider = gnssProvider.ordinal();
+		this.signal = toSignal(signalId);
+		this.epochs[this.provider * SIGNAL_IDS + this.signal]++;
+	}
+
+	/**
+	 * Puts a satellite received in the current epoch.
+	 *
+	 * @param satelliteId The satellite id, ignored if out of range
+	 * @param elevation The elevation in degrees
+	 * @param azimuth The azimuth in degrees
+	 * @param noise The signal-to-noise ratio
+	 * @return False if the satellite id is out of range
+	 */
+	public boolean put(int satelliteId, int elevation, int azimuth, int noise) {
+		if (this.provider < 0) {
+			throw new IllegalStateException("begin() must be called first.");
+		}
+		if (satelliteId < 0 || satelliteId >= SATELLITE_IDS) {
+			return false;
+		}
+		final int index = (this.provider * SATELLITE_IDS + satelliteId) * SIGNAL_IDS + this.signal;
+		this.elevations[index] = (short) elevation;
+		this.azimuths[index] = (short) azimuth;
+		this.noises[index] = (short) noise;
+		this.lastSeenEpochs[index] = this.epochs[this.provider * SIGNAL_IDS + this.signal];
+		return true;
+	}
+
+	/**
+	 * Removes all satellites of the given provider by starting a new epoch for all of its signals.
+	 *
+	 * @param gnssProvider The GNSS provider
+	 */
+	public void clear(GnssProvider gnssProvider) {
+		final int offset = gnssProvider.ordinal() * SIGNAL_IDS;
+		for (int i = 0; i < SIGNAL_IDS; i++) {
+			this.epochs[offset + i]++;
+		}
+	}
+
+	/**
+	 * @param gnssProvider The GNSS provider
+	 * @param satelliteId The satellite id, 0 to {@link #SATELLITE_IDS}
+	 * @param signal The signal index, 0 to {@link #SIGNAL_IDS}
+	 * @return True if the satellite was received on the signal in its current epoch
+	 */
+	public boolean isInView(GnssProvider gnssProvider, int satelliteId, int signal) {
+		final int index = (gnssProvider.ordinal() * SATELLITE_IDS + satelliteId) * SIGNAL_IDS + signal;
+		return this.lastSeenEpochs[index] == this.epochs[gnssProvider.ordinal() * SIGNAL_IDS + signal];
+	}
+
+	/**
+	 * @param gnssProvider The GNSS provider
+	 * @return The number of distinct satellites of the provider received on at
+	 * least one signal in its current epoch
+	 */
+	public int getSatellitesInView(GnssProvider gnssProvider) {
+		final int provider = gnssProvider.ordinal();
+		int satellitesInView = 0;
+		for (int satelliteId = 0; satelliteId < SATELLITE_IDS; satelliteId++) {
+			final int offset = (provider * SATELLITE_IDS + satelliteId) * SIGNAL_IDS;
+			for (int signal = 0; signal < SIGNAL_IDS; signal++) {
+				if (this.lastSeenEpochs[offset + signal] == this.epochs[provider * SIGNAL_IDS + signal]) {
+					satellitesInView++;
+					break;
+				}
+			}
+		}
+		return satellitesInView;
+	}
+
+	public int getElevation(GnssProvider gnssProvider, int satelliteId, int signal) {
+		return this.elevations[(gnssProvider.ordinal() * SATELLITE_IDS + satelliteId) * SIGNAL_IDS + signal];
+	}
+
+	public int getAzimuth(GnssProvider gnssProvider, int satelliteId, int signal) {
+		return this.azimuths[(gnssProvider.ordinal() * SATELLITE_IDS + satelliteId) * SIGNAL_IDS + signal];
+	}
+
+	public int getNoise(GnssProvider gnssProvider, int satelliteId, int signal) {
+		return this.noises[(gnssProvider.ordinal() * SATELLITE_IDS + satelliteId) * SIGNAL_IDS + signal];
+	}
+
+	/**
+	 * @param gnssProvider The GNSS provider
+	 * @param signal The signal index, 0 to {@link #SIGNAL_IDS}
+	 * @return The epoch of the signal, starting at 1
+	 */
+	public int getEpoch(GnssProvider gnssProvider, int signal) {
+		return this.epochs[gnssProvider.ordinal() * SIGNAL_IDS + signal];
+	}
+
+	/**
+	 * @param signalId The NMEA signal id or -1 if not available
+	 * @return The signal index, 0 if not available or out of range
+	 */
+	public static int toSignal(int signalId) {
+		return signalId > 0 && signalId < SIGNAL_IDS ? signalId : 0;
+	}
+
+}
@@ -16,13 +16,18 @@
 
 package com.hillert.gnss.demo.support;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 
 import com.hillert.gnss.demo.model.RemoteGnssDevice;
 import com.hillert.gnss.demo.services.ConnectorService;
+import com.hillert.gnss.demo.services.ConnectorServiceFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
@@ -31,24 +36,30 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 /**
-* {@link ApplicationRunner} that checks whether a Bluetooth Url is specified as
-* part of the {@link DemoSettings}. If not specified, will perform Bluetooth discovery.
+* {@link ApplicationRunner} that connects to all GNSS devices configured as
+* part of the {@link DemoSettings}. Each device is read by its own dedicated
+* thread. If a device has no connection id specified, will perform discovery.
 *
 * @author Gunnar Hillert
 *
 */
 @Component
 @Profile("!test")
-public class AppStartRunner implements ApplicationRunner {
+public class AppStartRunner implements ApplicationRunner, DisposableBean {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AppStartRunner.class);
 
 	@Autowired
-	private ConnectorService connectorService;
+	private ConnectorServiceFactory connectorServiceFactory;
 
 	@Autowired
 	DemoSettings demoSettings;
 
+	private final List<ConnectorService> connectorServices = new ArrayList<>();
+	private final List<Thread> readerThreads = new ArrayList<>();
+
+	private Scanner scanner;
+
 	private static final Logger LOG =
 	LoggerFactory.getLogger(AppStartRunner.class);
 
@@ -56,40 +67,89 @@ public class AppStartRunner implements ApplicationRunner {
 	public void run(ApplicationArguments args) throws Exception {
 		LOG.info("Application started with option names : {}", args.getOptionNames());
 
-		final String connectorAddressToUse;
+		final List<DemoSettings.Device> devices = this.demoSettings.getDevicesToConnect();
+		final Set<String> deviceIds = new HashSet<>();
 
-		if (StringUtils.hasText(this.demoSettings.getId())) {
-			LOG.info("Using pre-configured {} device: {}.",
-				this.connectorService.getType(), this.demoSettings.getId());
-			connectorAddressToUse = this.demoSettings.getId();
+		for (DemoSettings.Device device : devices) {
+			if (device.getType() == null) {
+				throw new IllegalStateException("Each device requires a connection type.");
+			}
+			if (!deviceIds.add(device.getDeviceId())) {
+				throw new IllegalStateException(String.format("Duplicate device id '%s'. Please provide a unique "
+						+ "label for each device.", device.getDeviceId()));
+			}
 		}
-		else {
-			LOG.info("{} device not pre-configurred. Starting discovery...", this.connectorService.getType());
-			final List<RemoteGnssDevice> discoveredRemoteDeviceService = this.connectorService.discoverAndGetDevices();
 
-			if (discoveredRemoteDeviceService.isEmpty()) {
-				LOGGER.warn("No {} devices/services found. Exiting...", this.connectorService.getType());
-				System.exit(1);
-			}
+		for (DemoSettings.Device device : devices) {
+			final ConnectorService connectorService = this.connectorServiceFactory.create(device.getType(), device.getDeviceId());
+			final String connectorAddressToUse = this.getConnectorAddress(connectorService, device);
+
+			final Thread readerThread = new Thread(() -> {
+				try {
+					connectorService.subscribeToData(connectorAddressToUse);
+				}
+				catch (RuntimeException e) {
+					LOGGER.error(String.format("Reading from device '%s' failed.", connectorService.getDeviceId()), e);
+				}
+			}, "nmea-reader-" + device.getDeviceId());
+
+			this.connectorServices.add(connectorService);
+			this.readerThreads.add(readerThread);
+		}
 
-			int option = 0;
-			for (RemoteGnssDevice remoteDeviceService : discoveredRemoteDeviceService) {
-				System.out.println("Option " + option + " : " +
-					remoteDeviceService.getRemoteDeviceLabel() +
-					" - connection id: " + remoteDeviceService.getConnectionId());
-				option++;
-			}
+		for (Thread readerThread : this.readerThreads) {
+			readerThread.start();
+		}
+		LOG.info("Started {} NMEA reader thread(s).", this.readerThreads.size());
+	}
 
-			System.out.println("Which " + this.connectorService.getType() + " Service do you like to use? Please enter a " +
-					"numeric option:");
+	private String getConnectorAddress(ConnectorService connectorService, DemoSettings.Device device) {
+		if (StringUtils.hasText(device.getId())) {
+			LOG.info("Using pre-configured {} device '{}': {}.",
+				connectorService.getType(), device.getDeviceId(), device.getId());
+			return device.getId();
+		}
 
-			try (Scanner in = new Scanner(System.in)) {
-				int selectedOption = in.nextInt();
-				System.out.println("You entered: " + selectedOption);
-				connectorAddressToUse = discoveredRemoteDeviceService.get(selectedOption).getConnectionId();
-			}
+		LOG.info("{} device '{}' not pre-configurred. Starting discovery...", connectorService.getType(), device.getDeviceId());
+		final List<RemoteGnssDevice> discoveredRemoteDeviceService = connectorService.discoverAndGetDevices();
 
+		if (discoveredRemoteDeviceService.isEmpty()) {
+			LOGGER.warn("No {} devices/services found. Exiting...", connectorService.getType());
+			System.exit(1);
+		}
+
+		int option = 0;
+		for (RemoteGnssDevice remoteDeviceService : discoveredRemoteDeviceService) {
+			System.out.println("Option " + option + " : " +
+				remoteDeviceService.getRemoteDeviceLabel() +
+				" - connection id: " + remoteDeviceService.getConnectionId());
+			option++;
+		}
+
+		System.out.println("Which " + connectorService.getType() + " Service do you like to use for device '"
+				+ device.getDeviceId() + "'? Please enter a numeric option:");
+
+		// Do not close the Scanner as that would close System.in for subsequent devices
+		if (this.scanner == null) {
+			this.scanner = new Scanner(System.in);
+		}
+		int selectedOption = this.scanner.nextInt();
+		System.out.println("You entered: " + selectedOption);
+		return discoveredRemoteDeviceService.get(selectedOption).getConnectionId();
+	}
+
+	@Override
+	public void destroy() {
+		for (ConnectorService connectorService : this.connectorServices) {
+			try {
+				connectorService.disconnect();
+			}
+			catch (RuntimeException e) {
+				LOGGER.warn(String.format("Unable to disconnect device '%s'.", connectorService.getDeviceId()), e);
+			}
+		}
+		for (Thread readerThread : this.readerThreads) {
+			readerThread.interrupt();
 		}
-		this.connectorService.subscribeToData(connectorAddressToUse);
 	}
 }
@@ -16,9 +16,19 @@
 
 package com.hillert.gnss.demo.support;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
 import com.hillert.gnss.demo.services.ConnectionType;
+import com.hillert.gnss.demo.services.SentenceRingBuffer;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 
 /**
 * Custom Spring Boot configuration.
@@ -33,6 +43,38 @@ public class DemoSettings {
 	private ConnectionType type;
 	private String id;
 
+	/**
+	 * GNSS devices to connect to concurrently. If empty, the single device
+	 * identified by {@link #getType()} and {@link #getId()} is used.
+	 */
+	private List<Device> devices = new ArrayList<>();
+
+	private final Replay replay = new Replay();
+
+	private final Reconnect reconnect = new Reconnect();
+
+	private final Bluetooth bluetooth = new Bluetooth();
+
+	private final Serial serial = new Serial();
+
+	private final Dispatch dispatch = new Dispatch();
+
+	private final Filter filter = new Filter();
+
+	private final DeadLetter deadLetter = new DeadLetter();
+
+	private final Aggregation aggregation = new Aggregation();
+
+	private final Journal journal = new Journal();
+
+	private final Parsing parsing = new Parsing();
+
+	private final Pipeline pipeline = new Pipeline();
+
+	private final Channels channels = new Channels();
+
+	private final History history = new History();
+
 	public ConnectionType getType() {
 		return this.type;
 	}
@@ -45,5 +87,751 @@ public class DemoSettings {
 	public void setId(String id) {
 		this.id = id;
 	}
+	public List<Device> getDevices() {
+		return this.devices;
+	}
+	public void setDevices(List<Device> devices) {
+		this.devices = devices;
+	}
+	public Replay getReplay() {
+		return this.replay;
+	}
+	public Reconnect getReconnect() {
+		return this.reconnect;
+	}
+	public Bluetooth getBluetooth() {
+		return this.bluetooth;
+	}
+	public Serial getSerial() {
+		return this.serial;
+	}
+	public Dispatch getDispatch() {
+		return this.dispatch;
+	}
+	public Filter getFilter() {
+		return this.filter;
+	}
+	public DeadLetter getDeadLetter() {
+		return this.deadLetter;
+	}
+	public Aggregation getAggregation() {
+		return this.aggregation;
+	}
+	public Journal getJournal() {
+		return this.journal;
+	}
+	public Parsing getParsing() {
+		return this.parsing;
+	}
+	public Pipeline getPipeline() {
+		return this.pipeline;
+	}
+	public Channels getChannels() {
+		return this.channels;
+	}
+	public History getHistory() {
+		return this.history;
+	}
+
+	/**
+	 * Returns the devices to connect to. Falls back to a single device created
+	 * from {@link #getType()} and {@link #getId()} if no devices are configured.
+	 *
+	 * @return The list of devices, never null
+	 */
+	public List<Device> getDevicesToConnect() {
+		if (!this.devices.isEmpty()) {
+			return this.devices;
+		}
+		final Device device = new Device();
+		device.setType(this.type);
+		device.setId(this.id);
+		final List<Device> singleDevice = new ArrayList<>(1);
+		singleDevice.add(device);
+		return singleDevice;
+	}
+
+	/**
+	 * Settings of a single GNSS device.
+	 */
+	public static class Device {
+
+		private ConnectionType type;
+		private String id;
+		private String label;
+
+		public ConnectionType getType() {
+			return this.type;
+		}
+		public void setType(ConnectionType type) {
+			this.type = type;
+		}
+		public String getId() {
+			return this.id;
+		}
+		public void setId(String id) {
+			this.id = id;
+		}
+		public String getLabel() {
+			return this.label;
+		}
+		public void setLabel(String label) {
+			this.label = label;
+		}
+
+		/**
+		 * Returns the identifier used to tag the messages of this device. That is
+		 * the label, if set, otherwise the lower-case connection type.
+		 *
+		 * @return The device id, never null
+		 */
+		public String getDeviceId() {
+			if (StringUtils.hasText(this.label)) {
+				return this.label;
+			}
+			return this.type.name().toLowerCase();
+		}
+	}
+
+	/**
+	 * Settings for replaying recorded NMEA log files using {@link ConnectionType#REPLAY}.
+	 */
+	public static class Replay {
+
+		/**
+		 * Multiple of real time to replay the log at. 1 replays at the recorded pace,
+		 * 10 replays ten times faster and 0 replays as fast as possible.
+		 */
+		private double speed = 1;
+
+		/**
+		 * Whether to start over once the end of the log is reached.
+		 */
+		private boolean loop = false;
+
+		public double getSpeed() {
+			return this.speed;
+		}
+		public void setSpeed(double speed) {
+			this.speed = speed;
+		}
+		public boolean isLoop() {
+			return this.loop;
+		}
+		public void setLoop(boolean loop) {
+			this.loop = loop;
+		}
+	}
+
+	/**
+	 * Settings for re-establishing lost Bluetooth and serial connections using
+	 * an exponential backoff with jitter.
+	 */
+	public static class Reconnect {
+
+		/**
+		 * Delay before the first reconnect attempt.
+		 */
+		private Duration initialDelay = Duration.ofMillis(250);
+
+		/**
+		 * Upper bound of the delay between two reconnect attempts.
+		 */
+		private Duration maxDelay = Duration.ofSeconds(30);
+
+		/**
+		 * Factor the delay is multiplied with after each failed attempt.
+		 */
+		private double multiplier = 2;
+
+		/**
+		 * Fraction (0 to 1) by which each delay is randomly varied.
+		 */
+		private double jitter = 0.5;
+
+		public Duration getInitialDelay() {
+			return this.initialDelay;
+		}
+		public void setInitialDelay(Duration initialDelay) {
+			this.initialDelay = initialDelay;
+		}
+		public Duration getMaxDelay() {
+			return this.maxDelay;
+		}
+		public void setMaxDelay(Duration maxDelay) {
+			this.maxDelay = maxDelay;
+		}
+		public double getMultiplier() {
+			return this.multiplier;
+		}
+		public void setMultiplier(double multiplier) {
+			this.multiplier = multiplier;
+		}
+		public double getJitter() {
+			return this.jitter;
+		}
+		public void setJitter(double jitter) {
+			this.jitter = jitter;
+		}
+
+		/**
+		 * Returns the jittered delay before the given reconnect attempt.
+		 *
+		 * @param attempt The number of the attempt, starting with 0
+		 * @return The delay in milliseconds
+		 */
+		public long getDelayInMillis(int attempt) {
+			final double delay = Math.min(this.maxDelay.toMillis(),
+					this.initialDelay.toMillis() * Math.pow(this.multiplier, Math.min(attempt, 30)));
+			final double jitterFactor = 1 + this.jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+			return Math.max(0, Math.round(delay * jitterFactor));
+		}
+	}
+
+	/**
+	 * Settings for the discovery of Bluetooth devices.
+	 */
+	public static class Bluetooth {
+
+		/**
+		 * Maximum time to wait for the service search of a single device.
+		 */
+		private Duration serviceSearchTimeout = Duration.ofSeconds(20);
+
+		/**
+		 * Whether to try the cached devices before performing a full inquiry.
+		 */
+		private boolean useDeviceCache = true;
+
+		/**
+		 * File storing the last known good devices.
+		 */
+		private Path deviceCacheFile = Paths.get(System.getProperty("user.home"), ".gnss-nmea-demo", "bluetooth-devices.properties");
+
+		public Duration getServiceSearchTimeout() {
+			return this.serviceSearchTimeout;
+		}
+		public void setServiceSearchTimeout(Duration serviceSearchTimeout) {
+			this.serviceSearchTimeout = serviceSearchTimeout;
+		}
+		public boolean isUseDeviceCache() {
+			return this.useDeviceCache;
+		}
+		public void setUseDeviceCache(boolean useDeviceCache) {
+			this.useDeviceCache = useDeviceCache;
+		}
+		public Path getDeviceCacheFile() {
+			return this.deviceCacheFile;
+		}
+		public void setDeviceCacheFile(Path deviceCacheFile) {
+			this.deviceCacheFile = deviceCacheFile;
+		}
+	}
+
+	/**
+	 * Settings for serial connections. The defaults match the common 9600 8N1
+	 * configuration of GNSS receivers. High-rate receivers (10-25 Hz, all
+	 * constellations) typically require a baud rate of 460800 or more.
+	 */
+	public static class Serial {
+
+		/**
+		 * The baud rate.
+		 */
+		private int baudRate = 9600;
+
+		/**
+		 * The number of data bits (5 to 8).
+		 */
+		private int dataBits = 8;
+
+		private StopBits stopBits = StopBits.ONE;
+
+		private Parity parity = Parity.NONE;
+
+		private FlowControl flowControl = FlowControl.NONE;
+
+		/**
+		 * The number of bytes a read waits for before returning, unless the receive
+		 * timeout expires first. Allows for bulk reads instead of waking up for
+		 * each received byte.
+		 */
+		private int receiveThreshold = 256;
+
+		/**
+		 * Maximum time a read waits for the receive threshold to be reached.
+		 */
+		private Duration receiveTimeout = Duration.ofMillis(20);
+
+		/**
+		 * The size of the input buffer of the serial driver in bytes, 0 to keep
+		 * the driver default.
+		 */
+		private int inputBufferSize = 65536;
+
+		public int getBaudRate() {
+			return this.baudRate;
+		}
+		public void setBaudRate(int baudRate) {
+			this.baudRate = baudRate;
+		}
+		public int getDataBits() {
+			return this.dataBits;
+		}
+		public void setDataBits(int dataBits) {
+			this.dataBits = dataBits;
+		}
+		public StopBits getStopBits() {
+			return this.stopBits;
+		}
+		public void setStopBits(StopBits stopBits) {
+			this.stopBits = stopBits;
+		}
+		public Parity getParity() {
+			return this.parity;
+		}
+		public void setParity(Parity parity) {
+			this.parity = parity;
+		}
+		public FlowControl getFlowControl() {
+			return this.flowControl;
+		}
+		public void setFlowControl(FlowControl flowControl) {
+			this.flowControl = flowControl;
+		}
+		public int getReceiveThreshold() {
+			return this.receiveThreshold;
+		}
+		public void setReceiveThreshold(int receiveThreshold) {
+			this.receiveThreshold = receiveThreshold;
+		}
+		public Duration getReceiveTimeout() {
+			return this.receiveTimeout;
+		}
+		public void setReceiveTimeout(Duration receiveTimeout) {
+			this.receiveTimeout = receiveTimeout;
+		}
+		public int getInputBufferSize() {
+			return this.inputBufferSize;
+		}
+		public void setInputBufferSize(int inputBufferSize) {
+			this.inputBufferSize = inputBufferSize;
+		}
+
+		public enum StopBits {
+			ONE, ONE_POINT_FIVE, TWO
+		}
+
+		public enum Parity {
+			NONE, ODD, EVEN, MARK, SPACE
+		}
+
+		public enum FlowControl {
+			NONE, RTS_CTS, XON_XOFF
+		}
+	}
+
+	/**
+	 * Settings for the buffer decoupling the reader thread of each device from
+	 * dispatching the NMEA sentences.
+	 */
+	public static class Dispatch {
+
+		/**
+		 * Number of sentences that can be buffered per device, rounded up to the
+		 * next power of 2.
+		 */
+		private int bufferCapacity = 4096;
+
+		/**
+		 * What to do if the buffer is full. Recordings are always replayed using
+		 * {@link SentenceRingBuffer.DropPolicy#BLOCK}.
+		 */
+		private SentenceRingBuffer.DropPolicy dropPolicy = SentenceRingBuffer.DropPolicy.DROP_OLDEST;
+
+		/**
+		 * Sentence types shed first when using {@link SentenceRingBuffer.DropPolicy#DROP_BY_TYPE}.
+		 */
+		private List<String> sheddableSentenceTypes = new ArrayList<>(List.of("GSV", "GSA"));
+
+		/**
+		 * Fraction of the buffer capacity at which sheddable sentences are dropped.
+		 */
+		private double shedThreshold = 0.75;
+
+		public int getBufferCapacity() {
+			return this.bufferCapacity;
+		}
+		public void setBufferCapacity(int bufferCapacity) {
+			this.bufferCapacity = bufferCapacity;
+		}
+		public SentenceRingBuffer.DropPolicy getDropPolicy() {
+			return this.dropPolicy;
+		}
+		public void setDropPolicy(SentenceRingBuffer.DropPolicy dropPolicy) {
+			this.dropPolicy = dropPolicy;
+		}
+		public List<String> getSheddableSentenceTypes() {
+			return this.sheddableSentenceTypes;
+		}
+		public void setSheddableSentenceTypes(List<String> sheddableSentenceTypes) {
+			this.sheddableSentenceTypes = sheddableSentenceTypes;
+		}
+		public double getShedThreshold() {
+			return this.shedThreshold;
+		}
+		public void setShedThreshold(double shedThreshold) {
+			this.shedThreshold = shedThreshold;
+		}
+	}
+
+	/**
+	 * Settings for the prefilter dropping sentence types that are not processed
+	 * before they are parsed.
+	 */
+	public static class Filter {
+
+		/**
+		 * Whether to drop sentences whose type is not in {@link #getSentenceTypes()}.
+		 * All sentences are counted per type regardless.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Sentence types to dispatch, ignoring the talker id. Proprietary u-blox
+		 * sentences ({@code $PUBX}) are identified as {@code UBX}. {@code RMC} is
+		 * added in the {@link Pipeline.Mode#EPOCH} mode, see {@link com.hillert.gnss.demo.epoch.EpochAssembler}.
+		 */
+		private List<String> sentenceTypes = new ArrayList<>(List.of("UBX", "GGA", "GSA", "GSV"));
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+		public List<String> getSentenceTypes() {
+			return this.sentenceTypes;
+		}
+		public void setSentenceTypes(List<String> sentenceTypes) {
+			this.sentenceTypes = sentenceTypes;
+		}
+	}
+
+	/**
+	 * Settings for the sentences that could not be processed.
+	 */
+	public static class DeadLetter {
+
+		/**
+		 * Number of most recent dead-lettered sentences kept for inspection via
+		 * the {@code deadletters} actuator endpoint.
+		 */
+		private int sampleCapacity = 50;
+
+		public int getSampleCapacity() {
+			return this.sampleCapacity;
+		}
+		public void setSampleCapacity(int sampleCapacity) {
+			this.sampleCapacity = sampleCapacity;
+		}
+	}
+
+	/**
+	 * Settings for the aggregation of multi-sentence groups (GSV).
+	 */
+	public static class Aggregation {
+
+		public enum PartialGroups {
+
+			/**
+			 * Drop the sentences of incomplete groups.
+			 */
+			DISCARD,
+
+			/**
+			 * Pass on the sentences of incomplete groups, flagged as partial.
+			 */
+			RELEASE
+		}
+
+		/**
+		 * Time after the last sentence of an incomplete group, after which the group expires.
+		 */
+		private Duration groupTimeout = Duration.ofSeconds(3);
+
+		/**
+		 * Maximum number of groups kept, after which the least recently updated group expires.
+		 */
+		private int maxGroups = 128;
+
+		/**
+		 * What to do with the sentences of expired, incomplete groups.
+		 */
+		private PartialGroups partialGroups = PartialGroups.DISCARD;
+
+		public Duration getGroupTimeout() {
+			return this.groupTimeout;
+		}
+		public void setGroupTimeout(Duration groupTimeout) {
+			this.groupTimeout = groupTimeout;
+		}
+		public int getMaxGroups() {
+			return this.maxGroups;
+		}
+		public void setMaxGroups(int maxGroups) {
+			this.maxGroups = maxGroups;
+		}
+		public PartialGroups getPartialGroups() {
+			return this.partialGroups;
+		}
+		public void setPartialGroups(PartialGroups partialGroups) {
+			this.partialGroups = partialGroups;
+		}
+	}
+
+	/**
+	 * Settings for the journal of the raw NMEA sentences received from each device.
+	 */
+	public static class Journal {
+
+		public enum Compression {
+			NONE, GZIP
+		}
+
+		/**
+		 * Whether to journal the received NMEA sentences.
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * The directory holding the journal segments, one sub-directory per device.
+		 */
+		private Path directory = Paths.get(System.getProperty("user.home"), ".gnss-nmea-demo", "journal");
+
+		private Compression compression = Compression.NONE;
+
+		/**
+		 * Number of lines that can be pending to be written, per device.
+		 */
+		private int bufferCapacity = 8192;
+
+		/**
+		 * A new segment is started once the current segment reached this (uncompressed) size.
+		 */
+		private DataSize maxSegmentSize = DataSize.ofMegabytes(64);
+
+		/**
+		 * A new segment is started once the current segment reached this age.
+		 */
+		private Duration maxSegmentAge = Duration.ofHours(1);
+
+		/**
+		 * Maximum number of segments retained per device.
+		 */
+		private int maxSegments = 168;
+
+		/**
+		 * Segments older than this are deleted.
+		 */
+		private Duration maxAge = Duration.ofDays(7);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+		public Path getDirectory() {
+			return this.directory;
+		}
+		public void setDirectory(Path directory) {
+			this.directory = directory;
+		}
+		public Compression getCompression() {
+			return this.compression;
+		}
+		public void setCompression(Compression compression) {
+			this.compression = compression;
+		}
+		public int getBufferCapacity() {
+			return this.bufferCapacity;
+		}
+		public void setBufferCapacity(int bufferCapacity) {
+			this.bufferCapacity = bufferCapacity;
+		}
+		public DataSize getMaxSegmentSize() {
+			return this.maxSegmentSize;
+		}
+		public void setMaxSegmentSize(DataSize maxSegmentSize) {
+			this.maxSegmentSize = maxSegmentSize;
+		}
+		public Duration getMaxSegmentAge() {
+			return this.maxSegmentAge;
+		}
+		public void setMaxSegmentAge(Duration maxSegmentAge) {
+			this.maxSegmentAge = maxSegmentAge;
+		}
+		public int getMaxSegments() {
+			return this.maxSegments;
+		}
+		public void setMaxSegments(int maxSegments) {
+			this.maxSegments = maxSegments;
+		}
+		public Duration getMaxAge() {
+			return this.maxAge;
+		}
+		public void setMaxAge(Duration maxAge) {
+			this.maxAge = maxAge;
+		}
+	}
+
+	/**
+	 * Settings for parsing the NMEA sentences.
+	 */
+	public static class Parsing {
+
+		public enum Engine {
+
+			/**
+			 * Parse all sentences using marineapi.
+			 */
+			MARINEAPI,
+
+			/**
+			 * Parse GGA, GSA, GSV and RMC sentences using the allocation-free
+			 * {@link com.hillert.gnss.demo.nmea.NmeaParser}, all other sentences using marineapi.
+			 */
+			NATIVE
+		}
+
+		private Engine engine = Engine.MARINEAPI;
+
+		public Engine getEngine() {
+			return this.engine;
+		}
+		public void setEngine(Engine engine) {
+			this.engine = engine;
+		}
+	}
+
+	/**
+	 * Settings for how the received sentences are handed over to Spring Integration.
+	 */
+	public static class Pipeline {
+
+		public enum Mode {
+
+			/**
+			 * Send each sentence as a separate message.
+			 */
+			SENTENCE,
+
+			/**
+			 * Assemble the sentences of each fix epoch and send them as a single
+			 * {@link com.hillert.gnss.demo.epoch.GnssEpoch} message.
+			 */
+			EPOCH,
+
+			/**
+			 * Bypass Spring Integration and invoke the services directly, see
+			 * {@link com.hillert.gnss.demo.integration.DirectPipeline}.
+			 */
+			DIRECT
+		}
+
+		private Mode mode = Mode.SENTENCE;
+
+		/**
+		 * Maximum number of sentences per epoch, after which the epoch is completed
+		 * even if no epoch boundary was detected.
+		 */
+		private int maxEpochSentences = 256;
+
+		public Mode getMode() {
+			return this.mode;
+		}
+		public void setMode(Mode mode) {
+			this.mode = mode;
+		}
+		public int getMaxEpochSentences() {
+			return this.maxEpochSentences;
+		}
+		public void setMaxEpochSentences(int maxEpochSentences) {
+			this.maxEpochSentences = maxEpochSentences;
+		}
+	}
+
+	/**
+	 * Settings of the channels feeding the service activators.
+	 */
+	public static class Channels {
+
+		public enum Type {
+
+			/**
+			 * Invoke the services on the thread sending the message.
+			 */
+			DIRECT,
+
+			/**
+			 * Hand the messages over to a dedicated thread per channel.
+			 */
+			EXECUTOR,
+
+			/**
+			 * Buffer the messages in a bounded queue per channel.
+			 */
+			QUEUE
+		}
 
+		private Type type = Type.QUEUE;
+
+		/**
+		 * Maximum number of messages buffered per channel (QUEUE and EXECUTOR only).
+		 */
+		private int queueCapacity = 10000;
+
+		/**
+		 * How long the queue consumers block waiting for a message before polling again.
+		 */
+		private Duration receiveTimeout = Duration.ofSeconds(1);
+
+		public Type getType() {
+			return this.type;
+		}
+		public void setType(Type type) {
+			this.type = type;
+		}
+		public int getQueueCapacity() {
+			return this.queueCapacity;
+		}
+		public void setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = queueCapacity;
+		}
+		public Duration getReceiveTimeout() {
+			return this.receiveTimeout;
+		}
+		public void setReceiveTimeout(Duration receiveTimeout) {
+			this.receiveTimeout = receiveTimeout;
+		}
+	}
+
+	/**
+	 * Settings for the history of the received positions.
+	 */
+	public static class History {
+
+		/**
+		 * Maximum number of positions kept, after which the oldest ones are overwritten.
+		 */
+		private int capacity = 1_000_000;
+
+		public int getCapacity() {
+			return this.capacity;
+		}
+		public void setCapacity(int capacity) {
+			this.capacity = capacity;
+		}
+	}
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.epoch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.hillert.gnss.demo.services.ConnectionType;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class EpochAssemblerTests {
+
+	private final List<GnssEpoch> epochs = new ArrayList<>();
+	private final List<String> forwarded = new ArrayList<>();
+
+	private final EpochAssembler epochAssembler = new EpochAssembler((sentence, deviceId) -> this.forwarded.add(sentence),
+			(epoch, deviceId) -> this.epochs.add(epoch), ConnectionType.REPLAY, "epoch-test", new DemoSettings.Pipeline());
+
+	@Test
+	void testEpochsAreCompletedByTimeChangeAndLearnedTerminator() {
+		this.handleBurst("092725.00");
+		Assertions.assertTrue(this.epochs.isEmpty(), "The first epoch can only be completed by a time change.");
+
+		this.handleBurst("092726.00");
+		Assertions.assertEquals(2, this.epochs.size(), "The learned terminator completes the second epoch.");
+
+		final GnssEpoch epoch = this.epochs.get(1);
+		Assertions.assertEquals("epoch-test", epoch.getDeviceId());
+		Assertions.assertEquals((9 * 3600 + 27 * 60 + 26) * 1000, epoch.getTimeOfDay());
+		Assertions.assertEquals(9, epoch.getSentenceCount());
+		Assertions.assertEquals(47.285233, epoch.getGga().getLatitude(), 0.000001);
+		Assertions.assertEquals(2, epoch.getGsa().size());
+		Assertions.assertEquals(2, epoch.getGsvGroups().size());
+		Assertions.assertEquals(1, epoch.getGsvGroups().get(0)[0].getSignalId());
+		Assertions.assertEquals(6, epoch.getGsvGroups().get(1)[0].getSignalId());
+		Assertions.assertEquals(4, this.forwarded.size());
+	}
+
+	@Test
+	void testIncompleteGsvGroupsAreDropped() {
+		this.epochAssembler.handle("$GNGGA,092725.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*45");
+		this.epochAssembler.handle("$GPGSV,3,1,12,05,12,057,27,12,29,109,36,18,74,223,26,20,23,175,30,1*6F");
+		this.epochAssembler.handle("$GPGSV,3,3,12,26,15,319,11,29,42,016,,31,41,293,35,32,02,229,,1*65");
+		this.epochAssembler.handle("$GNGGA,092726.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*46");
+
+		Assertions.assertEquals(1, this.epochs.size());
+		Assertions.assertTrue(this.epochs.get(0).getGsvGroups().isEmpty());
+	}
+
+	private void handleBurst(String time) {
+		this.epochAssembler.handle("$GNGGA," + time + ",4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*00");
+		this.epochAssembler.handle("$GNGSA,A,3,05,12,18,20,25,,,,,,,,1.50,0.86,1.23,1*00");
+		this.epochAssembler.handle("$GNGSA,A,3,78,79,81,82,,,,,,,,,1.50,0.86,1.23,2*00");
+		this.epochAssembler.handle("$PUBX,00," + time + ",4717.113210,N,00833.915187,E,546.589,G3,2.1,2.0,0.007,77.52,0.007,,0.92,1.19,0.77,9,0,0*00");
+		this.epochAssembler.handle("$GPGSV,2,1,08,05,12,057,27,12,29,109,36,18,74,223,26,20,23,175,30,1*00");
+		this.epochAssembler.handle("$GPGSV,2,2,08,21,26,225,14,23,15,176,,24,02,159,,25,58,087,45,1*00");
+		this.epochAssembler.handle("$GPGSV,2,1,08,05,12,057,20,12,29,109,24,18,74,223,23,20,23,175,,6*00");
+		this.epochAssembler.handle("$GPGSV,2,2,08,21,26,225,,23,15,176,,24,02,159,,25,58,087,30,6*00");
+		this.epochAssembler.handle("$GNGLL,4717.11364,N,00833.91565,E," + time + ",A,A*00");
+	}
+
+}
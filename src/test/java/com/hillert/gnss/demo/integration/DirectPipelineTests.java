@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.hillert.gnss.demo.model.GnssProvider;
+import com.hillert.gnss.demo.services.SentenceHandler;
+import com.hillert.gnss.demo.store.GnssStatusStore;
+import com.hillert.gnss.demo.store.PositionHistory;
+import com.hillert.gnss.demo.store.SatelliteStore;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class DirectPipelineTests {
+
+	private final GnssStatusStore gnssStatusStore = new GnssStatusStore();
+	private final SatelliteStore satelliteStore = new SatelliteStore();
+	private final DeadLetterService deadLetterService = new DeadLetterService(10);
+
+	@Test
+	void testProcessSentencesUsingMarineApi() {
+		this.processSentences(DemoSettings.Parsing.Engine.MARINEAPI);
+	}
+
+	@Test
+	void testProcessSentencesUsingNativeParser() {
+		this.processSentences(DemoSettings.Parsing.Engine.NATIVE);
+	}
+
+	private void processSentences(DemoSettings.Parsing.Engine engine) {
+		final DemoSettings demoSettings = new DemoSettings();
+		demoSettings.getParsing().setEngine(engine);
+		final PipelineMetrics pipelineMetrics = new PipelineMetrics(Collections.emptyList());
+		final PositionHistory positionHistory = new PositionHistory(16);
+		final DirectPipeline directPipeline = new DirectPipeline(
+				new GgaService(this.gnssStatusStore, pipelineMetrics, positionHistory),
+				new GsaService(this.gnssStatusStore, pipelineMetrics),
+				new GsvService(this.satelliteStore, this.gnssStatusStore, pipelineMetrics),
+				new UbxService(this.gnssStatusStore, pipelineMetrics),
+				new GsvAggregator(pipelineMetrics, demoSettings.getAggregation(), null),
+				this.deadLetterService, this.satelliteStore, pipelineMetrics, demoSettings);
+		final SentenceHandler sentenceHandler = directPipeline.createSentenceHandler("test");
+
+		sentenceHandler.handle("$GNGGA,092725.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*45");
+		sentenceHandler.handle("$GLGSV,3,1,09,66,02,119,,77,13,152,,78,67,149,44,79,54,334,27,1*70");
+		sentenceHandler.handle("$GLGSV,3,2,09,80,02,332,,81,50,338,15,82,37,263,29,83,01,233,,1*72");
+		Assertions.assertNull(this.satelliteStore.getSatellites().get(GnssProvider.GLONASS));
+		sentenceHandler.handle("$GLGSV,3,3,09,88,16,028,22,1*4C");
+		sentenceHandler.handle("$XXGGA,092725.00*45");
+
+		Assertions.assertEquals(47.2852, this.gnssStatusStore.getGnssStatus().getLatitude(), 0.0001);
+		Assertions.assertEquals(1, positionHistory.forEach(0, Long.MAX_VALUE, 0, (time, latitude, longitude,
+				altitude, fixQuality, satellitesInUse, horizontalDilution) -> Assertions.assertEquals(
+						((9 * 60 + 27) * 60 + 25) * 1000, time % TimeUnit.DAYS.toMillis(1))));
+		Assertions.assertEquals(9, this.satelliteStore.getSatellites().get(GnssProvider.GLONASS).size());
+		Assertions.assertEquals(1L, this.deadLetterService.getCounts().get(DeadLetter.Reason.UNSUPPORTED_TALKER));
+	}
+
+}
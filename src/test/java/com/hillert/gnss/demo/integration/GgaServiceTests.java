@@ -0,0 +1,54 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hillert.gnss.demo.integration;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.hillert.gnss.demo.store.GnssStatusStore;
+import com.hillert.gnss.demo.store.PositionHistory;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class GgaServiceTests {
+
+	private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+	private final GgaService ggaService = new GgaService(new GnssStatusStore(),
+			new PipelineMetrics(Collections.emptyList()), new PositionHistory(16));
+
+	@Test
+	void testFixTimeIsAnchoredToTheReceiveDate() {
+		final long now = System.currentTimeMillis();
+		final long fixTime = this.ggaService.getFixTime((int) Math.floorMod(now, MILLIS_PER_DAY));
+		Assertions.assertEquals(now, fixTime, 1000);
+	}
+
+	@Test
+	void testFixTimesFollowTheRecordingAcrossMidnight() {
+		final long first = this.ggaService.getFixTime((int) MILLIS_PER_DAY - 1000);
+		Assertions.assertEquals(MILLIS_PER_DAY - 1000, Math.floorMod(first, MILLIS_PER_DAY));
+		Assertions.assertEquals(first + 1000, this.ggaService.getFixTime(0));
+		Assertions.assertEquals(first + 2000, this.ggaService.getFixTime(1000));
+	}
+
+}
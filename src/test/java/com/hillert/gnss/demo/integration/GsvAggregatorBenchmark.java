@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.integration.IntegrationMessageHeaderAccessor;
+import org.springframework.integration.aggregator.AggregatingMessageHandler;
+import org.springframework.integration.aggregator.DefaultAggregatingMessageGroupProcessor;
+import org.springframework.integration.aggregator.ExpressionEvaluatingCorrelationStrategy;
+import org.springframework.integration.aggregator.ExpressionEvaluatingReleaseStrategy;
+import org.springframework.integration.store.SimpleMessageStore;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.transformer.HeaderEnricher;
+import org.springframework.integration.transformer.support.ExpressionEvaluatingHeaderValueMessageProcessor;
+import org.springframework.integration.transformer.support.HeaderValueMessageProcessor;
+import org.springframework.messaging.Message;
+import org.springframework.util.FileCopyUtils;
+
+import com.hillert.gnss.demo.nmea.NmeaParser;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+/**
+ * JMH benchmark comparing the {@link GsvAggregator} with the previously used
+ * header enricher and aggregator based on SpEL expressions, aggregating the
+ * GSV sentences of {@code gsv-test-data.txt} per invocation. Run using
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hillert.gnss.demo.integration.GsvAggregatorBenchmark} or from the IDE.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class GsvAggregatorBenchmark {
+
+	private final List<Message<?>> messages = new ArrayList<>();
+
+	private GsvAggregator gsvAggregator;
+
+	private HeaderEnricher headerEnricher;
+	private AggregatingMessageHandler aggregatingMessageHandler;
+	private Blackhole blackhole;
+
+	@Setup
+	public void setup(Blackhole blackhole) throws IOException {
+		this.blackhole = blackhole;
+		// Without Spring Boot the logging defaults to DEBUG, which would dominate the SpEL variant
+		LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.INFO);
+		final NmeaParser nmeaParser = new NmeaParser();
+		try (InputStream inputStream = new ClassPathResource("gsv-test-data.txt").getInputStream()) {
+			new String(FileCopyUtils.copyToByteArray(inputStream), StandardCharsets.UTF_8).lines()
+					.forEach(line -> this.messages.add(MessageBuilder.withPayload(nmeaParser.parse(line))
+							.setHeader("deviceId", "benchmark").build()));
+		}
+
+		this.gsvAggregator = new GsvAggregator(new PipelineMetrics(Collections.emptyList()),
+				new DemoSettings.Aggregation(), null);
+
+		final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		final Map<String, HeaderValueMessageProcessor<?>> headers = new HashMap<>();
+		headers.put(IntegrationMessageHeaderAccessor.CORRELATION_ID, new ExpressionEvaluatingHeaderValueMessageProcessor<>(
+				"payload.getTalkerId() + '_' + payload.getSentenceCount()", Object.class));
+		headers.put("talkerId", new ExpressionEvaluatingHeaderValueMessageProcessor<>("payload.getTalkerId()", Object.class));
+		headers.put("sentenceIndex", new ExpressionEvaluatingHeaderValueMessageProcessor<>("payload.getSentenceIndex()", Object.class));
+		headers.put("numberOfSentences", new ExpressionEvaluatingHeaderValueMessageProcessor<>("payload.getSentenceCount()", Object.class));
+		this.headerEnricher = new HeaderEnricher(headers);
+		this.headerEnricher.setBeanFactory(beanFactory);
+		this.headerEnricher.afterPropertiesSet();
+
+		this.aggregatingMessageHandler = new AggregatingMessageHandler(new DefaultAggregatingMessageGroupProcessor(),
+				new SimpleMessageStore(), new ExpressionEvaluatingCorrelationStrategy("headers.correlationId"),
+				new ExpressionEvaluatingReleaseStrategy("size() == messages[0].headers.numberOfSentences"));
+		this.aggregatingMessageHandler.setExpireGroupsUponCompletion(true);
+		this.aggregatingMessageHandler.setOutputChannel((message, timeout) -> {
+			this.blackhole.consume(message);
+			return true;
+		});
+		this.aggregatingMessageHandler.setBeanFactory(beanFactory);
+		this.aggregatingMessageHandler.afterPropertiesSet();
+	}
+
+	@Benchmark
+	public void gsvAggregator(Blackhole blackhole) {
+		for (Message<?> message : this.messages) {
+			blackhole.consume(this.gsvAggregator.aggregate(message));
+		}
+	}
+
+	@Benchmark
+	public void spelAggregator() {
+		for (Message<?> message : this.messages) {
+			this.aggregatingMessageHandler.handleMessage(this.headerEnricher.transform(message));
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(GsvAggregatorBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.util.FileCopyUtils;
+
+import com.hillert.gnss.demo.nmea.GsvData;
+import com.hillert.gnss.demo.nmea.NmeaParser;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import net.sf.marineapi.nmea.parser.SentenceFactory;
+import net.sf.marineapi.nmea.sentence.GSVSentence;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class GsvAggregatorTests {
+
+	private final GsvAggregator gsvAggregator = new GsvAggregator(new PipelineMetrics(Collections.emptyList()),
+			new DemoSettings.Aggregation(), null);
+
+	@Test
+	void testGroupsBySignalIdUsingNativeParser() throws IOException {
+		final NmeaParser nmeaParser = new NmeaParser();
+		final List<Message<?>> groups = this.aggregate(getTestData(), nmeaParser::parse);
+
+		Assertions.assertEquals(8, groups.size());
+		assertGroup(groups.get(0), 3, 1);
+		assertGroup(groups.get(1), 3, 6);
+		assertGroup(groups.get(2), 3, 1);
+		assertGroup(groups.get(3), 3, 3);
+		assertGroup(groups.get(4), 2, 7);
+		assertGroup(groups.get(5), 2, 2);
+		assertGroup(groups.get(6), 1, -1);
+		assertGroup(groups.get(7), 1, -1);
+
+		final GsvData first = (GsvData) ((Object[]) groups.get(1).getPayload())[0];
+		Assertions.assertEquals("GP", first.getTalkerId());
+		Assertions.assertEquals(6, first.getSignalId());
+	}
+
+	@Test
+	void testGroupsBySignalIdUsingMarineApi() throws IOException {
+		final SentenceFactory sentenceFactory = SentenceFactory.getInstance();
+		final List<Message<?>> groups = this.aggregate(getTestData(), sentenceFactory::createParser);
+
+		Assertions.assertEquals(8, groups.size());
+		assertGroup(groups.get(0), 3, 1);
+		assertGroup(groups.get(1), 3, 6);
+		Assertions.assertEquals(6, SentenceUtils.getSignalId((GSVSentence) ((Object[]) groups.get(1).getPayload())[2]));
+	}
+
+	@Test
+	void testKeepsDevicesApart() {
+		final NmeaParser nmeaParser = new NmeaParser();
+		Assertions.assertNull(this.gsvAggregator.aggregate(message(nmeaParser.parse(
+				"$GPGSV,2,1,06,01,44,330,19,13,33,031,11,21,75,093,16,26,73,310,22,1*6F")).setHeader("deviceId", "a").build()));
+		Assertions.assertNull(this.gsvAggregator.aggregate(message(nmeaParser.parse(
+				"$GPGSV,2,2,06,27,25,133,31,33,33,238,18,1*6A")).setHeader("deviceId", "b").build()));
+		Assertions.assertNotNull(this.gsvAggregator.aggregate(message(nmeaParser.parse(
+				"$GPGSV,2,2,06,27,25,133,31,33,33,238,18,1*6A")).setHeader("deviceId", "a").build()));
+	}
+
+	@Test
+	void testRestartsIncompleteGroup() {
+		final NmeaParser nmeaParser = new NmeaParser();
+		final String first = "$GPGSV,2,1,06,01,44,330,19,13,33,031,11,21,75,093,16,26,73,310,22,1*6F";
+		Assertions.assertNull(this.gsvAggregator.aggregate(message(nmeaParser.parse(first)).build()));
+		Assertions.assertNull(this.gsvAggregator.aggregate(message(nmeaParser.parse(first)).build()));
+		final Message<?> group = this.gsvAggregator.aggregate(message(nmeaParser.parse(
+				"$GPGSV,2,2,06,27,25,133,31,33,33,238,18,1*6A")).build());
+		assertGroup(group, 2, 1);
+		Assertions.assertEquals(1, this.gsvAggregator.getExpiredGroups(GsvAggregator.ExpiryReason.SUPERSEDED));
+	}
+
+	@Test
+	void testReleasesExpiredGroupsAsPartialGroups() throws InterruptedException {
+		final DemoSettings.Aggregation settings = new DemoSettings.Aggregation();
+		settings.setGroupTimeout(Duration.ofMillis(1));
+		settings.setPartialGroups(DemoSettings.Aggregation.PartialGroups.RELEASE);
+		final QueueChannel partialGroupChannel = new QueueChannel();
+		final GsvAggregator gsvAggregator = new GsvAggregator(new PipelineMetrics(Collections.emptyList()),
+				settings, partialGroupChannel);
+
+		Assertions.assertNull(gsvAggregator.aggregate(message(new NmeaParser().parse(
+				"$GPGSV,2,1,06,01,44,330,19,13,33,031,11,21,75,093,16,26,73,310,22,1*6F")).build()));
+		Assertions.assertEquals(1, gsvAggregator.getOpenGroups());
+		Thread.sleep(10);
+
+		Assertions.assertEquals(1, gsvAggregator.expireGroups());
+		Assertions.assertEquals(0, gsvAggregator.getOpenGroups());
+		Assertions.assertEquals(1, gsvAggregator.getExpiredGroups(GsvAggregator.ExpiryReason.TIMEOUT));
+		Assertions.assertEquals(1, gsvAggregator.getPartialGroups());
+
+		final Message<?> partialGroup = partialGroupChannel.receive(0);
+		assertGroup(partialGroup, 1, 1);
+		Assertions.assertEquals(Boolean.TRUE, partialGroup.getHeaders().get(GsvAggregator.PARTIAL_HEADER));
+	}
+
+	@Test
+	void testExpiresLeastRecentlyUpdatedGroup() {
+		final DemoSettings.Aggregation settings = new DemoSettings.Aggregation();
+		settings.setMaxGroups(1);
+		final GsvAggregator gsvAggregator = new GsvAggregator(new PipelineMetrics(Collections.emptyList()),
+				settings, null);
+		final NmeaParser nmeaParser = new NmeaParser();
+
+		Assertions.assertNull(gsvAggregator.aggregate(message(nmeaParser.parse(
+				"$GPGSV,2,1,06,01,44,330,19,13,33,031,11,21,75,093,16,26,73,310,22,1*6F")).build()));
+		Assertions.assertNull(gsvAggregator.aggregate(message(nmeaParser.parse(
+				"$GLGSV,3,1,09,66,02,119,,77,13,152,,78,67,149,44,79,54,334,27,1*70")).build()));
+		Assertions.assertEquals(1, gsvAggregator.getOpenGroups());
+		Assertions.assertEquals(1, gsvAggregator.getExpiredGroups(GsvAggregator.ExpiryReason.OVERFLOW));
+		Assertions.assertEquals(0, gsvAggregator.getPartialGroups());
+	}
+
+	private List<Message<?>> aggregate(String data, Function<String, Object> parser) {
+		final List<Message<?>> groups = new ArrayList<>();
+		data.lines().forEach(line -> {
+			final Message<?> group = this.gsvAggregator.aggregate(message(parser.apply(line)).build());
+			if (group != null) {
+				groups.add(group);
+			}
+		});
+		return groups;
+	}
+
+	private static MessageBuilder<Object> message(Object sentence) {
+		return MessageBuilder.withPayload(sentence).setHeader("deviceId", "test");
+	}
+
+	private static void assertGroup(Message<?> group, int sentenceCount, int signalId) {
+		Assertions.assertEquals(sentenceCount, ((Object[]) group.getPayload()).length);
+		Assertions.assertEquals(signalId, group.getHeaders().get(GsvAggregator.SIGNAL_ID_HEADER));
+	}
+
+	private static String getTestData() throws IOException {
+		try (InputStream inputStream = new ClassPathResource("gsv-test-data.txt").getInputStream()) {
+			return new String(FileCopyUtils.copyToByteArray(inputStream), StandardCharsets.UTF_8);
+		}
+	}
+
+}
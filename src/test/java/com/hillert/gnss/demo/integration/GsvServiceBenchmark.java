@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.hillert.gnss.demo.model.GnssProvider;
+import com.hillert.gnss.demo.model.Satellite;
+import com.hillert.gnss.demo.nmea.GsvData;
+import com.hillert.gnss.demo.nmea.NmeaParser;
+import com.hillert.gnss.demo.store.GnssStatusStore;
+import com.hillert.gnss.demo.store.SatelliteStore;
+
+/**
+ * JMH benchmark of the {@link GsvService} storing a group of GSV sentences in
+ * the {@link SatelliteStore}, compared with the previously used {@link TreeSet}
+ * of {@link Satellite}s per group. Run using
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hillert.gnss.demo.integration.GsvServiceBenchmark} or from the IDE.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class GsvServiceBenchmark {
+
+	private static final String[] GSV = {
+			"$GLGSV,3,1,09,66,02,119,,77,13,152,,78,67,149,44,79,54,334,27,1*70",
+			"$GLGSV,3,2,09,80,02,332,,81,50,338,15,82,37,263,29,83,01,233,,1*72",
+			"$GLGSV,3,3,09,88,16,028,22,1*4C" };
+
+	private final GsvData[] gsvGroup = new GsvData[GSV.length];
+
+	private final Map<GnssProvider, Set<Satellite>> satellites = new ConcurrentHashMap<>();
+
+	private SatelliteStore satelliteStore;
+	private GsvService gsvService;
+
+	@Setup
+	public void setup() {
+		final NmeaParser nmeaParser = new NmeaParser();
+		for (int i = 0; i < GSV.length; i++) {
+			this.gsvGroup[i] = (GsvData) nmeaParser.parse(GSV[i]);
+		}
+		this.satelliteStore = new SatelliteStore();
+		this.gsvService = new GsvService(this.satelliteStore, new GnssStatusStore(),
+				new PipelineMetrics(Collections.emptyList()));
+	}
+
+	@Benchmark
+	public void satelliteTable() {
+		this.gsvService.process(this.gsvGroup);
+	}
+
+	@Benchmark
+	public void satelliteTableAndView(Blackhole blackhole) {
+		this.gsvService.process(this.gsvGroup);
+		blackhole.consume(this.satelliteStore.getSatellites());
+	}
+
+	@Benchmark
+	public void treeSet() {
+		final Set<Satellite> satellites = new TreeSet<>();
+		for (GsvData gsvData : this.gsvGroup) {
+			for (int i = 0; i < gsvData.getSatellitesInSentence(); i++) {
+				satellites.add(new Satellite(GnssProvider.GLONASS, SentenceUtils.toSatelliteId(gsvData.getSatelliteId(i)),
+						gsvData.getElevation(i), gsvData.getAzimuth(i), gsvData.getNoise(i)));
+			}
+		}
+		this.satellites.put(GnssProvider.GLONASS, Collections.unmodifiableSet(satellites));
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(GsvServiceBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+
+}
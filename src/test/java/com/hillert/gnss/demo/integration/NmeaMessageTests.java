@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class NmeaMessageTests {
+
+	@Test
+	void testAccessors() {
+		final NmeaMessage message = new NmeaMessage("payload", 1000L, "rover", SentenceId.GGA, -1,
+				Collections.singletonMap("foo", "bar"));
+
+		Assertions.assertEquals("rover", NmeaMessage.getDeviceId(message));
+		Assertions.assertEquals(1000L, NmeaMessage.getTimestamp(message));
+		Assertions.assertEquals(SentenceId.GGA, PipelineMetrics.getSentenceId(message));
+
+		final NmeaMessage group = message.withPayload(new Object[0], 6);
+		Assertions.assertEquals("rover", group.getDeviceId());
+		Assertions.assertEquals(6, group.getSignalId());
+	}
+
+	@Test
+	void testHeaders() {
+		final Message<String> source = MessageBuilder.withPayload("$GNGGA").setHeader("foo", "bar").build();
+		final NmeaMessage message = new NmeaMessage("payload", 1000L, "rover", SentenceId.GGA, -1, source.getHeaders());
+		final MessageHeaders headers = message.getHeaders();
+
+		Assertions.assertSame(headers, message.getHeaders());
+		Assertions.assertEquals("bar", headers.get("foo"));
+		Assertions.assertEquals("rover", headers.get(NmeaMessage.DEVICE_ID_HEADER));
+		Assertions.assertEquals(SentenceId.GGA, headers.get(PipelineMetrics.SENTENCE_ID_HEADER));
+		Assertions.assertEquals(1000L, headers.getTimestamp());
+		Assertions.assertNull(headers.getId());
+		Assertions.assertFalse(headers.containsKey(GsvAggregator.SIGNAL_ID_HEADER));
+	}
+
+	@Test
+	void testAccessorsOfOtherMessages() {
+		final Message<String> message = MessageBuilder.withPayload("$GNGGA")
+				.setHeader(NmeaMessage.DEVICE_ID_HEADER, "rover").build();
+
+		Assertions.assertEquals("rover", NmeaMessage.getDeviceId(message));
+		Assertions.assertEquals(message.getHeaders().getTimestamp().longValue(), NmeaMessage.getTimestamp(message));
+		Assertions.assertNull(PipelineMetrics.getSentenceId(message));
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileCopyUtils;
+
+import com.hillert.gnss.demo.GnssNmeaDemoApplication;
+import com.hillert.gnss.demo.config.SpringIntegrationConfig.NmeaMessageGateway;
+
+/**
+ * JMH benchmark comparing the Spring Integration flow with the {@link DirectPipeline}
+ * end-to-end, from the raw sentence to the updated stores, using the complete
+ * application context. Each invocation processes one epoch of sentences (the GSV
+ * sentences of {@code gsv-test-data.txt}, GGA and GSA). The channels are direct
+ * channels, so that the Spring Integration flow has completed once the gateway returns.
+ * Run using {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hillert.gnss.demo.integration.PipelineBenchmark} or from the IDE.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class PipelineBenchmark {
+
+	private static final String DEVICE_ID = "benchmark";
+
+	@Param({"MARINEAPI", "NATIVE"})
+	private String engine;
+
+	private final List<String> sentences = new ArrayList<>();
+
+	private ConfigurableApplicationContext context;
+	private NmeaMessageGateway nmeaMessageGateway;
+	private DirectPipeline directPipeline;
+
+	@Setup
+	public void setup() throws IOException {
+		try (InputStream inputStream = new ClassPathResource("gsv-test-data.txt").getInputStream()) {
+			this.sentences.addAll(new String(FileCopyUtils.copyToByteArray(inputStream), StandardCharsets.UTF_8)
+					.lines().collect(Collectors.toList()));
+		}
+		this.sentences.add("$GNGGA,092725.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*45");
+		this.sentences.add("$GNGSA,A,3,80,71,73,79,69,,,,,,,,1.83,1.09,1.47,2*09");
+
+		this.context = new SpringApplicationBuilder(GnssNmeaDemoApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				.properties("demo.settings.channels.type=direct",
+						"demo.settings.parsing.engine=" + this.engine,
+						"logging.level.root=warn")
+				.run();
+		this.nmeaMessageGateway = this.context.getBean(NmeaMessageGateway.class);
+		this.directPipeline = this.context.getBean(DirectPipeline.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public void springIntegration() {
+		for (String sentence : this.sentences) {
+			this.nmeaMessageGateway.send(sentence, DEVICE_ID);
+		}
+	}
+
+	@Benchmark
+	public void direct() {
+		for (String sentence : this.sentences) {
+			this.directPipeline.process(sentence, DEVICE_ID);
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(PipelineBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+
+}
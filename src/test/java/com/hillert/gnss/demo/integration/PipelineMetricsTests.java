@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import java.util.EnumSet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.MessageBuilder;
+
+import com.hillert.gnss.demo.integration.PipelineMetrics.Stage;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class PipelineMetricsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void addMeterRegistry() {
+		Metrics.addRegistry(this.meterRegistry);
+	}
+
+	@AfterEach
+	void removeMeterRegistry() {
+		Metrics.removeRegistry(this.meterRegistry);
+		this.meterRegistry.close();
+	}
+
+	@Test
+	void testMetersAreRegisteredUpFront() {
+		new PipelineMetrics(EnumSet.of(SentenceId.GGA, SentenceId.GSV));
+
+		for (Stage stage : Stage.values()) {
+			for (String sentenceType : new String[] {"GGA", "GSV", "OTHER"}) {
+				Assertions.assertNotNull(this.meterRegistry.find("nmea.pipeline.stage")
+						.tags("sentence_type", sentenceType, "stage", stage.name().toLowerCase()).timer());
+			}
+		}
+		Assertions.assertNotNull(this.meterRegistry.find("nmea.pipeline.parse.failures")
+				.tags("sentence_type", "GSV").counter());
+	}
+
+	@Test
+	void testRecordBySentenceIdHeader() {
+		final PipelineMetrics pipelineMetrics = new PipelineMetrics(EnumSet.of(SentenceId.GGA));
+		final long ggaCount = pipelineMetrics.getTimer(SentenceId.GGA, Stage.SERVICE).count();
+		final long otherCount = pipelineMetrics.getTimer(null, Stage.SERVICE).count();
+
+		pipelineMetrics.record(MessageBuilder.withPayload("GGA")
+				.setHeader(PipelineMetrics.SENTENCE_ID_HEADER, SentenceId.GGA).build(), Stage.SERVICE, System.nanoTime());
+		pipelineMetrics.record(MessageBuilder.withPayload("TXT")
+				.setHeader(PipelineMetrics.SENTENCE_ID_HEADER, SentenceId.TXT).build(), Stage.SERVICE, System.nanoTime());
+		pipelineMetrics.record(MessageBuilder.withPayload("none").build(), Stage.SERVICE, System.nanoTime());
+
+		Assertions.assertEquals(ggaCount + 1, pipelineMetrics.getTimer(SentenceId.GGA, Stage.SERVICE).count());
+		Assertions.assertEquals(otherCount + 2, pipelineMetrics.getTimer(null, Stage.SERVICE).count());
+	}
+
+	@Test
+	void testParseFailuresAreCountedPerSentenceType() {
+		final PipelineMetrics pipelineMetrics = new PipelineMetrics(EnumSet.of(SentenceId.GGA));
+		final double ggaCount = this.parseFailures("GGA");
+		final double otherCount = this.parseFailures("OTHER");
+
+		pipelineMetrics.recordParseFailure("$GNGGA,invalid*00");
+		pipelineMetrics.recordParseFailure("$GPTXT,invalid*00");
+		pipelineMetrics.recordParseFailure("garbage");
+
+		Assertions.assertEquals(ggaCount + 1, this.parseFailures("GGA"));
+		Assertions.assertEquals(otherCount + 2, this.parseFailures("OTHER"));
+	}
+
+	private double parseFailures(String sentenceType) {
+		return this.meterRegistry.get("nmea.pipeline.parse.failures").tag("sentence_type", sentenceType)
+				.counter().count();
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.integration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.sf.marineapi.nmea.parser.SentenceFactory;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class SentencePrecheckTests {
+
+	private final SentencePrecheck sentencePrecheck = new SentencePrecheck(SentenceFactory.getInstance());
+
+	@Test
+	void testSupportedSentences() {
+		Assertions.assertNull(this.sentencePrecheck.check(
+				"$GNGGA,092725.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*45"));
+		Assertions.assertNull(this.sentencePrecheck.check(
+				"$GPGSV,3,1,11,03,03,111,00,04,15,270,00,06,01,010,00,13,06,292,00,1*69"));
+	}
+
+	@Test
+	void testUnsupportedSentences() {
+		Assertions.assertEquals(DeadLetter.Reason.MALFORMED, this.sentencePrecheck.check("garbage"));
+		Assertions.assertEquals(DeadLetter.Reason.MALFORMED, this.sentencePrecheck.check("$GPGGA092725.00*45"));
+		Assertions.assertEquals(DeadLetter.Reason.UNSUPPORTED_TALKER, this.sentencePrecheck.check("$XXGGA,092725.00*45"));
+		Assertions.assertEquals(DeadLetter.Reason.UNSUPPORTED_TALKER, this.sentencePrecheck.check("$g1GGA,092725.00*45"));
+		Assertions.assertEquals(DeadLetter.Reason.UNSUPPORTED_SENTENCE, this.sentencePrecheck.check("$GNXYZ,1,2*00"));
+		Assertions.assertEquals(DeadLetter.Reason.UNSUPPORTED_SENTENCE,
+				this.sentencePrecheck.check("$PGRME,15.0,M,45.0,M,25.0,M*1C"));
+	}
+
+}
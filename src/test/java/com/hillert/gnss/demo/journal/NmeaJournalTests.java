@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.journal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.unit.DataSize;
+
+import com.hillert.gnss.demo.services.ConnectionType;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class NmeaJournalTests {
+
+	private static final String GSV_SENTENCE = "$GBGSV,1,1,00,*47";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void testJournalLinesHaveIngestTime() throws IOException {
+		final DemoSettings.Journal settings = createSettings(DemoSettings.Journal.Compression.NONE);
+		journal(settings, 3);
+
+		final List<Path> segments = NmeaJournal.listSegments(NmeaJournal.getDirectory(settings, "rover"));
+		Assertions.assertEquals(1, segments.size());
+
+		final List<String> lines = Files.readAllLines(segments.get(0), StandardCharsets.ISO_8859_1);
+		Assertions.assertEquals(List.of("1000 " + GSV_SENTENCE, "1001 " + GSV_SENTENCE, "1002 " + GSV_SENTENCE), lines);
+	}
+
+	@Test
+	void testGzipCompression() throws IOException {
+		final DemoSettings.Journal settings = createSettings(DemoSettings.Journal.Compression.GZIP);
+		journal(settings, 2);
+
+		final List<Path> segments = NmeaJournal.listSegments(NmeaJournal.getDirectory(settings, "rover"));
+		Assertions.assertEquals(1, segments.size());
+		Assertions.assertTrue(segments.get(0).toString().endsWith(".log.gz"));
+
+		try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(segments.get(0)))) {
+			final String content = new String(FileCopyUtils.copyToByteArray(inputStream), StandardCharsets.ISO_8859_1);
+			Assertions.assertEquals("1000 " + GSV_SENTENCE + "\r\n1001 " + GSV_SENTENCE + "\r\n", content);
+		}
+	}
+
+	@Test
+	void testRotationAndRetention() {
+		final DemoSettings.Journal settings = createSettings(DemoSettings.Journal.Compression.NONE);
+		settings.setMaxSegmentSize(DataSize.ofBytes(1));
+		settings.setMaxSegments(2);
+
+		for (int i = 0; i < 4; i++) {
+			journal(settings, 1);
+		}
+
+		Assertions.assertEquals(2, NmeaJournal.listSegments(NmeaJournal.getDirectory(settings, "rover")).size());
+	}
+
+	private DemoSettings.Journal createSettings(DemoSettings.Journal.Compression compression) {
+		final DemoSettings.Journal settings = new DemoSettings.Journal();
+		settings.setDirectory(this.directory);
+		settings.setCompression(compression);
+		return settings;
+	}
+
+	private static void journal(DemoSettings.Journal settings, int count) {
+		final NmeaJournal nmeaJournal = new NmeaJournal(ConnectionType.SERIAL, "rover", settings);
+		nmeaJournal.start();
+		final byte[] sentence = GSV_SENTENCE.getBytes(StandardCharsets.ISO_8859_1);
+		for (int i = 0; i < count; i++) {
+			nmeaJournal.append(1000L + i, sentence, 0, sentence.length);
+		}
+		nmeaJournal.stop();
+	}
+}
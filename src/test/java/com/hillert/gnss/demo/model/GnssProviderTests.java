@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class GnssProviderTests {
+
+	@Test
+	void testTalkerIds() {
+		Assertions.assertEquals(GnssProvider.GPS, GnssProvider.fromKey("GP"));
+		Assertions.assertEquals(GnssProvider.GLONASS, GnssProvider.fromKey("GL"));
+		Assertions.assertEquals(GnssProvider.GALILEO, GnssProvider.fromKey("GA"));
+		Assertions.assertEquals(GnssProvider.BAIDOU, GnssProvider.fromKey("GB"));
+		Assertions.assertEquals(GnssProvider.QZSS, GnssProvider.fromKey("GQ"));
+		Assertions.assertEquals(GnssProvider.NAVIC, GnssProvider.fromKey("GI"));
+		Assertions.assertEquals(GnssProvider.COMBINED, GnssProvider.fromKey("GN"));
+	}
+
+	@Test
+	void testAliases() {
+		Assertions.assertEquals(GnssProvider.BAIDOU, GnssProvider.fromKey('B', 'D'));
+		Assertions.assertEquals(GnssProvider.QZSS, GnssProvider.fromKey('Q', 'Z'));
+		Assertions.assertEquals("GB", GnssProvider.BAIDOU.getId());
+	}
+
+	@Test
+	void testUnknownTalkerIds() {
+		Assertions.assertEquals(GnssProvider.UNKNOWN, GnssProvider.fromKey("XX"));
+		Assertions.assertEquals(GnssProvider.UNKNOWN, GnssProvider.fromKey("G"));
+		Assertions.assertEquals(GnssProvider.UNKNOWN, GnssProvider.fromKey("--"));
+		Assertions.assertEquals(GnssProvider.UNKNOWN, GnssProvider.fromKey('g', 'p'));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> GnssProvider.fromKey(null));
+	}
+
+}
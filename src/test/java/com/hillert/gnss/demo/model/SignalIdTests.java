@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class SignalIdTests {
+
+	@Test
+	void testSignalIdsArePerGnssProvider() {
+		Assertions.assertEquals(SignalId.GPS_L1, SignalId.fromKey(GnssProvider.GPS, 1));
+		Assertions.assertEquals(SignalId.GLONASS_L1, SignalId.fromKey(GnssProvider.GLONASS, 1));
+		Assertions.assertEquals(SignalId.GALILEO_E1, SignalId.fromKey(GnssProvider.GALILEO, 7));
+		Assertions.assertEquals(SignalId.BAIDOU_B2I, SignalId.fromKey(GnssProvider.BAIDOU, 0xB));
+		Assertions.assertEquals(SignalId.QZSS_L1S, SignalId.fromKey(GnssProvider.QZSS, 4));
+		Assertions.assertEquals(SignalId.NAVIC_L5SPS, SignalId.fromKey(GnssProvider.NAVIC, Integer.valueOf(1)));
+	}
+
+	@Test
+	void testUnknownSignalIds() {
+		Assertions.assertEquals(SignalId.UNKNOWN, SignalId.fromKey(GnssProvider.GPS, 0));
+		Assertions.assertEquals(SignalId.UNKNOWN, SignalId.fromKey(GnssProvider.GPS, -1));
+		Assertions.assertEquals(SignalId.UNKNOWN, SignalId.fromKey(GnssProvider.GPS, 16));
+		Assertions.assertEquals(SignalId.UNKNOWN, SignalId.fromKey(GnssProvider.GLONASS, (Integer) null));
+		Assertions.assertEquals(SignalId.UNKNOWN, SignalId.fromKey(GnssProvider.COMBINED, 1));
+		Assertions.assertEquals(SignalId.UNKNOWN, SignalId.fromKey(GnssProvider.UNKNOWN, 1));
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileCopyUtils;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class NmeaFramerTests {
+
+	private final List<String> frames = new ArrayList<>();
+
+	private final NmeaFramer nmeaFramer = new NmeaFramer((buffer, offset, length) ->
+		this.frames.add(new String(buffer, offset, length, StandardCharsets.ISO_8859_1)));
+
+	@Test
+	void testFramingOfValidSentences() throws IOException {
+		final byte[] data;
+		try (InputStream inputStream = new ClassPathResource("gsv-test-data.txt").getInputStream()) {
+			data = FileCopyUtils.copyToByteArray(inputStream);
+		}
+
+		this.nmeaFramer.feed(data, 0, data.length);
+		this.nmeaFramer.feed(new byte[] {'\n'}, 0, 1);
+
+		Assertions.assertEquals(18, this.frames.size());
+		Assertions.assertEquals("$GPGSV,3,1,12,05,12,057,27,12,29,109,36,18,74,223,26,20,23,175,30,1*6F", this.frames.get(0));
+		Assertions.assertEquals("$GBGSV,1,1,00,*47", this.frames.get(17));
+		Assertions.assertEquals(0, this.nmeaFramer.getChecksumFailures());
+	}
+
+	@Test
+	void testFrameSplitAcrossChunks() {
+		feed("$GBGSV,1,");
+		Assertions.assertTrue(this.frames.isEmpty());
+		feed("1,00,*47\r\n");
+
+		Assertions.assertEquals(1, this.frames.size());
+		Assertions.assertEquals("$GBGSV,1,1,00,*47", this.frames.get(0));
+	}
+
+	@Test
+	void testInvalidChecksumIsDropped() {
+		feed("$GBGSV,1,1,00,*48\r\n$GBGSV,1,1,00\r\n$GBGSV,1,1,00,*47\r\n");
+
+		Assertions.assertEquals(1, this.frames.size());
+		Assertions.assertEquals(2, this.nmeaFramer.getChecksumFailures());
+	}
+
+	@Test
+	void testResyncAfterGarbage() {
+		feed(",1,00,*47\r\nµb\u0001\u0007$GBGS$GBGSV,1,1,00,*47\r\n");
+
+		Assertions.assertEquals(1, this.frames.size());
+		Assertions.assertEquals("$GBGSV,1,1,00,*47", this.frames.get(0));
+		Assertions.assertEquals(3, this.nmeaFramer.getResyncs());
+	}
+
+	@Test
+	void testOversizedFrameIsSkipped() {
+		final NmeaFramer smallFramer = new NmeaFramer((buffer, offset, length) ->
+			this.frames.add(new String(buffer, offset, length, StandardCharsets.ISO_8859_1)), 20);
+		final byte[] data = "$GPGSV,3,1,12,05,12,057,27*00\r\n$GBGSV,1,1,00,*47\r\n".getBytes(StandardCharsets.ISO_8859_1);
+		smallFramer.feed(data, 0, data.length);
+
+		Assertions.assertEquals(1, this.frames.size());
+		Assertions.assertEquals(1, smallFramer.getResyncs());
+		Assertions.assertEquals(0, smallFramer.getChecksumFailures());
+	}
+
+	private void feed(String data) {
+		final byte[] bytes = data.getBytes(StandardCharsets.ISO_8859_1);
+		this.nmeaFramer.feed(bytes, 0, bytes.length);
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.hillert.gnss.demo.integration.SentenceUtils;
+
+import net.sf.marineapi.nmea.parser.SentenceFactory;
+import net.sf.marineapi.nmea.sentence.GGASentence;
+import net.sf.marineapi.nmea.sentence.GSASentence;
+import net.sf.marineapi.nmea.sentence.GSVSentence;
+import net.sf.marineapi.nmea.sentence.RMCSentence;
+import net.sf.marineapi.nmea.util.SatelliteInfo;
+
+/**
+ * JMH benchmark comparing the {@link NmeaParser} with marineapi for the
+ * sentence types routed by the application. The {@code native...} benchmarks
+ * parse into reusable data holders, as the direct pipeline does for GGA and GSA,
+ * the {@code nativeParse...} benchmarks create a data holder per sentence using
+ * {@link NmeaParser#parse(CharSequence)}, as done wherever the data is retained.
+ * Run using
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.hillert.gnss.demo.nmea.NmeaParserBenchmark} or from the IDE.
+ *
+ * @author Gunnar Hillert
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseParallelGC")
+public class NmeaParserBenchmark {
+
+	static final String GGA = "$GNGGA,092725.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*45";
+	static final String GSA = "$GNGSA,A,3,80,71,73,79,69,,,,,,,,1.83,1.09,1.47,2*09";
+	static final String GSV = "$GPGSV,3,1,11,03,03,111,00,04,15,270,00,06,01,010,00,13,06,292,00,1*69";
+	static final String RMC = "$GNRMC,083559.00,A,4717.11437,N,00833.91522,E,0.004,77.52,091202,,,A,V*33";
+
+	private final SentenceFactory sentenceFactory = SentenceFactory.getInstance();
+
+	private final NmeaParser nmeaParser = new NmeaParser();
+	private final GgaData ggaData = new GgaData();
+	private final GsaData gsaData = new GsaData();
+	private final GsvData gsvData = new GsvData();
+	private final RmcData rmcData = new RmcData();
+
+	@Benchmark
+	public void marineApiGga(Blackhole blackhole) {
+		final GGASentence sentence = (GGASentence) this.sentenceFactory.createParser(GGA);
+		blackhole.consume(SentenceUtils.handleNmeaData(sentence::getPosition));
+		blackhole.consume(SentenceUtils.handleNmeaData(sentence::getAltitude));
+		blackhole.consume(SentenceUtils.handleNmeaData(sentence::getFixQuality));
+	}
+
+	@Benchmark
+	public void nativeGga(Blackhole blackhole) {
+		this.nmeaParser.parseGga(GGA, this.ggaData);
+		blackhole.consume(this.ggaData.getLatitude());
+		blackhole.consume(this.ggaData.getLongitude());
+		blackhole.consume(this.ggaData.getAltitude());
+		blackhole.consume(this.ggaData.getFixQuality());
+	}
+
+	@Benchmark
+	public void nativeParseGga(Blackhole blackhole) {
+		final GgaData ggaData = (GgaData) this.nmeaParser.parse(GGA);
+		blackhole.consume(ggaData.getLatitude());
+		blackhole.consume(ggaData.getLongitude());
+		blackhole.consume(ggaData.getAltitude());
+		blackhole.consume(ggaData.getFixQuality());
+	}
+
+	@Benchmark
+	public void marineApiGsa(Blackhole blackhole) {
+		final GSASentence sentence = (GSASentence) this.sentenceFactory.createParser(GSA);
+		blackhole.consume(SentenceUtils.handleNmeaData(sentence::getFixStatus));
+		blackhole.consume(SentenceUtils.handleNmeaData(sentence::getSatelliteIds));
+	}
+
+	@Benchmark
+	public void nativeGsa(Blackhole blackhole) {
+		this.nmeaParser.parseGsa(GSA, this.gsaData);
+		blackhole.consume(this.gsaData.getFixType());
+		blackhole.consume(this.gsaData.getSatelliteCount());
+	}
+
+	@Benchmark
+	public void nativeParseGsa(Blackhole blackhole) {
+		final GsaData gsaData = (GsaData) this.nmeaParser.parse(GSA);
+		blackhole.consume(gsaData.getFixType());
+		blackhole.consume(gsaData.getSatelliteCount());
+	}
+
+	@Benchmark
+	public void marineApiGsv(Blackhole blackhole) {
+		final GSVSentence sentence = (GSVSentence) this.sentenceFactory.createParser(GSV);
+		blackhole.consume(sentence.getSatelliteCount());
+		for (SatelliteInfo satelliteInfo : sentence.getSatelliteInfo()) {
+			blackhole.consume(satelliteInfo.getId());
+			blackhole.consume(satelliteInfo.getNoise());
+		}
+	}
+
+	@Benchmark
+	public void nativeGsv(Blackhole blackhole) {
+		this.nmeaParser.parseGsv(GSV, this.gsvData);
+		blackhole.consume(this.gsvData.getSatelliteCount());
+		for (int i = 0; i < this.gsvData.getSatellitesInSentence(); i++) {
+			blackhole.consume(this.gsvData.getSatelliteId(i));
+			blackhole.consume(this.gsvData.getNoise(i));
+		}
+	}
+
+	@Benchmark
+	public void nativeParseGsv(Blackhole blackhole) {
+		final GsvData gsvData = (GsvData) this.nmeaParser.parse(GSV);
+		blackhole.consume(gsvData.getSatelliteCount());
+		for (int i = 0; i < gsvData.getSatellitesInSentence(); i++) {
+			blackhole.consume(gsvData.getSatelliteId(i));
+			blackhole.consume(gsvData.getNoise(i));
+		}
+	}
+
+	@Benchmark
+	public void marineApiRmc(Blackhole blackhole) {
+		final RMCSentence sentence = (RMCSentence) this.sentenceFactory.createParser(RMC);
+		blackhole.consume(SentenceUtils.handleNmeaData(sentence::getPosition));
+		blackhole.consume(SentenceUtils.handleNmeaData(sentence::getSpeed));
+		blackhole.consume(SentenceUtils.handleNmeaData(sentence::getCourse));
+	}
+
+	@Benchmark
+	public void nativeRmc(Blackhole blackhole) {
+		this.nmeaParser.parseRmc(RMC, this.rmcData);
+		blackhole.consume(this.rmcData.getLatitude());
+		blackhole.consume(this.rmcData.getLongitude());
+		blackhole.consume(this.rmcData.getSpeedOverGround());
+		blackhole.consume(this.rmcData.getCourseOverGround());
+	}
+
+	@Benchmark
+	public void nativeParseRmc(Blackhole blackhole) {
+		final RmcData rmcData = (RmcData) this.nmeaParser.parse(RMC);
+		blackhole.consume(rmcData.getLatitude());
+		blackhole.consume(rmcData.getLongitude());
+		blackhole.consume(rmcData.getSpeedOverGround());
+		blackhole.consume(rmcData.getCourseOverGround());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(NmeaParserBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+
+}
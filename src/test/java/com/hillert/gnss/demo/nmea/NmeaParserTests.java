@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.nmea;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import net.sf.marineapi.nmea.parser.SentenceFactory;
+import net.sf.marineapi.nmea.sentence.GGASentence;
+import net.sf.marineapi.nmea.sentence.SentenceId;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class NmeaParserTests {
+
+	private final NmeaParser nmeaParser = new NmeaParser();
+
+	@Test
+	void testParseGga() {
+		final GgaData ggaData = new GgaData();
+		Assertions.assertTrue(this.nmeaParser.parseGga(NmeaParserBenchmark.GGA, ggaData));
+
+		final GGASentence expected = (GGASentence) SentenceFactory.getInstance().createParser(NmeaParserBenchmark.GGA);
+		Assertions.assertEquals("GN", ggaData.getTalkerId());
+		Assertions.assertEquals((9 * 3600 + 27 * 60 + 25) * 1000, ggaData.getTimeOfDay());
+		Assertions.assertEquals(expected.getPosition().getLatitude(), ggaData.getLatitude(), 1e-9);
+		Assertions.assertEquals(expected.getPosition().getLongitude(), ggaData.getLongitude(), 1e-9);
+		Assertions.assertEquals(1, ggaData.getFixQuality());
+		Assertions.assertEquals(8, ggaData.getSatellitesInUse());
+		Assertions.assertEquals(1.01, ggaData.getHorizontalDilution(), 1e-9);
+		Assertions.assertEquals(499.6, ggaData.getAltitude(), 1e-9);
+		Assertions.assertEquals(48.0, ggaData.getGeoidalHeight(), 1e-9);
+	}
+
+	@Test
+	void testParseGgaWithoutFix() {
+		final GgaData ggaData = new GgaData();
+		Assertions.assertTrue(this.nmeaParser.parseGga("$GPGGA,,,,,,0,00,99.99,,,,,,*48", ggaData));
+
+		Assertions.assertEquals(-1, ggaData.getTimeOfDay());
+		Assertions.assertFalse(ggaData.isPositionAvailable());
+		Assertions.assertFalse(ggaData.isAltitudeAvailable());
+		Assertions.assertEquals(0, ggaData.getFixQuality());
+		Assertions.assertEquals(99.99, ggaData.getHorizontalDilution(), 1e-9);
+	}
+
+	@Test
+	void testParseGsa() {
+		final GsaData gsaData = new GsaData();
+		Assertions.assertTrue(this.nmeaParser.parseGsa(NmeaParserBenchmark.GSA, gsaData));
+
+		Assertions.assertEquals('A', gsaData.getMode());
+		Assertions.assertEquals(3, gsaData.getFixType());
+		Assertions.assertEquals(5, gsaData.getSatelliteCount());
+		Assertions.assertEquals(80, gsaData.getSatelliteId(0));
+		Assertions.assertEquals(69, gsaData.getSatelliteId(4));
+		Assertions.assertEquals(1.83, gsaData.getPositionDilution(), 1e-9);
+		Assertions.assertEquals(1.09, gsaData.getHorizontalDilution(), 1e-9);
+		Assertions.assertEquals(1.47, gsaData.getVerticalDilution(), 1e-9);
+		Assertions.assertEquals(2, gsaData.getSystemId());
+	}
+
+	@Test
+	void testParseGsv() {
+		final GsvData gsvData = new GsvData();
+		Assertions.assertTrue(this.nmeaParser.parseGsv(NmeaParserBenchmark.GSV, gsvData));
+
+		Assertions.assertEquals("GP", gsvData.getTalkerId());
+		Assertions.assertEquals(3, gsvData.getSentenceCount());
+		Assertions.assertEquals(1, gsvData.getSentenceIndex());
+		Assertions.assertEquals(11, gsvData.getSatelliteCount());
+		Assertions.assertEquals(4, gsvData.getSatellitesInSentence());
+		Assertions.assertEquals(3, gsvData.getSatelliteId(0));
+		Assertions.assertEquals(3, gsvData.getElevation(0));
+		Assertions.assertEquals(111, gsvData.getAzimuth(0));
+		Assertions.assertEquals(13, gsvData.getSatelliteId(3));
+		Assertions.assertEquals(292, gsvData.getAzimuth(3));
+		Assertions.assertEquals(1, gsvData.getSignalId());
+	}
+
+	@Test
+	void testParseGsvWithoutSatellites() {
+		final GsvData gsvData = new GsvData();
+		Assertions.assertTrue(this.nmeaParser.parseGsv("$GBGSV,1,1,00,*47", gsvData));
+
+		Assertions.assertEquals(0, gsvData.getSatelliteCount());
+		Assertions.assertEquals(0, gsvData.getSatellitesInSentence());
+		Assertions.assertEquals(-1, gsvData.getSignalId());
+	}
+
+	@Test
+	void testParseRmc() {
+		final RmcData rmcData = new RmcData();
+		Assertions.assertTrue(this.nmeaParser.parseRmc(NmeaParserBenchmark.RMC, rmcData));
+
+		Assertions.assertEquals('A', rmcData.getStatus());
+		Assertions.assertEquals(47.285239, rmcData.getLatitude(), 1e-6);
+		Assertions.assertEquals(8.565254, rmcData.getLongitude(), 1e-6);
+		Assertions.assertEquals(0.004, rmcData.getSpeedOverGround(), 1e-9);
+		Assertions.assertEquals(77.52, rmcData.getCourseOverGround(), 1e-9);
+		Assertions.assertEquals(91202, rmcData.getDate());
+		Assertions.assertEquals('A', rmcData.getMode());
+	}
+
+	@Test
+	void testUnsupportedSentences() {
+		Assertions.assertEquals(SentenceId.GSV, NmeaParser.getSupportedSentenceId(NmeaParserBenchmark.GSV));
+		Assertions.assertNull(NmeaParser.getSupportedSentenceId("$GPVTG,,T,,M,0.004,N,0.008,K,A*3E"));
+		Assertions.assertNull(NmeaParser.getSupportedSentenceId("$PUBX,00,*33"));
+		Assertions.assertNull(this.nmeaParser.parse("$GPTXT,01,01,02,ANTSTATUS=OK*3B"));
+	}
+}
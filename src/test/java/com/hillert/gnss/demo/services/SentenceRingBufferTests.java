@@ -0,0 +1,109 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hillert.gnss.demo.services.SentenceRingBuffer.DropPolicy;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class SentenceRingBufferTests {
+
+	@Test
+	void testCapacityIsRoundedUpToPowerOfTwo() {
+		Assertions.assertEquals(8, new SentenceRingBuffer(5, DropPolicy.DROP_OLDEST, 1).getCapacity());
+		Assertions.assertEquals(8, new SentenceRingBuffer(8, DropPolicy.DROP_OLDEST, 1).getCapacity());
+	}
+
+	@Test
+	void testDropOldest() {
+		final SentenceRingBuffer ringBuffer = new SentenceRingBuffer(4, DropPolicy.DROP_OLDEST, 1);
+		for (int i = 0; i < 6; i++) {
+			Assertions.assertTrue(ringBuffer.offer("GGA" + i, false));
+		}
+
+		Assertions.assertEquals(4, ringBuffer.size());
+		Assertions.assertEquals(2, ringBuffer.getDroppedOldest());
+		Assertions.assertEquals(4, ringBuffer.getHighWaterMark());
+		Assertions.assertEquals(List.of("GGA2", "GGA3", "GGA4", "GGA5"), drain(ringBuffer));
+	}
+
+	@Test
+	void testDropByTypeShedsLowPriorityTypesFirst() {
+		final SentenceRingBuffer ringBuffer = new SentenceRingBuffer(4, DropPolicy.DROP_BY_TYPE, 0.5);
+		Assertions.assertTrue(ringBuffer.offer("GSV1", true));
+		Assertions.assertTrue(ringBuffer.offer("GGA1", false));
+		Assertions.assertFalse(ringBuffer.offer("GSV2", true));
+		Assertions.assertTrue(ringBuffer.offer("GGA2", false));
+		Assertions.assertTrue(ringBuffer.offer("GGA3", false));
+
+		Assertions.assertEquals(1, ringBuffer.getShed());
+		Assertions.assertEquals(0, ringBuffer.getDroppedOldest());
+		Assertions.assertEquals(List.of("GSV1", "GGA1", "GGA2", "GGA3"), drain(ringBuffer));
+	}
+
+	@Test
+	void testPollReleasesTheSentence() {
+		final SentenceRingBuffer ringBuffer = new SentenceRingBuffer(4, DropPolicy.DROP_OLDEST, 1);
+		Assertions.assertTrue(ringBuffer.offer("GGA1", false));
+		Assertions.assertEquals("GGA1", ringBuffer.poll());
+
+		final AtomicReferenceArray<?> slots = (AtomicReferenceArray<?>) ReflectionTestUtils.getField(ringBuffer, "slots");
+		for (int i = 0; i < slots.length(); i++) {
+			Assertions.assertNull(slots.get(i));
+		}
+	}
+
+	@Test
+	void testBlockDoesNotLoseSentences() throws InterruptedException {
+		final int count = 100_000;
+		final SentenceRingBuffer ringBuffer = new SentenceRingBuffer(16, DropPolicy.BLOCK, 1);
+		final Thread producer = new Thread(() -> {
+			for (int i = 0; i < count; i++) {
+				ringBuffer.offer(String.valueOf(i), false);
+			}
+		});
+		producer.start();
+
+		for (int i = 0; i < count; i++) {
+			Assertions.assertEquals(String.valueOf(i), ringBuffer.take());
+		}
+		producer.join();
+
+		Assertions.assertEquals(0, ringBuffer.size());
+		Assertions.assertEquals(0, ringBuffer.getDroppedOldest());
+	}
+
+	private static List<String> drain(SentenceRingBuffer ringBuffer) {
+		final List<String> sentences = new ArrayList<>();
+		String sentence;
+		while ((sentence = ringBuffer.poll()) != null) {
+			sentences.add(sentence);
+		}
+		return sentences;
+	}
+}
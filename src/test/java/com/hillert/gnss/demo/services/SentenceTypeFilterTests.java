@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.hillert.gnss.demo.support.DemoSettings;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class SentenceTypeFilterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void addMeterRegistry() {
+		Metrics.addRegistry(this.meterRegistry);
+	}
+
+	@AfterEach
+	void removeMeterRegistry() {
+		Metrics.removeRegistry(this.meterRegistry);
+		this.meterRegistry.close();
+	}
+
+	@Test
+	void testOnlyAllowedSentenceTypesAreAccepted() {
+		final SentenceTypeFilter filter = new SentenceTypeFilter(ConnectionType.REPLAY, "filter-allowed",
+				new DemoSettings.Filter());
+
+		Assertions.assertTrue(accept(filter, "$GNGGA,092725.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*45"));
+		Assertions.assertTrue(accept(filter, "$GPGSV,3,1,11,03,03,111,00,04,15,270,00,06,01,010,00,13,06,292,00,1*69"));
+		Assertions.assertTrue(accept(filter, "$PUBX,00,081350.00,4717.113210,N,00833.915187,E,546.589,G3,2.1,2.0,0.007,77.52,0.007,,0.92,1.19,0.77,9,0,0*5F"));
+		Assertions.assertFalse(accept(filter, "$GNRMC,083559.00,A,4717.11437,N,00833.91522,E,0.004,77.52,091202,,,A,V*33"));
+		Assertions.assertFalse(accept(filter, "$GNTXT,01,01,02,u-blox AG*4E"));
+		Assertions.assertFalse(accept(filter, "$X*00"));
+
+		Assertions.assertEquals(3, filter.getDropped());
+	}
+
+	@Test
+	void testAllSentencesAreCountedPerType() {
+		final DemoSettings.Filter settings = new DemoSettings.Filter();
+		settings.setSentenceTypes(List.of("GGA"));
+		final SentenceTypeFilter filter = new SentenceTypeFilter(ConnectionType.REPLAY, "filter-count", settings);
+
+		accept(filter, "$GPGGA,092725.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*5B");
+		accept(filter, "$GNGGA,092725.00,4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,*45");
+		accept(filter, "$GNRMC,083559.00,A,4717.11437,N,00833.91522,E,0.004,77.52,091202,,,A,V*33");
+
+		Assertions.assertEquals(2, count("filter-count", "GGA"));
+		Assertions.assertEquals(1, count("filter-count", "RMC"));
+		Assertions.assertEquals(1, filter.getDropped());
+	}
+
+	@Test
+	void testDisabledFilterAcceptsAllSentences() {
+		final DemoSettings.Filter settings = new DemoSettings.Filter();
+		settings.setEnabled(false);
+		final SentenceTypeFilter filter = new SentenceTypeFilter(ConnectionType.REPLAY, "filter-disabled", settings);
+
+		Assertions.assertTrue(accept(filter, "$GNRMC,083559.00,A,4717.11437,N,00833.91522,E,0.004,77.52,091202,,,A,V*33"));
+		Assertions.assertEquals(1, count("filter-disabled", "RMC"));
+		Assertions.assertEquals(0, filter.getDropped());
+	}
+
+	@Test
+	void testDroppedCounterIsBoundToNewFilterAfterClose() {
+		final SentenceTypeFilter filter = new SentenceTypeFilter(ConnectionType.REPLAY, "filter-close",
+				new DemoSettings.Filter());
+		accept(filter, "$GNTXT,01,01,02,u-blox AG*4E");
+		filter.close();
+
+		final SentenceTypeFilter newFilter = new SentenceTypeFilter(ConnectionType.REPLAY, "filter-close",
+				new DemoSettings.Filter());
+		accept(newFilter, "$GNTXT,01,01,02,u-blox AG*4E");
+		accept(newFilter, "$GNTXT,01,01,02,u-blox AG*4E");
+		Assertions.assertEquals(2, this.meterRegistry.get("nmea.filter.dropped").tag("device", "filter-close")
+				.functionCounter().count());
+	}
+
+	private double count(String deviceId, String sentenceType) {
+		return this.meterRegistry.get("nmea").tag("device", deviceId).tag("message_type", sentenceType)
+				.counter().count();
+	}
+
+	private static boolean accept(SentenceTypeFilter filter, String sentence) {
+		final byte[] frame = ("xx" + sentence).getBytes(StandardCharsets.ISO_8859_1);
+		return filter.accept(frame, 2, frame.length - 2);
+	}
+
+}
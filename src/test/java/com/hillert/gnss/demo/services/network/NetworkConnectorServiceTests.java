@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.services.network;
+
+import java.io.OutputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hillert.gnss.demo.config.SpringIntegrationConfig.NmeaMessageGateway;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+/**
+* Uses local sockets as a stand-in for network receivers.
+*
+* @author Gunnar Hillert
+*
+*/
+class NetworkConnectorServiceTests {
+
+	private static final String GSV_SENTENCE = "$GBGSV,1,1,00,*47";
+
+	private final NetworkSelectorLoop networkSelectorLoop = new NetworkSelectorLoop();
+
+	private final List<String> received = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		this.networkSelectorLoop.destroy();
+	}
+
+	@Test
+	void testTcpReceivers() throws Exception {
+		try (ServerSocket serverSocket1 = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+			ServerSocket serverSocket2 = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+
+			createConnectorService("rover").subscribeToData("tcp://127.0.0.1:" + serverSocket1.getLocalPort());
+			createConnectorService("base").subscribeToData("tcp://127.0.0.1:" + serverSocket2.getLocalPort());
+
+			try (Socket socket1 = serverSocket1.accept(); Socket socket2 = serverSocket2.accept()) {
+				final OutputStream outputStream1 = socket1.getOutputStream();
+				outputStream1.write("$GBGSV,1,1,".getBytes(StandardCharsets.ISO_8859_1));
+				outputStream1.flush();
+				outputStream1.write("00,*47\r\n".getBytes(StandardCharsets.ISO_8859_1));
+				outputStream1.flush();
+				socket2.getOutputStream().write((GSV_SENTENCE + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+
+				awaitReceived(2);
+			}
+		}
+
+		Assertions.assertEquals(2, this.received.size());
+		Assertions.assertTrue(this.received.contains("rover:" + GSV_SENTENCE));
+		Assertions.assertTrue(this.received.contains("base:" + GSV_SENTENCE));
+	}
+
+	@Test
+	void testUdpReceiver() throws Exception {
+		final int port;
+		try (DatagramSocket probe = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+			port = probe.getLocalPort();
+		}
+
+		createConnectorService("udp").subscribeToData("udp://127.0.0.1:" + port);
+
+		try (DatagramSocket datagramSocket = new DatagramSocket()) {
+			final byte[] data = (GSV_SENTENCE + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+			for (int i = 0; i < 50 && this.received.isEmpty(); i++) {
+				datagramSocket.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), port));
+				Thread.sleep(100);
+			}
+		}
+
+		awaitReceived(1);
+		Assertions.assertEquals("udp:" + GSV_SENTENCE, this.received.get(0));
+	}
+
+	private NetworkConnectorService createConnectorService(String deviceId) {
+		final NetworkConnectorService networkConnectorService = new NetworkConnectorService();
+		final NmeaMessageGateway nmeaMessageGateway = (data, id) -> this.received.add(id + ":" + data);
+		ReflectionTestUtils.setField(networkConnectorService, "nmeaMessageGateway", nmeaMessageGateway);
+		ReflectionTestUtils.setField(networkConnectorService, "demoSettings", new DemoSettings());
+		ReflectionTestUtils.setField(networkConnectorService, "networkSelectorLoop", this.networkSelectorLoop);
+		networkConnectorService.setDeviceId(deviceId);
+		return networkConnectorService;
+	}
+
+	private void awaitReceived(int expected) throws InterruptedException {
+		for (int i = 0; i < 100 && this.received.size() < expected; i++) {
+			Thread.sleep(50);
+		}
+		Assertions.assertTrue(this.received.size() >= expected);
+	}
+}
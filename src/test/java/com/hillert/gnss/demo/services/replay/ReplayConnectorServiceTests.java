@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hillert.gnss.demo.services.replay;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.hillert.gnss.demo.config.SpringIntegrationConfig.NmeaMessageGateway;
+import com.hillert.gnss.demo.support.DemoSettings;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class ReplayConnectorServiceTests {
+
+	@TempDir
+	Path directory;
+
+	private final List<String> received = new CopyOnWriteArrayList<>();
+
+	private ReplayConnectorService replayConnectorService;
+
+	@AfterEach
+	void tearDown() {
+		if (this.replayConnectorService != null) {
+			this.replayConnectorService.disconnect();
+		}
+	}
+
+	@Test
+	void testParseIngestTime() {
+		Assertions.assertEquals(1603101234567L, parseIngestTime("1603101234567 $GPGGA,"));
+		Assertions.assertEquals(-1, parseIngestTime("$GPGGA,"));
+		Assertions.assertEquals(-1, parseIngestTime(" $GPGGA,"));
+		Assertions.assertEquals(-1, parseIngestTime("16031x1234567 $GPGGA,"));
+		Assertions.assertEquals(-1, parseIngestTime("1603101234567$GPGGA,"));
+	}
+
+	@Test
+	void testJournalLinesAreReplayedAtTheRecordedPace() throws Exception {
+		final Path log = this.write("journal.nmea",
+				"1603101234000 " + gga("100000.00"),
+				"1603101234200 " + gga("100005.00"),
+				"1603101234400 " + gga("100010.00"));
+
+		final long millis = this.replay(log, 2);
+
+		// The ingest times take precedence over the GGA times (10 s)
+		Assertions.assertTrue(millis >= 200 && millis < 2000, "Replay took " + millis + " ms.");
+		this.awaitReceived(3);
+		Assertions.assertEquals("replay:" + gga("100000.00"), this.received.get(0));
+	}
+
+	@Test
+	void testPlainLogIsReplayedAtThePaceOfGgaAndRmcTimes() throws Exception {
+		final Path log = this.write("plain.nmea",
+				gga("100000.00"),
+				"$GBGSV,1,1,00,*47",
+				rmc("100001.00"),
+				gga("100002.00"));
+
+		final long millis = this.replay(log, 10);
+
+		Assertions.assertTrue(millis >= 200 && millis < 2000, "Replay took " + millis + " ms.");
+		this.awaitReceived(4);
+	}
+
+	@Test
+	void testReplayContinuesAcrossMidnight() throws Exception {
+		final Path log = this.write("midnight.nmea",
+				gga("235959.00"),
+				gga("000000.00"),
+				gga("000001.00"));
+
+		final long millis = this.replay(log, 10);
+
+		Assertions.assertTrue(millis >= 200 && millis < 2000, "Replay took " + millis + " ms.");
+		this.awaitReceived(3);
+	}
+
+	@Test
+	void testLogIsReplayedAtMaximumSpeed() throws Exception {
+		final Path log = this.write("fast.nmea",
+				gga("100000.00"),
+				gga("110000.00"));
+
+		final long millis = this.replay(log, 0);
+
+		Assertions.assertTrue(millis < 2000, "Replay took " + millis + " ms.");
+		this.awaitReceived(2);
+	}
+
+	@Test
+	void testCompressedLogIsReplayed() throws Exception {
+		final Path log = this.directory.resolve("compressed.nmea.gz");
+		try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(log))) {
+			outputStream.write(String.join("\r\n", gga("100000.00"), rmc("100000.00"), gga("100001.00"))
+					.getBytes(StandardCharsets.ISO_8859_1));
+		}
+
+		final long millis = this.replay(log, 10);
+
+		Assertions.assertTrue(millis >= 100 && millis < 2000, "Replay took " + millis + " ms.");
+		this.awaitReceived(3);
+		Assertions.assertEquals("replay:" + gga("100001.00"), this.received.get(2));
+	}
+
+	private long replay(Path log, double speed) {
+		final DemoSettings demoSettings = new DemoSettings();
+		demoSettings.getReplay().setSpeed(speed);
+		demoSettings.getFilter().setEnabled(false);
+
+		this.replayConnectorService = new ReplayConnectorService();
+		final NmeaMessageGateway nmeaMessageGateway = (data, id) -> this.received.add(id + ":" + data);
+		ReflectionTestUtils.setField(this.replayConnectorService, "nmeaMessageGateway", nmeaMessageGateway);
+		ReflectionTestUtils.setField(this.replayConnectorService, "demoSettings", demoSettings);
+		this.replayConnectorService.setDeviceId("replay");
+
+		final long start = System.nanoTime();
+		this.replayConnectorService.subscribeToData(log.toString());
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	private Path write(String fileName, String... lines) throws IOException {
+		return Files.writeString(this.directory.resolve(fileName), String.join("\r\n", lines) + "\r\n",
+				StandardCharsets.ISO_8859_1);
+	}
+
+	private void awaitReceived(int expected) throws InterruptedException {
+		for (int i = 0; i < 100 && this.received.size() < expected; i++) {
+			Thread.sleep(50);
+		}
+		Assertions.assertEquals(expected, this.received.size());
+	}
+
+	private static long parseIngestTime(String line) {
+		return ReplayConnectorService.parseIngestTime(line.getBytes(StandardCharsets.ISO_8859_1), line.indexOf('$'));
+	}
+
+	private static String gga(String time) {
+		return sentence("GNGGA," + time + ",4717.11399,N,00833.91590,E,1,08,1.01,499.6,M,48.0,M,,");
+	}
+
+	private static String rmc(String time) {
+		return sentence("GNRMC," + time + ",A,4717.11437,N,00833.91522,E,0.004,77.52,091202,,,A,V");
+	}
+
+	private static String sentence(String body) {
+		int checksum = 0;
+		for (int i = 0; i < body.length(); i++) {
+			checksum ^= body.charAt(i);
+		}
+		return String.format("$%s*%02X", body, checksum);
+	}
+
+}
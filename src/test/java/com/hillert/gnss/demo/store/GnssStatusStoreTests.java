@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hillert.gnss.demo.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hillert.gnss.demo.model.GnssProvider;
+import com.hillert.gnss.demo.model.GnssStatus;
+
+import net.sf.marineapi.nmea.util.GpsFixQuality;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class GnssStatusStoreTests {
+
+	private final GnssStatusStore gnssStatusStore = new GnssStatusStore();
+
+	@Test
+	void testUpdatesCreateNewSnapshots() {
+		final GnssStatus initial = this.gnssStatusStore.getGnssStatus();
+		Assertions.assertEquals(0, initial.getVersion());
+
+		this.gnssStatusStore.update(gnssStatus -> gnssStatus.withPosition(47.0, 8.0, 500.0, GpsFixQuality.NORMAL));
+		this.gnssStatusStore.update(gnssStatus -> gnssStatus.withSatelliteCount(GnssProvider.GPS, 12));
+		final GnssStatus current = this.gnssStatusStore.update(gnssStatus -> gnssStatus.withSatelliteCount(GnssProvider.GLONASS, 9));
+
+		Assertions.assertNull(initial.getLatitude());
+		Assertions.assertSame(current, this.gnssStatusStore.getGnssStatus());
+		Assertions.assertEquals(3, current.getVersion());
+		Assertions.assertEquals(47.0, current.getLatitude());
+		Assertions.assertEquals(21, current.getTotalSatelliteCount());
+		Assertions.assertThrows(UnsupportedOperationException.class,
+				() -> current.getSatelliteCount().put(GnssProvider.GALILEO, 1));
+	}
+
+	@Test
+	void testConcurrentUpdatesAreConsistent() throws InterruptedException {
+		final int updates = 10000;
+		final List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread(() -> {
+				for (int j = 0; j < updates; j++) {
+					final double value = j;
+					this.gnssStatusStore.update(gnssStatus -> gnssStatus.withPosition(value, value, value, null));
+				}
+			}));
+		}
+		threads.forEach(Thread::start);
+
+		long lastVersion = -1;
+		while (threads.stream().anyMatch(Thread::isAlive)) {
+			final GnssStatus gnssStatus = this.gnssStatusStore.getGnssStatus();
+			Assertions.assertTrue(gnssStatus.getVersion() >= lastVersion);
+			Assertions.assertEquals(gnssStatus.getLatitude(), gnssStatus.getLongitude());
+			lastVersion = gnssStatus.getVersion();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		Assertions.assertEquals(4 * updates, this.gnssStatusStore.getGnssStatus().getVersion());
+	}
+
+	@Test
+	void testSerialization() throws Exception {
+		this.gnssStatusStore.update(gnssStatus -> gnssStatus.withSatelliteCount(GnssProvider.GPS, 12));
+		final JsonNode json = new ObjectMapper().valueToTree(this.gnssStatusStore.getGnssStatus());
+
+		Assertions.assertEquals(1, json.get("version").asLong());
+		Assertions.assertEquals(12, json.get("totalSatelliteCount").asInt());
+		Assertions.assertEquals(12, json.get("satelliteCount").get("GPS").asInt());
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class PositionHistoryTests {
+
+	@Test
+	void testRange() {
+		final PositionHistory positionHistory = createPositionHistory(100, 10);
+
+		Assertions.assertEquals(List.of(1030L, 1040L, 1050L), getTimes(positionHistory, 1025, 1060, 0));
+		Assertions.assertEquals(List.of(1090L), getTimes(positionHistory, 1090, Long.MAX_VALUE, 0));
+		Assertions.assertEquals(List.of(), getTimes(positionHistory, 1100, Long.MAX_VALUE, 0));
+		Assertions.assertEquals(10, getTimes(positionHistory, 0, Long.MAX_VALUE, 0).size());
+	}
+
+	@Test
+	void testStep() {
+		final PositionHistory positionHistory = createPositionHistory(100, 10);
+
+		Assertions.assertEquals(List.of(1000L, 1030L, 1060L, 1090L), getTimes(positionHistory, 0, Long.MAX_VALUE, 25));
+		Assertions.assertEquals(List.of(1010L, 1050L), getTimes(positionHistory, 1010, 1090, 40));
+	}
+
+	@Test
+	void testOldestPositionsAreOverwritten() {
+		final PositionHistory positionHistory = createPositionHistory(8, 20);
+
+		Assertions.assertEquals(8, positionHistory.getSize());
+		final List<Long> times = getTimes(positionHistory, 0, Long.MAX_VALUE, 0);
+		Assertions.assertEquals(1130L, times.get(0));
+		Assertions.assertEquals(1190L, times.get(times.size() - 1));
+		Assertions.assertEquals(List.of(1150L, 1160L), getTimes(positionHistory, 1150, 1170, 0));
+	}
+
+	@Test
+	void testValues() {
+		final PositionHistory positionHistory = new PositionHistory(4);
+		positionHistory.add(1000, 47.2852, 8.5652, 499.6, 4, 12, 0.8);
+		positionHistory.add(900, 47.2853, 8.5653, Double.NaN, -1, -1, Double.NaN);
+
+		final List<String> positions = new ArrayList<>();
+		positionHistory.forEach(0, Long.MAX_VALUE, 0, (time, latitude, longitude, altitude,
+				fixQuality, satellitesInUse, horizontalDilution) -> positions.add(String.format("%s %s %s %s %s %s %s",
+						time, latitude, longitude, altitude, fixQuality, satellitesInUse, horizontalDilution)));
+
+		Assertions.assertEquals(List.of("1000 47.2852 8.5652 499.6 4 12 0.8", "1000 47.2853 8.5653 NaN -1 -1 NaN"),
+				positions);
+	}
+
+	private static PositionHistory createPositionHistory(int capacity, int positions) {
+		final PositionHistory positionHistory = new PositionHistory(capacity);
+		for (int i = 0; i < positions; i++) {
+			positionHistory.add(1000 + i * 10, 47.0, 8.0, 500.0, 1, 8, 1.0);
+		}
+		return positionHistory;
+	}
+
+	private static List<Long> getTimes(PositionHistory positionHistory, long from, long to, long step) {
+		final List<Long> times = new ArrayList<>();
+		positionHistory.forEach(from, to, step, (time, latitude, longitude, altitude,
+				fixQuality, satellitesInUse, horizontalDilution) -> times.add(time));
+		return times;
+	}
+
+}
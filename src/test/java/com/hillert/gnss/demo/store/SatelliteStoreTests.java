@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Gunnar Hillert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hillert.gnss.demo.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hillert.gnss.demo.model.GnssProvider;
+import com.hillert.gnss.demo.model.Satellite;
+import com.hillert.gnss.demo.model.SignalId;
+
+/**
+*
+* @author Gunnar Hillert
+*
+*/
+class SatelliteStoreTests {
+
+	private static final SatelliteKey GPS_L1 = new SatelliteKey(GnssProvider.GPS, SignalId.GPS_L1);
+	private static final SatelliteKey GPS_L2CL = new SatelliteKey(GnssProvider.GPS, SignalId.GPS_L2CL);
+
+	private final SatelliteStore satelliteStore = new SatelliteStore();
+
+	@Test
+	void testSignalsAreMergedPerSatellite() {
+		this.satelliteStore.update(GPS_L1, Arrays.asList(satellite("05", 40), satellite("12", 35)));
+		this.satelliteStore.update(GPS_L2CL, Arrays.asList(satellite("12", 28), satellite("25", 20)));
+
+		final List<Satellite> satellites = new ArrayList<>(this.satelliteStore.getSatellites(GnssProvider.GPS));
+		Assertions.assertEquals(3, satellites.size());
+		Assertions.assertEquals("05", satellites.get(0).getId());
+		Assertions.assertEquals(Collections.singletonMap(SignalId.GPS_L1, 40), satellites.get(0).getSignalNoise());
+		Assertions.assertEquals(2, satellites.get(1).getSignalNoise().size());
+		Assertions.assertEquals(28, satellites.get(1).getSignalNoise().get(SignalId.GPS_L2CL));
+		Assertions.assertEquals(35, satellites.get(1).getNoise());
+		Assertions.assertEquals(Collections.singletonMap(SignalId.GPS_L2CL, 20), satellites.get(2).getSignalNoise());
+	}
+
+	@Test
+	void testSnapshotsAreMaterializedOnChange() {
+		this.satelliteStore.update(GPS_L1, Arrays.asList(satellite("05", 40), satellite("12", 35)));
+		final Collection<Satellite> before = this.satelliteStore.getSatellites(GnssProvider.GPS);
+		Assertions.assertSame(before, this.satelliteStore.getSatellites(GnssProvider.GPS));
+
+		this.satelliteStore.update(GPS_L1, Arrays.asList(satellite("05", 40), satellite("12", 30)));
+		final Collection<Satellite> after = this.satelliteStore.getSatellites(GnssProvider.GPS);
+		Assertions.assertNotSame(before, after);
+		Assertions.assertEquals(35, new ArrayList<>(before).get(1).getNoise());
+		Assertions.assertEquals(30, new ArrayList<>(after).get(1).getNoise());
+	}
+
+	@Test
+	void testSatelliteIdsOutOfRangeAreIgnored() {
+		this.satelliteStore.update(GnssProvider.BAIDOU, 1, new int[] { 7, 401, -1 }, (ids, satelliteTable) -> {
+			for (int id : ids) {
+				satelliteTable.put(id, 30, 90, 25);
+			}
+		});
+
+		final Satellite satellite = this.satelliteStore.getSatellites(GnssProvider.BAIDOU).iterator().next();
+		Assertions.assertEquals(1, this.satelliteStore.getSatellites(GnssProvider.BAIDOU).size());
+		Assertions.assertEquals("07", satellite.getId());
+		Assertions.assertEquals(Collections.singletonMap(SignalId.BAIDOU_B1I, 25), satellite.getSignalNoise());
+	}
+
+	@Test
+	void testSatellitesNoLongerReceivedAreRemoved() {
+		Assertions.assertEquals(2, this.satelliteStore.update(GPS_L1, Arrays.asList(satellite("05", 40), satellite("12", 35))));
+		Assertions.assertEquals(2, this.satelliteStore.update(GPS_L2CL, Arrays.asList(satellite("12", 28))));
+
+		Assertions.assertEquals(2, this.satelliteStore.update(GPS_L1, Arrays.asList(satellite("05", 41))));
+		final List<Satellite> satellites = new ArrayList<>(this.satelliteStore.getSatellites(GnssProvider.GPS));
+		Assertions.assertEquals(2, satellites.size());
+		Assertions.assertEquals(Collections.singletonMap(SignalId.GPS_L2CL, 28), satellites.get(1).getSignalNoise());
+
+		Assertions.assertEquals(1, this.satelliteStore.update(GPS_L2CL, Collections.emptyList()));
+		Assertions.assertEquals(1, this.satelliteStore.getSatellites(GnssProvider.GPS).size());
+	}
+
+	@Test
+	void testUnknownSignal() throws Exception {
+		this.satelliteStore.update(new SatelliteKey(GnssProvider.GLONASS, null), Arrays.asList(satellite("66", 22)));
+
+		final Satellite satellite = this.satelliteStore.getSatellites(GnssProvider.GLONASS).iterator().next();
+		Assertions.assertEquals(22, satellite.getSignalNoise().get(SignalId.UNKNOWN));
+
+		final JsonNode json = new ObjectMapper().valueToTree(this.satelliteStore.getSatellites());
+		Assertions.assertEquals(22, json.get("GLONASS").get(0).get("signalNoise").get("UNKNOWN").asInt());
+	}
+
+	@Test
+	void testCleanupRemovesProvidersNotProcessed() {
+		this.satelliteStore.update(GPS_L1, Arrays.asList(satellite("05", 40)));
+		this.satelliteStore.update(new SatelliteKey(GnssProvider.GALILEO, SignalId.GALILEO_E1), Arrays.asList(satellite("07", 30)));
+		this.satelliteStore.setProcessed(false);
+		this.satelliteStore.getProcessedGnssProviders().add(GnssProvider.GPS);
+
+		this.satelliteStore.cleanupIfNecessary();
+
+		Assertions.assertEquals(Collections.singleton(GnssProvider.GPS), this.satelliteStore.getSatellites().keySet());
+		Assertions.assertThrows(UnsupportedOperationException.class,
+				() -> this.satelliteStore.getSatellites().remove(GnssProvider.GPS));
+	}
+
+	private static Satellite satellite(String id, int noise) {
+		return new Satellite(GnssProvider.GPS, id, 45, 180, noise);
+	}
+
+}